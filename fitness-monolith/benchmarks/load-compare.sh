@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Runs LoadScenario (sign in -> create activity -> list activities) against the packaged jar twice,
+# once on platform threads and once on virtual threads, and prints both results.
+#
+#   DB_URL=... DB_USER=... DB_PWD=... benchmarks/load-compare.sh [clients] [duration-seconds]
+#
+# Rate limiting is switched off for the run, since every client shares one IP.
+# Use an empty database for comparable runs; results are appended to target/load-results.jsonl.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+: "${DB_URL:?DB_URL must be set}"
+: "${DB_USER:?DB_USER must be set}"
+: "${DB_PWD:?DB_PWD must be set}"
+CLIENTS=${1:-200}
+DURATION=${2:-30}
+WARMUP=${WARMUP:-10}
+PORT=${PORT:-8080}
+JAR=target/fitness-monolith-0.0.1-SNAPSHOT.jar
+OUT=target/load-results.jsonl
+
+mvn -q -B -DskipTests package
+rm -f "$OUT"
+
+for mode in platform virtual; do
+  virtual=false
+  [ "$mode" = virtual ] && virtual=true
+  VIRTUAL_THREADS=$virtual java -jar "$JAR" --server.port="$PORT" --app.rate-limit.enabled=false > "target/load-$mode.log" 2>&1 &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+
+  # any HTTP status means the server is accepting requests
+  until curl -s -o /dev/null "http://localhost:$PORT/actuator/health"; do
+    kill -0 "$pid" 2>/dev/null || { echo "application failed to start, see target/load-$mode.log"; exit 1; }
+    sleep 1
+  done
+
+  java src/test/java/com/project/fitness/benchmark/LoadScenario.java \
+    --base-url "http://localhost:$PORT" --clients "$CLIENTS" --warmup "$WARMUP" --duration "$DURATION" \
+    --label "$mode" --out "$OUT"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+done
+
+cat "$OUT"
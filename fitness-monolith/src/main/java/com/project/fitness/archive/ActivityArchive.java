@@ -0,0 +1,334 @@
+package com.project.fitness.archive;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.repository.DailyActivityTotals;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+//cold activities moved out of the activity table by ActivityArchiveJob, stored as append-only columnar
+//segments under app.archive.directory (layout in ArchiveSegment). The segment list is swapped copy-on-write,
+//so reads never lock. A segment stays pending (<name>.pending marker) from publish until the job has deleted
+//its rows from the table: history reads drop the duplicates that window can produce, totals skip it.
+@Component
+@Slf4j
+public class ActivityArchive {
+
+    private static final String PENDING = ".pending";
+    private static final String WORK_DIRECTORY = ".tmp";
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+    private static final TypeReference<Map<String, Object>> METRICS = new TypeReference<>() {
+    };
+    private static final Comparator<RowRef> NEWEST_FIRST = Comparator.comparingLong((RowRef row) -> row.start)
+            .thenComparing(RowRef::id)
+            .reversed();
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    public ActivityArchive(@Value("${app.archive.directory:data/archive}") Path directory, ObjectMapper objectMapper) throws IOException
+    {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        load();
+    }
+
+    public boolean isEmpty()
+    {
+        return segments.isEmpty();
+    }
+
+    public long rows()
+    {
+        return segments.stream().mapToLong(segment -> segment.rows).sum();
+    }
+
+    public Set<String> userIds()
+    {
+        Set<String> userIds = new LinkedHashSet<>();
+        segments.forEach(segment -> userIds.addAll(List.of(segment.users())));
+        return userIds;
+    }
+
+    //writing, used by ActivityArchiveJob
+
+    public ArchiveSegmentWriter newSegment() throws IOException
+    {
+        Files.createDirectories(directory);
+        String name = "segment-" + LocalDateTime.now().format(SEGMENT_TIME) + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return new ArchiveSegmentWriter(directory, name, objectMapper);
+    }
+
+    //finishes the writer and makes the segment readable, as pending
+    public synchronized void publish(ArchiveSegmentWriter writer) throws IOException
+    {
+        Files.write(directory.resolve(writer.name() + PENDING), new byte[0]);
+        writer.finish();
+        ArchiveSegment segment = ArchiveSegment.open(directory, writer.name(), true);
+        List<ArchiveSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        segments = List.copyOf(updated);
+    }
+
+    public List<String> pendingSegments()
+    {
+        return segments.stream().filter(segment -> segment.pending).map(ArchiveSegment::name).toList();
+    }
+
+    public void forEachIdChunk(String segmentName, int chunkSize, Consumer<List<String>> action)
+    {
+        ArchiveSegment segment = segment(segmentName);
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (int row = 0; row < segment.rows; row++) {
+            chunk.add(segment.id(row));
+            if (chunk.size() == chunkSize) {
+                action.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(chunk);
+        }
+    }
+
+    public LocalDateTime latestStart(String segmentName)
+    {
+        return ArchiveSegment.dateTime(segment(segmentName).maxStart);
+    }
+
+    //the segment's rows are gone from the activity table; it is now the only copy
+    public synchronized void commit(String segmentName) throws IOException
+    {
+        ArchiveSegment segment = segment(segmentName);
+        Files.deleteIfExists(directory.resolve(segmentName + PENDING));
+        segment.pending = false;
+    }
+
+    //reading
+
+    //newest first, with the filters and (startTime, id) keyset semantics of ActivityRepositoryCustom.findPage
+    public List<ArchivedActivity> history(String userId, LocalDateTime from, LocalDateTime to, ActivityType type,
+                                          LocalDateTime afterStartTime, String afterId, int limit)
+    {
+        long fromMicros = from == null ? Long.MIN_VALUE : ArchiveSegment.micros(from);
+        long toMicros = to == null ? Long.MAX_VALUE : ArchiveSegment.micros(to);
+        long afterMicros = afterStartTime == null ? Long.MAX_VALUE : ArchiveSegment.micros(afterStartTime);
+        long endMicros = afterStartTime == null ? toMicros : Math.min(toMicros, afterMicros + 1);
+
+        List<RowRef> candidates = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            int user = segment.userIndex(userId);
+            if (user < 0 || segment.maxStart < fromMicros || segment.minStart >= endMicros) {
+                continue;
+            }
+            int first = segment.firstRow(user);
+            int end = segment.lowerBound(first, first + segment.rowCount(user), endMicros);
+            int taken = 0;
+            long lastTaken = Long.MIN_VALUE;
+            for (int row = end - 1; row >= first; row--) {
+                long start = segment.start(row);
+                //ids are unordered within one start time, so keep going until the start time changes
+                if (start < fromMicros || (taken >= limit && start != lastTaken)) {
+                    break;
+                }
+                if (type != null && segment.type(row) != type) {
+                    continue;
+                }
+                RowRef ref = new RowRef(segment, row, start);
+                if (start == afterMicros && ref.id().compareTo(afterId) >= 0) {
+                    continue;
+                }
+                candidates.add(ref);
+                taken++;
+                lastTaken = start;
+            }
+        }
+        candidates.sort(NEWEST_FIRST);
+        return candidates.stream().limit(limit).map(this::read).toList();
+    }
+
+    //every archived activity of the user, oldest first; rows are decoded as the iterator advances
+    public Iterator<ArchivedActivity> oldestFirst(String userId)
+    {
+        List<RowRef> rows = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            int user = segment.userIndex(userId);
+            if (user < 0) {
+                continue;
+            }
+            int first = segment.firstRow(user);
+            for (int row = first; row < first + segment.rowCount(user); row++) {
+                rows.add(new RowRef(segment, row, segment.start(row)));
+            }
+        }
+        rows.sort(NEWEST_FIRST.reversed());
+        return rows.stream().map(this::read).iterator();
+    }
+
+    //per user / type / day totals in the shape of ActivityRepository.aggregateDailyTotals, so a rollup rebuild
+    //counts archived activities too. Only the duration, calories, type and start columns are touched
+    public List<DailyActivityTotals> dailyTotals(Collection<String> userIds)
+    {
+        Map<DayKey, long[]> totals = new HashMap<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.pending) {
+                continue;
+            }
+            for (String userId : userIds) {
+                int user = segment.userIndex(userId);
+                if (user < 0) {
+                    continue;
+                }
+                DayKey lastKey = null;
+                long[] day = null;
+                int first = segment.firstRow(user);
+                for (int row = first; row < first + segment.rowCount(user); row++) {
+                    ActivityType type = segment.type(row);
+                    if (type == null) {
+                        continue;
+                    }
+                    long epochDay = Math.floorDiv(segment.start(row), MICROS_PER_DAY);
+                    //rows run in start order, so consecutive rows usually share a day and type
+                    if (lastKey == null || lastKey.epochDay != epochDay || lastKey.type != type) {
+                        lastKey = new DayKey(userId, type, epochDay);
+                        day = totals.computeIfAbsent(lastKey, key -> new long[5]);
+                    }
+                    int duration = segment.duration(row);
+                    int calories = segment.calories(row);
+                    day[0]++;
+                    if (duration != ArchiveSegment.NULL_INT) {
+                        day[1] += duration;
+                        day[3] = Math.max(day[3], duration);
+                    }
+                    if (calories != ArchiveSegment.NULL_INT) {
+                        day[2] += calories;
+                        day[4] = Math.max(day[4], calories);
+                    }
+                }
+            }
+        }
+        return totals.entrySet().stream()
+                .map(entry -> new DailyActivityTotals(entry.getKey().userId, entry.getKey().type,
+                        LocalDate.ofEpochDay(entry.getKey().epochDay),
+                        entry.getValue()[0], entry.getValue()[1], entry.getValue()[2],
+                        (int) entry.getValue()[3], (int) entry.getValue()[4]))
+                .toList();
+    }
+
+    private ArchivedActivity read(RowRef ref)
+    {
+        ArchiveSegment segment = ref.segment;
+        int row = ref.row;
+        byte[] json = segment.metrics(row);
+        return new ArchivedActivity(
+                ref.id(),
+                segment.users()[segment.user(row)],
+                segment.type(row),
+                ArchiveSegment.dateTime(ref.start),
+                nullable(segment.duration(row)),
+                nullable(segment.calories(row)),
+                segment.created(row),
+                segment.updated(row),
+                json == null ? null : objectMapper.readValue(json, METRICS));
+    }
+
+    private ArchiveSegment segment(String name)
+    {
+        return segments.stream()
+                .filter(segment -> segment.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown archive segment " + name));
+    }
+
+    private void load() throws IOException
+    {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<ArchiveSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(WORK_DIRECTORY)) {
+                    //a writer that never finished
+                    deleteRecursively(file);
+                } else if (fileName.endsWith(ArchiveSegment.COLUMNS)) {
+                    String name = fileName.substring(0, fileName.length() - ArchiveSegment.COLUMNS.length());
+                    loaded.add(ArchiveSegment.open(directory, name, Files.exists(directory.resolve(name + PENDING))));
+                } else if (fileName.endsWith(PENDING)
+                        && !Files.exists(directory.resolve(fileName.replace(PENDING, ArchiveSegment.COLUMNS)))) {
+                    //publish stopped before the segment was in place; its rows never left the table
+                    Files.delete(file);
+                }
+            }
+        }
+        segments = List.copyOf(loaded);
+        log.info("Loaded {} archive segment(s) with {} activities from {}", loaded.size(), rows(), directory);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException
+    {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                for (Path child : children.toList()) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+
+    private static Integer nullable(int value)
+    {
+        return value == ArchiveSegment.NULL_INT ? null : value;
+    }
+
+    private static final class RowRef {
+        private final ArchiveSegment segment;
+        private final int row;
+        private final long start;
+        private String id;
+
+        private RowRef(ArchiveSegment segment, int row, long start)
+        {
+            this.segment = segment;
+            this.row = row;
+            this.start = start;
+        }
+
+        private String id()
+        {
+            if (id == null) {
+                id = segment.id(row);
+            }
+            return id;
+        }
+    }
+
+    private record DayKey(String userId, ActivityType type, long epochDay) {
+    }
+}
@@ -0,0 +1,279 @@
+package com.project.fitness.archive;
+
+import com.project.fitness.model.ActivityType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+
+//read side of one immutable archive segment: <name>.col holds the header and the fixed-width columns,
+//<name>.blob the additionalMetrics JSON. Both files are memory-mapped once and read with absolute gets,
+//so any number of threads can scan a segment without locking or copying.
+//
+//<name>.col layout (big-endian):
+//  long magic, int version, int rows, int users, int types, long minStart, long maxStart
+//  types  x (short length, UTF-8 name)                           - stored ordinal -> ActivityType name
+//  users  x (short length, UTF-8 id, int firstRow, int rowCount) - user[] values index this; rows are contiguous
+//  then, each starting on an 8-byte boundary:
+//  long idMsb[rows], long idLsb[rows], long start[rows], long created[rows], long updated[rows],
+//  long metricsOffset[rows + 1], int user[rows], int duration[rows], int calories[rows], byte type[rows]
+//Times are UTC epoch microseconds; NULL_TIME / NULL_INT / NULL_TYPE mark missing values.
+//Within a user, rows are in ascending start time.
+final class ArchiveSegment {
+
+    static final long MAGIC = 0x4649544152434831L; // "FITARCH1"
+    static final int VERSION = 1;
+    static final long NULL_TIME = Long.MIN_VALUE;
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final byte NULL_TYPE = -1;
+
+    static final String COLUMNS = ".col";
+    static final String BLOB = ".blob";
+
+    private final String name;
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer blob;
+
+    final int rows;
+    final long minStart;
+    final long maxStart;
+
+    //indexed by stored ordinal; null when the type no longer exists
+    private final ActivityType[] types;
+    private final String[] users;
+    private final int[] userFirstRow;
+    private final int[] userRowCount;
+    //users sorted by id, and each one's index in users, for lookups by id
+    private final String[] sortedUsers;
+    private final int[] sortedUserIndex;
+
+    private final int idMsbAt;
+    private final int idLsbAt;
+    private final int startAt;
+    private final int createdAt;
+    private final int updatedAt;
+    private final int metricsAt;
+    private final int userAt;
+    private final int durationAt;
+    private final int caloriesAt;
+    private final int typeAt;
+
+    //rows are also still in the activity table until the archiving job has deleted them
+    volatile boolean pending;
+
+    private ArchiveSegment(String name, MappedByteBuffer data, MappedByteBuffer blob, boolean pending) throws IOException
+    {
+        this.name = name;
+        this.data = data;
+        this.blob = blob;
+        this.pending = pending;
+
+        if (data.getLong(0) != MAGIC || data.getInt(8) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " archive segment: " + name);
+        }
+        rows = data.getInt(12);
+        int userCount = data.getInt(16);
+        int typeCount = data.getInt(20);
+        minStart = data.getLong(24);
+        maxStart = data.getLong(32);
+
+        int at = 40;
+        types = new ActivityType[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            int length = data.getShort(at);
+            types[i] = activityType(string(at + 2, length));
+            at += 2 + length;
+        }
+        users = new String[userCount];
+        userFirstRow = new int[userCount];
+        userRowCount = new int[userCount];
+        for (int i = 0; i < userCount; i++) {
+            int length = data.getShort(at);
+            users[i] = string(at + 2, length);
+            at += 2 + length;
+            userFirstRow[i] = data.getInt(at);
+            userRowCount[i] = data.getInt(at + 4);
+            at += 8;
+        }
+        Integer[] order = new Integer[userCount];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(i -> users[i]));
+        sortedUsers = new String[userCount];
+        sortedUserIndex = new int[userCount];
+        for (int i = 0; i < userCount; i++) {
+            sortedUsers[i] = users[order[i]];
+            sortedUserIndex[i] = order[i];
+        }
+
+        idMsbAt = align(at);
+        idLsbAt = align(idMsbAt + rows * 8);
+        startAt = align(idLsbAt + rows * 8);
+        createdAt = align(startAt + rows * 8);
+        updatedAt = align(createdAt + rows * 8);
+        metricsAt = align(updatedAt + rows * 8);
+        userAt = align(metricsAt + (rows + 1) * 8);
+        durationAt = align(userAt + rows * 4);
+        caloriesAt = align(durationAt + rows * 4);
+        typeAt = align(caloriesAt + rows * 4);
+        if (typeAt + rows > data.capacity()) {
+            throw new IOException("Truncated archive segment: " + name);
+        }
+    }
+
+    static ArchiveSegment open(Path directory, String name, boolean pending) throws IOException
+    {
+        return new ArchiveSegment(name, map(directory.resolve(name + COLUMNS)), map(directory.resolve(name + BLOB)), pending);
+    }
+
+    String name()
+    {
+        return name;
+    }
+
+    String[] users()
+    {
+        return users;
+    }
+
+    //index into users(), negative when the user has no rows here
+    int userIndex(String userId)
+    {
+        int sorted = Arrays.binarySearch(sortedUsers, userId);
+        return sorted < 0 ? -1 : sortedUserIndex[sorted];
+    }
+
+    int firstRow(int userIndex)
+    {
+        return userFirstRow[userIndex];
+    }
+
+    int rowCount(int userIndex)
+    {
+        return userRowCount[userIndex];
+    }
+
+    //first row in [from, to) whose start is >= micros
+    int lowerBound(int from, int to, long micros)
+    {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start(mid) < micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    long start(int row)
+    {
+        return data.getLong(startAt + row * 8);
+    }
+
+    int duration(int row)
+    {
+        return data.getInt(durationAt + row * 4);
+    }
+
+    int calories(int row)
+    {
+        return data.getInt(caloriesAt + row * 4);
+    }
+
+    int user(int row)
+    {
+        return data.getInt(userAt + row * 4);
+    }
+
+    //null when missing or no longer an ActivityType
+    ActivityType type(int row)
+    {
+        byte ordinal = data.get(typeAt + row);
+        return ordinal == NULL_TYPE || ordinal >= types.length ? null : types[ordinal];
+    }
+
+    String id(int row)
+    {
+        return new UUID(data.getLong(idMsbAt + row * 8), data.getLong(idLsbAt + row * 8)).toString();
+    }
+
+    LocalDateTime created(int row)
+    {
+        return dateTime(data.getLong(createdAt + row * 8));
+    }
+
+    LocalDateTime updated(int row)
+    {
+        return dateTime(data.getLong(updatedAt + row * 8));
+    }
+
+    //raw JSON of additionalMetrics, null when the activity had none
+    byte[] metrics(int row)
+    {
+        long from = data.getLong(metricsAt + row * 8);
+        long to = data.getLong(metricsAt + (row + 1) * 8);
+        if (from == to) {
+            return null;
+        }
+        byte[] json = new byte[(int) (to - from)];
+        blob.get((int) from, json);
+        return json;
+    }
+
+    static long micros(LocalDateTime time)
+    {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime dateTime(long micros)
+    {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static int align(int position)
+    {
+        return (position + 7) & ~7;
+    }
+
+    private String string(int at, int length)
+    {
+        byte[] bytes = new byte[length];
+        data.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ActivityType activityType(String name)
+    {
+        try {
+            return ActivityType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive file larger than 2 GB: " + file);
+            }
+            //the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.project.fitness.archive;
+
+import com.project.fitness.model.ActivityType;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+//streams activities into a new archive segment (layout in ArchiveSegment). Each column is spilled to its own
+//temp file while rows arrive, so memory stays flat however many rows are written; finish() concatenates
+//them behind the header, forces both files to disk and moves them into place. Rows must come grouped by
+//user and in ascending start time within a user.
+public class ArchiveSegmentWriter implements Closeable {
+
+    private static final int BUFFER = 64 * 1024;
+
+    private final Path directory;
+    private final String name;
+    private final Path workDirectory;
+    private final ObjectMapper objectMapper;
+
+    private final List<Path> columnFiles = new ArrayList<>();
+    private final List<DataOutputStream> columns = new ArrayList<>();
+    private final DataOutputStream idMsb;
+    private final DataOutputStream idLsb;
+    private final DataOutputStream start;
+    private final DataOutputStream created;
+    private final DataOutputStream updated;
+    private final DataOutputStream metricsOffset;
+    private final DataOutputStream user;
+    private final DataOutputStream duration;
+    private final DataOutputStream calories;
+    private final DataOutputStream type;
+    private final OutputStream blob;
+
+    private final List<UserRange> userRanges = new ArrayList<>();
+    private final Set<String> seenUsers = new HashSet<>();
+    private UserRange currentUser;
+    private long lastStart;
+    private int rows;
+    private long blobBytes;
+    private long minStart = Long.MAX_VALUE;
+    private long maxStart = Long.MIN_VALUE;
+    private boolean finished;
+
+    public ArchiveSegmentWriter(Path directory, String name, ObjectMapper objectMapper) throws IOException
+    {
+        this.directory = directory;
+        this.name = name;
+        this.objectMapper = objectMapper;
+        this.workDirectory = Files.createDirectories(directory.resolve(name + ".tmp"));
+        idMsb = column("id-msb");
+        idLsb = column("id-lsb");
+        start = column("start");
+        created = column("created");
+        updated = column("updated");
+        metricsOffset = column("metrics-offset");
+        user = column("user");
+        duration = column("duration");
+        calories = column("calories");
+        type = column("type");
+        blob = new BufferedOutputStream(Files.newOutputStream(workDirectory.resolve("blob")), BUFFER);
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public int rows()
+    {
+        return rows;
+    }
+
+    public long blobBytes()
+    {
+        return blobBytes;
+    }
+
+    public void append(ArchivedActivity activity) throws IOException
+    {
+        long startMicros = ArchiveSegment.micros(activity.startTime());
+        if (currentUser == null || !currentUser.userId.equals(activity.userId())) {
+            if (!seenUsers.add(activity.userId())) {
+                throw new IllegalStateException("Rows for user " + activity.userId() + " are not contiguous");
+            }
+            currentUser = new UserRange(activity.userId(), userRanges.size(), rows);
+            userRanges.add(currentUser);
+        } else if (startMicros < lastStart) {
+            throw new IllegalStateException("Rows for user " + activity.userId() + " are not in start time order");
+        }
+        lastStart = startMicros;
+
+        UUID id = UUID.fromString(activity.id());
+        idMsb.writeLong(id.getMostSignificantBits());
+        idLsb.writeLong(id.getLeastSignificantBits());
+        start.writeLong(startMicros);
+        created.writeLong(activity.createdAt() == null ? ArchiveSegment.NULL_TIME : ArchiveSegment.micros(activity.createdAt()));
+        updated.writeLong(activity.updatedAt() == null ? ArchiveSegment.NULL_TIME : ArchiveSegment.micros(activity.updatedAt()));
+        user.writeInt(currentUser.index);
+        duration.writeInt(activity.duration() == null ? ArchiveSegment.NULL_INT : activity.duration());
+        calories.writeInt(activity.caloriesBurned() == null ? ArchiveSegment.NULL_INT : activity.caloriesBurned());
+        type.writeByte(activity.type() == null ? ArchiveSegment.NULL_TYPE : activity.type().ordinal());
+
+        metricsOffset.writeLong(blobBytes);
+        if (activity.additionalMetrics() != null) {
+            byte[] json = objectMapper.writeValueAsBytes(activity.additionalMetrics());
+            blob.write(json);
+            blobBytes += json.length;
+        }
+
+        currentUser.rows++;
+        rows++;
+        minStart = Math.min(minStart, startMicros);
+        maxStart = Math.max(maxStart, startMicros);
+    }
+
+    //writes <name>.blob and then <name>.col; the segment exists for readers once the .col file is in place
+    public void finish() throws IOException
+    {
+        metricsOffset.writeLong(blobBytes);
+        for (DataOutputStream column : columns) {
+            column.close();
+        }
+        blob.close();
+
+        Path blobFile = workDirectory.resolve("blob");
+        force(blobFile);
+
+        Path columnsFile = workDirectory.resolve("segment");
+        try (FileChannel out = FileChannel.open(columnsFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeFully(out, ByteBuffer.wrap(header()));
+            for (Path columnFile : columnFiles) {
+                pad(out);
+                try (FileChannel in = FileChannel.open(columnFile, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long copied = 0;
+                    while (copied < size) {
+                        copied += in.transferTo(copied, size - copied, out);
+                    }
+                }
+            }
+            out.force(true);
+        }
+
+        Files.move(blobFile, directory.resolve(name + ArchiveSegment.BLOB), StandardCopyOption.ATOMIC_MOVE);
+        Files.move(columnsFile, directory.resolve(name + ArchiveSegment.COLUMNS), StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+        close();
+    }
+
+    //discards the work files; a segment that was not finished leaves nothing behind
+    @Override
+    public void close() throws IOException
+    {
+        if (!finished) {
+            for (DataOutputStream column : columns) {
+                column.close();
+            }
+            blob.close();
+        }
+        if (!Files.isDirectory(workDirectory)) {
+            return;
+        }
+        try (var files = Files.list(workDirectory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDirectory);
+    }
+
+    private byte[] header() throws IOException
+    {
+        ActivityType[] types = ActivityType.values();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeLong(ArchiveSegment.MAGIC);
+        header.writeInt(ArchiveSegment.VERSION);
+        header.writeInt(rows);
+        header.writeInt(userRanges.size());
+        header.writeInt(types.length);
+        header.writeLong(rows == 0 ? ArchiveSegment.NULL_TIME : minStart);
+        header.writeLong(rows == 0 ? ArchiveSegment.NULL_TIME : maxStart);
+        for (ActivityType activityType : types) {
+            writeString(header, activityType.name());
+        }
+        for (UserRange range : userRanges) {
+            writeString(header, range.userId);
+            header.writeInt(range.firstRow);
+            header.writeInt(range.rows);
+        }
+        header.flush();
+        return bytes.toByteArray();
+    }
+
+    private DataOutputStream column(String column) throws IOException
+    {
+        Path file = workDirectory.resolve(column);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER));
+        columnFiles.add(file);
+        columns.add(out);
+        return out;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void pad(FileChannel out) throws IOException
+    {
+        long position = out.position();
+        int padding = (int) (((position + 7) & ~7L) - position);
+        if (padding > 0) {
+            writeFully(out, ByteBuffer.allocate(padding));
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void force(Path file)
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class UserRange {
+        private final String userId;
+        private final int index;
+        private final int firstRow;
+        private int rows;
+
+        private UserRange(String userId, int index, int firstRow)
+        {
+            this.userId = userId;
+            this.index = index;
+            this.firstRow = firstRow;
+        }
+    }
+}
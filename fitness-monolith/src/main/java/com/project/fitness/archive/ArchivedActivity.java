@@ -0,0 +1,18 @@
+package com.project.fitness.archive;
+
+import com.project.fitness.model.ActivityType;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+//one activity as stored in (or read back from) an archive segment
+public record ArchivedActivity(String id,
+                               String userId,
+                               ActivityType type,
+                               LocalDateTime startTime,
+                               Integer duration,
+                               Integer caloriesBurned,
+                               LocalDateTime createdAt,
+                               LocalDateTime updatedAt,
+                               Map<String, Object> additionalMetrics) {
+}
@@ -0,0 +1,13 @@
+package com.project.fitness.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+//caches are Caffeine-backed and declared in application.properties (spring.cache.*)
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USER_RECOMMENDATIONS = "userRecommendations";
+    public static final String ACTIVITY_RECOMMENDATIONS = "activityRecommendations";
+}
@@ -0,0 +1,20 @@
+package com.project.fitness.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//clients that send Accept: application/cbor or application/x-jackson-smile get the same objects in that
+//binary encoding; JSON stays first, so */* and missing Accept headers keep getting JSON
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder)
+    {
+        builder.withCborConverter(new JacksonCborHttpMessageConverter())
+                .withSmileConverter(new JacksonSmileHttpMessageConverter());
+    }
+}
@@ -0,0 +1,10 @@
+package com.project.fitness.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//cron expressions live in application.properties; set one to "-" to switch that job off
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,13 +1,30 @@
 package com.project.fitness.controller;
 
+import com.project.fitness.dto.ActivityBatchResponse;
+import com.project.fitness.dto.ActivityPage;
 import com.project.fitness.dto.ActivityRequest;
 import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.ActivityStatsResponse;
+import com.project.fitness.dto.MetricSummaryResponse;
 import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+import com.project.fitness.model.RollupPeriod;
 import com.project.fitness.service.ActivityService;
+import com.project.fitness.service.DataVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/activities")
@@ -15,6 +32,10 @@ import java.util.List;
 public class ActivityController {
 
     private final ActivityService activityService;
+    private final DataVersions dataVersions;
+
+    @Value("${app.activities.batch.max-items:1000}")
+    private int batchMaxItems;
 
     @PostMapping("/create")
     public ResponseEntity<ActivityResponse> trackActivity(
@@ -25,11 +46,125 @@ public class ActivityController {
         return ResponseEntity.ok(activityService.createActivity(activityRequest,userId));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ActivityBatchResponse> trackActivities(
+            @RequestBody List<ActivityRequest> activityRequests,
+            @RequestHeader String userId
+    )
+    {
+        if(activityRequests.isEmpty() || activityRequests.size() > batchMaxItems)
+        {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(activityService.createActivities(activityRequests,userId));
+    }
+
+    @DeleteMapping("/{activityId}")
+    public ResponseEntity<Void> deleteActivity(
+            @PathVariable String activityId,
+            @RequestHeader String userId
+    )
+    {
+        if(!activityService.deleteActivity(activityId,userId))
+        {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    //304 from the user's data version when the client's copy is current, without a query
     @GetMapping("/all")
     public ResponseEntity<List<ActivityResponse>> getUserActivities(
-            @RequestHeader(name = "USER_ID") String userId
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(defaultValue = "true") boolean includeMetrics
+    )
+    {
+        return ConditionalGet.respond(ifNoneMatch, dataVersions.userTag(userId),
+                () -> activityService.getAllActivities(userId,includeMetrics));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ActivityPage> getUserActivityPage(
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ActivityType type,
+            @RequestParam(defaultValue = "true") boolean includeMetrics
     )
     {
-        return ResponseEntity.ok(activityService.getAllActivities(userId));
+        return ResponseEntity.ok(activityService.getActivityPage(userId,cursor,size,from,to,type,includeMetrics));
+    }
+
+    //GET /metrics/search?metric=DISTANCE&min=10&type=RUNNING - activities by a promoted metric, newest first
+    @GetMapping("/metrics/search")
+    public ResponseEntity<ActivityPage> searchByMetric(
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestParam PromotedMetric metric,
+            @RequestParam(required = false) Double min,
+            @RequestParam(required = false) Double max,
+            @RequestParam(required = false) ActivityType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    )
+    {
+        return ResponseEntity.ok(activityService.searchByMetric(userId,metric,min,max,type,cursor,size));
+    }
+
+    //GET /metrics/summary?metric=HEART_RATE - count/avg/min/max of a promoted metric per activity type
+    @GetMapping("/metrics/summary")
+    public ResponseEntity<List<MetricSummaryResponse>> getMetricSummary(
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestParam PromotedMetric metric,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    )
+    {
+        return ResponseEntity.ok(activityService.getMetricSummary(userId,metric,from,to));
+    }
+
+    //answers from pre-aggregated rollups, so cost grows with the number of buckets, not activities
+    @GetMapping("/stats")
+    public ResponseEntity<List<ActivityStatsResponse>> getUserStats(
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestParam(defaultValue = "WEEK") RollupPeriod period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) ActivityType type
+    )
+    {
+        return ResponseEntity.ok(activityService.getStats(userId,period,from,to,type));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportActivities(
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestParam(defaultValue = "false") boolean gzip
+    )
+    {
+        StreamingResponseBody body = out -> {
+            if(gzip)
+            {
+                try(GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192))
+                {
+                    activityService.exportActivities(userId,gzipOut);
+                }
+            }
+            else
+            {
+                activityService.exportActivities(userId,out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"activities.ndjson\"");
+        if(gzip)
+        {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 }
@@ -0,0 +1,85 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityImportResponse;
+import com.project.fitness.imports.ImportFormat;
+import com.project.fitness.model.ActivityImport;
+import com.project.fitness.service.ActivityImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/activities/imports")
+@RequiredArgsConstructor
+public class ActivityImportController {
+
+    private final ActivityImportService activityImportService;
+
+    //the body is the export file itself (text/csv or application/x-ndjson), read as a stream rather than a
+    //multipart form; 202 with the import to poll, or 429 when too many imports are waiting
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ActivityImportResponse> startImport(
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader String userId,
+            InputStream body
+    ) throws IOException
+    {
+        ImportFormat format = ImportFormat.of(MediaType.parseMediaType(contentType));
+        return activityImportService.submit(userId,format,body)
+                .map(ActivityImportController::accepted)
+                .orElseGet(ActivityImportController::busy);
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<ActivityImportResponse> getImport(
+            @PathVariable String importId,
+            @RequestHeader String userId
+    )
+    {
+        return activityImportService.find(importId,userId)
+                .map(activityImport -> ResponseEntity.ok(ActivityImportResponse.of(activityImport)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    //carries on from the last committed chunk of a failed import; 409 for any other status
+    @PostMapping("/{importId}/resume")
+    public ResponseEntity<ActivityImportResponse> resumeImport(
+            @PathVariable String importId,
+            @RequestHeader String userId
+    )
+    {
+        ActivityImport activityImport = activityImportService.find(importId,userId).orElse(null);
+        if(activityImport == null)
+        {
+            return ResponseEntity.notFound().build();
+        }
+        if(activityImport.getStatus() != ActivityImport.Status.FAILED)
+        {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ActivityImportResponse.of(activityImport));
+        }
+        return activityImportService.resume(activityImport)
+                .map(ActivityImportController::accepted)
+                .orElseGet(ActivityImportController::busy);
+    }
+
+    private static ResponseEntity<ActivityImportResponse> accepted(ActivityImport activityImport)
+    {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/activities/imports/" + activityImport.getId()))
+                .body(ActivityImportResponse.of(activityImport));
+    }
+
+    private static ResponseEntity<ActivityImportResponse> busy()
+    {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.RecommendationBatchResponse;
+import com.project.fitness.dto.RollupRebuildResponse;
+import com.project.fitness.service.ActivityRollupRebuilder;
+import com.project.fitness.service.RecommendationBatchJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final ActivityRollupRebuilder rollupRebuilder;
+    private final RecommendationBatchJob recommendationBatchJob;
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<RollupRebuildResponse> rebuildRollups()
+    {
+        return ResponseEntity.ok(rollupRebuilder.rebuild());
+    }
+
+    @PostMapping("/recommendations/batch")
+    public ResponseEntity<RecommendationBatchResponse> runRecommendationBatch()
+    {
+        return ResponseEntity.ok(recommendationBatchJob.run());
+    }
+}
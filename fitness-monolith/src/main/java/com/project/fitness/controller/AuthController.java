@@ -4,14 +4,14 @@ import com.project.fitness.dto.LoginRequest;
 import com.project.fitness.dto.LoginResponse;
 import com.project.fitness.dto.RegisteredRequest;
 import com.project.fitness.dto.UserResponse;
+import com.project.fitness.mapper.MappingMetrics;
+import com.project.fitness.mapper.UserMapper;
 import com.project.fitness.model.User;
 import com.project.fitness.repository.UserRepository;
 import com.project.fitness.security.JwtUtils;
 import com.project.fitness.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -30,8 +30,8 @@ public class AuthController {
 
     private final UserService userService;
     private final JwtUtils jwtUtils;
-    @Autowired
-    private ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final MappingMetrics mappingMetrics;
 
 
     @PostMapping("/register")
@@ -47,7 +47,7 @@ public class AuthController {
         try{
             User user = userService.authenticate(loginRequest);
             String token = jwtUtils.generateToken(user.getId(),user.getRole().name());
-            return ResponseEntity.ok(new LoginResponse(token,modelMapper.map(user,UserResponse.class)));
+            return ResponseEntity.ok(new LoginResponse(token,mappingMetrics.record("user", () -> userMapper.toResponse(user))));
 
         }catch (AuthenticationException e)
         {
@@ -0,0 +1,52 @@
+package com.project.fitness.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+//answers a GET from its ETag alone when the client already holds that version; the body is only
+//produced (and the repository only touched) on a mismatch
+final class ConditionalGet {
+
+    //per user, and clients must check back before reusing a stored copy
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    //sent weak: the same version goes out as JSON, CBOR or Smile, gzipped or not, and Tomcat never
+    //compresses a response that carries a strong tag
+    static <T> ResponseEntity<T> respond(String ifNoneMatch, String etag, Supplier<T> body)
+    {
+        String weak = "W/" + etag;
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(weak).cacheControl(REVALIDATE)
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(weak).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(body.get());
+    }
+
+    //If-None-Match uses the weak comparison, so a W/ prefix on the client's copy is ignored
+    static boolean matches(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
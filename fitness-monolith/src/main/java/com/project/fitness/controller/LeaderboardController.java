@@ -0,0 +1,31 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.LeaderboardResponse;
+import com.project.fitness.leaderboard.LeaderboardMetric;
+import com.project.fitness.leaderboard.Leaderboards;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/leaderboards")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final Leaderboards leaderboards;
+
+    //served from memory, no database work
+    @GetMapping("/{type}")
+    public ResponseEntity<LeaderboardResponse> getLeaderboard(
+            @RequestHeader(name = "USER_ID") String userId,
+            @PathVariable ActivityType type,
+            @RequestParam(defaultValue = "WEEK") RollupPeriod period,
+            @RequestParam(defaultValue = "CALORIES") LeaderboardMetric metric,
+            @RequestParam(defaultValue = "10") int limit
+    )
+    {
+        return ResponseEntity.ok(leaderboards.getLeaderboard(type,period,metric,limit,userId));
+    }
+}
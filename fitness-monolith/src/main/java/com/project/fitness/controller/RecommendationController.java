@@ -1,13 +1,20 @@
 package com.project.fitness.controller;
 
 
+import com.project.fitness.dto.RecommendationJobResponse;
 import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RecommendationResponse;
 import com.project.fitness.model.Recommendation;
+import com.project.fitness.service.DataVersions;
+import com.project.fitness.service.RecommendationJobService;
 import com.project.fitness.service.RecommendationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -16,6 +23,8 @@ import java.util.List;
 public class RecommendationController {
 
     private final RecommendationService recommendationService;
+    private final RecommendationJobService recommendationJobService;
+    private final DataVersions dataVersions;
 
     @PostMapping("/generate")
     public ResponseEntity<Recommendation> generateRecommendation(
@@ -27,20 +36,60 @@ public class RecommendationController {
         return ResponseEntity.ok(recommendation);
     }
 
-    @GetMapping("/user")
-    public ResponseEntity<List<Recommendation>> getUserRecommendation(
+    //POST /generate?async=true - queue the work and answer 202 with a job to poll, or 429 when the queue is full
+    @PostMapping(value = "/generate", params = "async=true")
+    public ResponseEntity<RecommendationJobResponse> generateRecommendationAsync(
+            @RequestBody RecommendationRequest request,
+            @RequestHeader String userId,
+            @RequestHeader String activityId
+    ){
+        return recommendationJobService.submit(request,userId,activityId)
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/recommendation/jobs/" + job.getId()))
+                        .body(RecommendationJobResponse.of(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+    }
+
+    //engine-generated from the last couple of weeks of activity instead of a client-supplied body
+    @PostMapping("/auto")
+    public ResponseEntity<Recommendation> generateAutoRecommendation(
+            @RequestHeader String userId
+    )
+    {
+        return ResponseEntity.ok(recommendationService.generateFromHistory(userId));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<RecommendationJobResponse> getJobStatus(
+            @PathVariable String jobId,
             @RequestHeader String userId
     )
     {
-        return ResponseEntity.ok(recommendationService.getUserRecommendation(userId));
+        return recommendationJobService.find(jobId,userId)
+                .map(job -> ResponseEntity.ok(RecommendationJobResponse.of(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/user")
+    public ResponseEntity<List<RecommendationResponse>> getUserRecommendation(
+            @RequestHeader String userId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    )
+    {
+        return ConditionalGet.respond(ifNoneMatch, dataVersions.userTag(userId),
+                () -> recommendationService.getUserRecommendation(userId));
     }
 
     @GetMapping("/activity")
-    public ResponseEntity<List<Recommendation>> getActivityRecommendation(
-            @RequestHeader String activityId
+    public ResponseEntity<List<RecommendationResponse>> getActivityRecommendation(
+            @RequestHeader String activityId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     )
     {
-        return ResponseEntity.ok(recommendationService.getActivityRecommendation(activityId));
+        return ConditionalGet.respond(ifNoneMatch, dataVersions.activityTag(activityId),
+                () -> recommendationService.getActivityRecommendation(activityId));
     }
 
 }
@@ -0,0 +1,27 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ChangesResponse;
+import com.project.fitness.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    //no cursor starts a full sync; keep calling with the returned cursor until hasMore is false,
+    //then store it for the next sync. 410 means the cursor outlived the tombstones and a full sync is needed
+    @GetMapping("/changes")
+    public ResponseEntity<ChangesResponse> getChanges(
+            @RequestHeader(name = "USER_ID") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit
+    )
+    {
+        return ResponseEntity.ok(syncService.getChanges(userId,cursor,limit));
+    }
+}
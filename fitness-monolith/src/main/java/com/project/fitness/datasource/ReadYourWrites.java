@@ -0,0 +1,77 @@
+package com.project.fitness.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+//users who wrote within the last app.datasource.replica.read-your-writes keep reading from the primary,
+//so an activity they just created cannot disappear behind replica lag. A no-op while the replica is off
+@Component
+public class ReadYourWrites {
+
+    //user whose window applies on threads without an authenticated request (e.g. recommendation workers)
+    private static final ThreadLocal<String> SCOPED_USER = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(@Value("${app.datasource.replica.enabled:false}") boolean enabled,
+                          @Value("${app.datasource.replica.read-your-writes:5s}") Duration window,
+                          @Value("${app.datasource.replica.read-your-writes-max-users:100000}") long maxUsers)
+    {
+        this.enabled = enabled;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    public void recordWrite(String userId)
+    {
+        if (enabled && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    //true when the user behind the current thread wrote within the window
+    public boolean mustReadPrimary()
+    {
+        String userId = currentUser();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    public <T> T forUser(String userId, Supplier<T> action)
+    {
+        String previous = SCOPED_USER.get();
+        SCOPED_USER.set(userId);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SCOPED_USER.remove();
+            } else {
+                SCOPED_USER.set(previous);
+            }
+        }
+    }
+
+    private static String currentUser()
+    {
+        String scoped = SCOPED_USER.get();
+        if (scoped != null) {
+            return scoped;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
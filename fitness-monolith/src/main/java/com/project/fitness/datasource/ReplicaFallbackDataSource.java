@@ -0,0 +1,74 @@
+package com.project.fitness.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+//read-only connections: the replica, unless the current user is inside their read-your-writes window or the
+//replica failed to hand out a connection within the last retry-after, in which case the primary serves the read
+@Slf4j
+public class ReplicaFallbackDataSource extends DelegatingDataSource {
+
+    private final DataSource primary;
+    private final ReadYourWrites readYourWrites;
+    private final long retryAfterNanos;
+
+    private volatile boolean replicaDown;
+    private volatile long retryAt;
+
+    private final Counter replicaReads;
+    private final Counter readYourWritesReads;
+    private final Counter fallbackReads;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, ReadYourWrites readYourWrites,
+                                     Duration retryAfter, MeterRegistry meterRegistry)
+    {
+        super(replica);
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.replicaReads = readCounter("replica", meterRegistry);
+        this.readYourWritesReads = readCounter("read-your-writes", meterRegistry);
+        this.fallbackReads = readCounter("replica-unavailable", meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        if (readYourWrites.mustReadPrimary()) {
+            readYourWritesReads.increment();
+            return primary.getConnection();
+        }
+        if (replicaDown && System.nanoTime() - retryAt < 0) {
+            fallbackReads.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = super.getConnection();
+            replicaDown = false;
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            retryAt = System.nanoTime() + retryAfterNanos;
+            replicaDown = true;
+            log.warn("Read replica unavailable, reading from the primary for the next {} ms: {}",
+                    retryAfterNanos / 1_000_000, e.getMessage());
+            fallbackReads.increment();
+            return primary.getConnection();
+        }
+    }
+
+    private static Counter readCounter(String route, MeterRegistry meterRegistry)
+    {
+        return Counter.builder("datasource.reads")
+                .description("Read-only connections by where they were served from")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
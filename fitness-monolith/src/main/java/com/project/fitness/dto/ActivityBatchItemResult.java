@@ -0,0 +1,31 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    private int index;
+    private Status status;
+    private ActivityResponse activity;
+    private String error;
+
+    public static ActivityBatchItemResult created(int index, ActivityResponse activity)
+    {
+        return new ActivityBatchItemResult(index, Status.CREATED, activity, null);
+    }
+
+    public static ActivityBatchItemResult rejected(int index, String error)
+    {
+        return new ActivityBatchItemResult(index, Status.REJECTED, null, error);
+    }
+}
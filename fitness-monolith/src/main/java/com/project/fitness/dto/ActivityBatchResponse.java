@@ -0,0 +1,17 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityBatchResponse {
+
+    private int created;
+    private int rejected;
+    private List<ActivityBatchItemResult> results;
+}
@@ -0,0 +1,40 @@
+package com.project.fitness.dto;
+
+import com.project.fitness.imports.ImportFormat;
+import com.project.fitness.model.ActivityImport;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityImportResponse {
+
+    private String importId;
+    private ActivityImport.Status status;
+    private ImportFormat format;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    //rows read per second of processing time
+    private double rowsPerSecond;
+    private List<String> errors;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public static ActivityImportResponse of(ActivityImport activityImport)
+    {
+        double rowsPerSecond = activityImport.getProcessingMillis() == 0 ? 0
+                : activityImport.getRowsRead() * 1000.0 / activityImport.getProcessingMillis();
+        return new ActivityImportResponse(activityImport.getId(), activityImport.getStatus(),
+                activityImport.getFormat(), activityImport.getRowsRead(), activityImport.getRowsImported(),
+                activityImport.getRowsFailed(), rowsPerSecond, activityImport.getErrors(), activityImport.getError(),
+                activityImport.getCreatedAt(), activityImport.getStartedAt(), activityImport.getFinishedAt());
+    }
+}
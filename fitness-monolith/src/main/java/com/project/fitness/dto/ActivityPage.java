@@ -0,0 +1,17 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityPage {
+
+    private List<ActivityResponse> items;
+    //null when there are no more pages
+    private String nextCursor;
+}
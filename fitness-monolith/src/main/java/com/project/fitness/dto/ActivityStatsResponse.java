@@ -0,0 +1,24 @@
+package com.project.fitness.dto;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityStatsResponse {
+
+    private RollupPeriod period;
+    private LocalDate bucketStart;
+    private ActivityType type;
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+    private int maxDuration;
+    private int maxCalories;
+}
@@ -0,0 +1,22 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesResponse {
+
+    //created or updated since the cursor; clients upsert by id
+    private List<ActivityResponse> activities;
+    private List<RecommendationResponse> recommendations;
+    private List<DeletedEntity> deleted;
+    //pass back on the next sync
+    private String cursor;
+    //more changes are waiting - call again straight away with the new cursor
+    private boolean hasMore;
+}
@@ -0,0 +1,18 @@
+package com.project.fitness.dto;
+
+import com.project.fitness.model.SyncEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeletedEntity {
+
+    private SyncEntity type;
+    private String id;
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,16 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    //ties share a rank
+    private long rank;
+    private String userId;
+    private long score;
+}
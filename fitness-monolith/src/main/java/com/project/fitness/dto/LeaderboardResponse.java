@@ -0,0 +1,25 @@
+package com.project.fitness.dto;
+
+import com.project.fitness.leaderboard.LeaderboardMetric;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardResponse {
+
+    private ActivityType type;
+    private RollupPeriod period;
+    private LocalDate bucketStart;
+    private LeaderboardMetric metric;
+    private List<LeaderboardEntry> top;
+    //the caller's own position, also when outside the top; null if they have no activity on this board
+    private LeaderboardEntry you;
+}
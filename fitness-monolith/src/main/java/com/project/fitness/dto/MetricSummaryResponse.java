@@ -0,0 +1,21 @@
+package com.project.fitness.dto;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSummaryResponse {
+
+    private PromotedMetric metric;
+    private ActivityType type;
+    //activities of this type that recorded the metric
+    private long count;
+    private double average;
+    private double min;
+    private double max;
+}
@@ -0,0 +1,16 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationBatchResponse {
+
+    private long users;
+    private long recommendations;
+    private long elapsedMillis;
+    private double usersPerSecond;
+}
@@ -0,0 +1,28 @@
+package com.project.fitness.dto;
+
+import com.project.fitness.service.RecommendationJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationJobResponse {
+
+    private String jobId;
+    private RecommendationJob.Status status;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String recommendationId;
+    private String error;
+
+    public static RecommendationJobResponse of(RecommendationJob job)
+    {
+        return new RecommendationJobResponse(job.getId(), job.getStatus(), job.getSubmittedAt(),
+                job.getStartedAt(), job.getFinishedAt(), job.getRecommendationId(), job.getError());
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.fitness.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationResponse {
+
+    private String id;
+    private String userId;
+    private String activityId;
+    private String type;
+    private String recommendation;
+    private List<String> improvements;
+    private List<String> suggestions;
+    private List<String> safety;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
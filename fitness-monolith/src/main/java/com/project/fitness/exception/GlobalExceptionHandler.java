@@ -1,7 +1,10 @@
 package com.project.fitness.exception;
 
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -21,4 +24,41 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.badRequest().body(errors);
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String,String>> handleIllegalArgument(IllegalArgumentException e)
+    {
+        return ResponseEntity.badRequest().body(Map.of("error",e.getMessage()));
+    }
+
+    //the pool had no free connection within connection-timeout - shed the request rather than queue further
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<Map<String,String>> handleNoConnection(CannotCreateTransactionException e)
+    {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error","Service busy, retry shortly"));
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String,String>> handleHashingRejected(PasswordHashingRejectedException e)
+    {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error",e.getMessage()));
+    }
+
+    @ExceptionHandler(PasswordHashingTimeoutException.class)
+    public ResponseEntity<Map<String,String>> handleHashingTimeout(PasswordHashingTimeoutException e)
+    {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error",e.getMessage()));
+    }
+
+    @ExceptionHandler(SyncCursorExpiredException.class)
+    public ResponseEntity<Map<String,String>> handleSyncCursorExpired(SyncCursorExpiredException e)
+    {
+        return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error",e.getMessage()));
+    }
 }
@@ -0,0 +1,9 @@
+package com.project.fitness.exception;
+
+//the password hashing queue is full; mapped to 429 so clients back off instead of piling on
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.project.fitness.exception;
+
+//a hashing task waited longer than app.security.hashing.max-queue-wait; mapped to 503
+public class PasswordHashingTimeoutException extends RuntimeException {
+
+    public PasswordHashingTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.project.fitness.exception;
+
+//the cursor is older than the tombstone retention, so deletes may have been pruned; mapped to 410 and the
+//client starts over with a full sync
+public class SyncCursorExpiredException extends RuntimeException {
+
+    public SyncCursorExpiredException(String message) {
+        super(message);
+    }
+}
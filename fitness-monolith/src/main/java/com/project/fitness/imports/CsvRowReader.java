@@ -0,0 +1,124 @@
+package com.project.fitness.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//RFC 4180 records read straight off the stream: quoted fields may hold commas, doubled quotes and line
+//breaks. The first record is the header; empty cells are left out of the row
+public class CsvRowReader implements ImportRowReader {
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final List<String> header;
+    private int pushedBack = NONE;
+
+    public CsvRowReader(Reader reader) throws IOException
+    {
+        this.reader = reader;
+        List<String> names = readRecord();
+        this.header = new ArrayList<>();
+        if (names != null) {
+            for (String name : names) {
+                header.add(header.isEmpty() ? stripBom(name).trim() : name.trim());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> next() throws IOException
+    {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.getFirst().isBlank());
+
+        if (fields.size() > header.size()) {
+            throw new IllegalArgumentException("expected at most " + header.size() + " columns, found " + fields.size());
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).trim();
+            if (!value.isEmpty()) {
+                row.put(header.get(i), value);
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+
+    //null once the input is exhausted
+    private List<String> readRecord() throws IOException
+    {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = 0;
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = read()) != -1) {
+            any = true;
+            if (++length > MAX_ROW_CHARS) {
+                throw new IOException("CSV record longer than " + MAX_ROW_CHARS + " characters");
+            }
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                } else if ((c = read()) == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    pushedBack = c;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && (c = read()) != '\n') {
+                    pushedBack = c;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException
+    {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+
+    static String stripBom(String value)
+    {
+        return !value.isEmpty() && value.charAt(0) == '\uFEFF' ? value.substring(1) : value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.project.fitness.imports;
+
+import org.springframework.http.MediaType;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+
+public enum ImportFormat {
+
+    CSV("text/csv", "csv"),
+    JSONL("application/x-ndjson", "jsonl");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ImportFormat(String mediaType, String extension)
+    {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public String mediaType()
+    {
+        return mediaType.toString();
+    }
+
+    public String extension()
+    {
+        return extension;
+    }
+
+    public ImportRowReader open(Reader reader, ObjectMapper objectMapper) throws IOException
+    {
+        return switch (this) {
+            case CSV -> new CsvRowReader(reader);
+            case JSONL -> new JsonLinesRowReader(reader, objectMapper);
+        };
+    }
+
+    public static ImportFormat of(MediaType contentType)
+    {
+        for (ImportFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format " + contentType);
+    }
+}
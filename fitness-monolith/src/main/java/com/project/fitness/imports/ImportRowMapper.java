@@ -0,0 +1,198 @@
+package com.project.fitness.imports;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+//turns a row of another app's export into an ActivityRequest. Column names are matched ignoring case and
+//punctuation ("Start Time", "start_time", "startTime"); columns that are not one of ours go into
+//additionalMetrics. Unrecognised activity types become OTHER with the source name kept as sourceType
+public final class ImportRowMapper {
+
+    private static final Map<String, String> FIELDS = new HashMap<>();
+    private static final Map<String, ActivityType> TYPE_ALIASES = new HashMap<>();
+    private static final Map<String, String> METRIC_KEYS = new HashMap<>();
+
+    static {
+        field("type", "type", "activitytype", "sport", "workouttype");
+        field("startTime", "starttime", "start", "startdate", "date");
+        field("duration", "duration", "durationminutes");
+        field("durationSeconds", "durationseconds", "elapsedtime");
+        field("caloriesBurned", "caloriesburned", "calories", "activecalories");
+        field("additionalMetrics", "additionalmetrics");
+        //our own export's bookkeeping, the import gets new ones
+        field("ignored", "id", "userid", "createdat", "updatedat");
+
+        alias(ActivityType.RUNNING, "RUN", "OUTDOOR_RUN", "TRAIL_RUN", "ROAD_RUN");
+        alias(ActivityType.TREADMILL_RUNNING, "TREADMILL", "INDOOR_RUN", "VIRTUAL_RUN");
+        alias(ActivityType.WALKING, "WALK", "OUTDOOR_WALK", "INDOOR_WALK");
+        alias(ActivityType.HIKING, "HIKE");
+        alias(ActivityType.CYCLING, "RIDE", "BIKE", "BIKING", "OUTDOOR_CYCLE", "ROAD_BIKING", "MOUNTAIN_BIKING",
+                "GRAVEL_RIDE", "E_BIKE_RIDE");
+        alias(ActivityType.STATIONARY_CYCLING, "VIRTUAL_RIDE", "INDOOR_CYCLE", "INDOOR_CYCLING", "SPINNING");
+        alias(ActivityType.SWIMMING, "SWIM", "POOL_SWIM", "POOL_SWIMMING", "OPEN_WATER_SWIM", "OPEN_WATER_SWIMMING");
+        alias(ActivityType.ROWING, "ROW", "INDOOR_ROW", "INDOOR_ROWING");
+        alias(ActivityType.STAIR_CLIMBING, "STAIRS", "STAIR_STEPPER", "STAIRSTEPPER");
+        alias(ActivityType.WEIGHT_TRAINING, "WEIGHTS", "WEIGHT_LIFTING", "STRENGTH", "STRENGTH_TRAINING",
+                "TRADITIONAL_STRENGTH_TRAINING");
+        alias(ActivityType.FUNCTIONAL_TRAINING, "FUNCTIONAL_STRENGTH_TRAINING");
+        alias(ActivityType.HIIT, "HIGH_INTENSITY_INTERVAL_TRAINING");
+        alias(ActivityType.CLIMBING, "ROCK_CLIMBING", "BOULDERING");
+        alias(ActivityType.SKIPPING_ROPE, "JUMP_ROPE");
+        alias(ActivityType.SKIING, "ALPINE_SKI", "NORDIC_SKI", "BACKCOUNTRY_SKI", "CROSS_COUNTRY_SKIING",
+                "DOWNHILL_SKIING");
+        alias(ActivityType.SKATING, "ICE_SKATE", "INLINE_SKATE", "ROLLER_SKATE");
+        alias(ActivityType.FOOTBALL, "SOCCER");
+        alias(ActivityType.CARDIO_GENERAL, "WORKOUT", "CARDIO", "MIXED_CARDIO");
+
+        for (PromotedMetric metric : PromotedMetric.values()) {
+            METRIC_KEYS.put(normalize(metric.key()), metric.key());
+        }
+        METRIC_KEYS.put("distancekm", PromotedMetric.DISTANCE.key());
+        METRIC_KEYS.put("averageheartrate", PromotedMetric.HEART_RATE.key());
+        METRIC_KEYS.put("avgheartrate", PromotedMetric.HEART_RATE.key());
+    }
+
+    private ImportRowMapper() {
+    }
+
+    public static ActivityRequest toRequest(Map<String, Object> row)
+    {
+        ActivityRequest request = new ActivityRequest();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        row.forEach((column, value) -> {
+            if (value == null) {
+                return;
+            }
+            String name = normalize(column);
+            switch (FIELDS.getOrDefault(name, "")) {
+                case "type" -> {
+                    ActivityType type = type(value.toString());
+                    if (type == null) {
+                        metrics.put("sourceType", value.toString());
+                        type = ActivityType.OTHER;
+                    }
+                    request.setType(type);
+                }
+                case "startTime" -> request.setStartTime(startTime(value.toString()));
+                case "duration" -> request.setDuration(minutes(column, value));
+                case "durationSeconds" -> request.setDuration((int) Math.round(number(column, value) / 60));
+                case "caloriesBurned" -> request.setCaloriesBurned((int) Math.round(number(column, value)));
+                case "additionalMetrics" -> {
+                    if (!(value instanceof Map<?, ?> nested)) {
+                        throw new IllegalArgumentException("additionalMetrics must be an object");
+                    }
+                    nested.forEach((key, metric) -> metrics.putIfAbsent(key.toString(), metric));
+                }
+                case "ignored" -> {
+                }
+                default -> metrics.put(METRIC_KEYS.getOrDefault(name, column), metricValue(value));
+            }
+        });
+        request.setAdditionalMetrics(metrics.isEmpty() ? null : metrics);
+        return request;
+    }
+
+    //the enum name in any case or spacing ("Treadmill Running"), or a common name from another app ("Ride")
+    static ActivityType type(String source)
+    {
+        String name = source.trim().toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]+", "_").replaceAll("^_|_$", "");
+        try {
+            return ActivityType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return TYPE_ALIASES.get(name);
+        }
+    }
+
+    //ISO local date-times are taken as they are; a zone or offset is converted to the server's zone
+    private static LocalDateTime startTime(String value)
+    {
+        String text = value.length() > 10 && value.charAt(10) == ' '
+                ? value.substring(0, 10) + 'T' + value.substring(11)
+                : value;
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay();
+            }
+            if (text.endsWith("Z") || text.lastIndexOf('+') > 10 || text.lastIndexOf('-') > 10) {
+                return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("unreadable start time '" + value + "'");
+        }
+    }
+
+    //minutes as a number, or a clock duration (h:mm:ss or mm:ss)
+    private static int minutes(String column, Object value)
+    {
+        String text = value.toString();
+        if (!(value instanceof Number) && text.contains(":")) {
+            double seconds = 0;
+            for (String part : text.split(":")) {
+                seconds = seconds * 60 + number(column, part);
+            }
+            return (int) Math.round(seconds / 60);
+        }
+        return (int) Math.round(number(column, value));
+    }
+
+    private static double number(String column, Object value)
+    {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: '" + value + "'");
+        }
+    }
+
+    //CSV cells arrive as text; numeric ones are stored as numbers so promoted metrics pick them up
+    private static Object metricValue(Object value)
+    {
+        if (!(value instanceof String text)) {
+            return value;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            try {
+                double number = Double.parseDouble(text);
+                return Double.isFinite(number) ? number : text;
+            } catch (NumberFormatException notNumeric) {
+                return text;
+            }
+        }
+    }
+
+    private static String normalize(String column)
+    {
+        return column.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static void field(String field, String... names)
+    {
+        for (String name : names) {
+            FIELDS.put(name, field);
+        }
+    }
+
+    private static void alias(ActivityType type, String... names)
+    {
+        for (String name : names) {
+            TYPE_ALIASES.put(name, type);
+        }
+    }
+}
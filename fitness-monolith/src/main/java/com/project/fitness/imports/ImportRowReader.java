@@ -0,0 +1,16 @@
+package com.project.fitness.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+//one row of an export file at a time, keyed by column/field name. An IllegalArgumentException means the row
+//was consumed but is unusable; an IOException means the rest of the file cannot be read
+public interface ImportRowReader extends Closeable {
+
+    //longest row either format buffers before giving up on the file
+    int MAX_ROW_CHARS = 1 << 20;
+
+    //null at the end of the input
+    Map<String, Object> next() throws IOException;
+}
@@ -0,0 +1,76 @@
+package com.project.fitness.imports;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+//one JSON object per line (NDJSON, as written by /api/activities/export); blank lines are skipped and a
+//malformed line only costs that row
+public class JsonLinesRowReader implements ImportRowReader {
+
+    private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {
+    };
+
+    private final Reader reader;
+    private final ObjectMapper objectMapper;
+    private boolean first = true;
+
+    public JsonLinesRowReader(Reader reader, ObjectMapper objectMapper)
+    {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Map<String, Object> next() throws IOException
+    {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            return objectMapper.readValue(line, ROW);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("not a JSON object: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+
+    private String readLine() throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (c == '\n') {
+                break;
+            }
+            if (line.length() == MAX_ROW_CHARS) {
+                throw new IOException("JSON line longer than " + MAX_ROW_CHARS + " characters");
+            }
+            line.append((char) c);
+        }
+        if (!any) {
+            return null;
+        }
+        if (first) {
+            first = false;
+            return CsvRowReader.stripBom(line.toString());
+        }
+        return line.toString();
+    }
+}
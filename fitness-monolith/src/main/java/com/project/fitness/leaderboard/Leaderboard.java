@@ -0,0 +1,157 @@
+package com.project.fitness.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+//scores for one activity type in one WEEK/MONTH bucket. Writers merge into the score map; refresh() turns
+//the scores into an immutable ranking (top K entries plus every score, sorted) and publishes it through a
+//volatile field, so reads never lock and never see a half-built ranking.
+final class Leaderboard {
+
+    private final Map<String, Score> scores = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    //indexed by LeaderboardMetric ordinal
+    private volatile Ranking[] rankings = empty();
+
+    //a score back at zero, e.g. once its activities are deleted, leaves the board
+    void add(String userId, long duration, long calories)
+    {
+        Score delta = new Score(duration, calories);
+        scores.compute(userId, (id, score) -> {
+            Score updated = score == null ? delta : score.plus(delta);
+            return updated.isZero() ? null : updated;
+        });
+        dirty.set(true);
+    }
+
+    int size()
+    {
+        return scores.size();
+    }
+
+    void forEach(BiConsumer<String, Score> action)
+    {
+        scores.forEach(action);
+    }
+
+    //rebuilds the rankings if any score moved since the last refresh
+    void refresh(int topK)
+    {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        List<Map.Entry<String, Score>> entries = new ArrayList<>(scores.entrySet());
+        Ranking[] updated = new Ranking[LeaderboardMetric.values().length];
+        for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+            updated[metric.ordinal()] = Ranking.of(entries, metric, topK);
+        }
+        rankings = updated;
+    }
+
+    List<Ranked> top(LeaderboardMetric metric, int limit)
+    {
+        List<Ranked> top = rankings[metric.ordinal()].top;
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    //the user's current score ranked against the last refresh, so it also works far outside the top K;
+    //null when the user has no activity on this board
+    Ranked rank(LeaderboardMetric metric, String userId)
+    {
+        Score score = scores.get(userId);
+        if (score == null) {
+            return null;
+        }
+        long value = score.value(metric);
+        return new Ranked(userId, value, rankings[metric.ordinal()].rankOf(value));
+    }
+
+    private static Ranking[] empty()
+    {
+        Ranking[] empty = new Ranking[LeaderboardMetric.values().length];
+        Arrays.fill(empty, new Ranking(List.of(), new long[0]));
+        return empty;
+    }
+
+    record Score(long duration, long calories) {
+
+        Score plus(Score other)
+        {
+            return new Score(duration + other.duration, calories + other.calories);
+        }
+
+        boolean isZero()
+        {
+            return duration == 0 && calories == 0;
+        }
+
+        long value(LeaderboardMetric metric)
+        {
+            return switch (metric) {
+                case CALORIES -> calories;
+                case DURATION -> duration;
+            };
+        }
+    }
+
+    //rank is 1 + the number of strictly higher scores, so ties share a rank
+    record Ranked(String userId, long score, long rank) {
+    }
+
+    private record Ranking(List<Ranked> top, long[] ascending) {
+
+        private static final Comparator<Map.Entry<String, Long>> HIGHEST_FIRST = Comparator
+                .comparing((Map.Entry<String, Long> entry) -> entry.getValue())
+                .reversed()
+                .thenComparing(Map.Entry::getKey);
+
+        static Ranking of(List<Map.Entry<String, Score>> entries, LeaderboardMetric metric, int topK)
+        {
+            long[] ascending = new long[entries.size()];
+            //min-heap of the best K seen so far: O(n log K) instead of sorting every user
+            PriorityQueue<Map.Entry<String, Long>> best = new PriorityQueue<>(topK + 1, HIGHEST_FIRST.reversed());
+            for (int i = 0; i < entries.size(); i++) {
+                Map.Entry<String, Score> entry = entries.get(i);
+                long value = entry.getValue().value(metric);
+                ascending[i] = value;
+                best.add(Map.entry(entry.getKey(), value));
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+            Arrays.sort(ascending);
+
+            List<Map.Entry<String, Long>> sorted = new ArrayList<>(best);
+            sorted.sort(HIGHEST_FIRST);
+            Ranking ranking = new Ranking(new ArrayList<>(sorted.size()), ascending);
+            for (Map.Entry<String, Long> entry : sorted) {
+                ranking.top.add(new Ranked(entry.getKey(), entry.getValue(), ranking.rankOf(entry.getValue())));
+            }
+            return new Ranking(List.copyOf(ranking.top), ascending);
+        }
+
+        long rankOf(long score)
+        {
+            //first index holding a value greater than score
+            int low = 0;
+            int high = ascending.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ascending[mid] <= score) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return 1 + ascending.length - low;
+        }
+    }
+}
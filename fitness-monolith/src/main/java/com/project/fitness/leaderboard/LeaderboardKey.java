@@ -0,0 +1,10 @@
+package com.project.fitness.leaderboard;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+
+import java.time.LocalDate;
+
+//one board per activity type and WEEK/MONTH bucket
+record LeaderboardKey(RollupPeriod period, LocalDate bucketStart, ActivityType type) {
+}
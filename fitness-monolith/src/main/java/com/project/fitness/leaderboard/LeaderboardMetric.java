@@ -0,0 +1,7 @@
+package com.project.fitness.leaderboard;
+
+public enum LeaderboardMetric {
+
+    CALORIES,
+    DURATION
+}
@@ -0,0 +1,99 @@
+package com.project.fitness.leaderboard;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+//leaderboard scores on disk: long magic, int version, int boards, then per board
+//(UTF period, long bucketStart epoch day, UTF type, int users, users x (UTF userId, long duration, long calories)).
+//Written to a temp file and moved over the previous snapshot, so a crash never leaves a torn file.
+final class LeaderboardSnapshot {
+
+    private static final long MAGIC = 0x4649544C45414431L; // "FITLEAD1"
+    private static final int VERSION = 1;
+
+    private LeaderboardSnapshot() {
+    }
+
+    static void write(Path file, Map<LeaderboardKey, Leaderboard> boards) throws IOException
+    {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                out.writeLong(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(boards.size());
+                for (Map.Entry<LeaderboardKey, Leaderboard> board : boards.entrySet()) {
+                    LeaderboardKey key = board.getKey();
+                    out.writeUTF(key.period().name());
+                    out.writeLong(key.bucketStart().toEpochDay());
+                    out.writeUTF(key.type().name());
+                    //users added while writing are picked up by the next snapshot, so write the count as seen
+                    Map<String, Leaderboard.Score> scores = new HashMap<>(board.getValue().size());
+                    board.getValue().forEach(scores::put);
+                    out.writeInt(scores.size());
+                    for (Map.Entry<String, Leaderboard.Score> score : scores.entrySet()) {
+                        out.writeUTF(score.getKey());
+                        out.writeLong(score.getValue().duration());
+                        out.writeLong(score.getValue().calories());
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    //boards from a missing or unreadable snapshot are simply absent; the rebuild from rollups fills them
+    static Map<LeaderboardKey, Leaderboard> read(Path file) throws IOException
+    {
+        Map<LeaderboardKey, Leaderboard> boards = new HashMap<>();
+        if (!Files.exists(file)) {
+            return boards;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " leaderboard snapshot: " + file);
+            }
+            int boardCount = in.readInt();
+            for (int i = 0; i < boardCount; i++) {
+                RollupPeriod period = RollupPeriod.valueOf(in.readUTF());
+                LocalDate bucketStart = LocalDate.ofEpochDay(in.readLong());
+                String type = in.readUTF();
+                Leaderboard board = new Leaderboard();
+                int users = in.readInt();
+                for (int u = 0; u < users; u++) {
+                    board.add(in.readUTF(), in.readLong(), in.readLong());
+                }
+                activityType(type).ifPresent(activityType -> boards.put(new LeaderboardKey(period, bucketStart, activityType), board));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt leaderboard snapshot: " + file, e);
+        }
+        return boards;
+    }
+
+    private static Optional<ActivityType> activityType(String name)
+    {
+        try {
+            return Optional.of(ActivityType.valueOf(name));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.project.fitness.leaderboard;
+
+import com.project.fitness.dto.LeaderboardEntry;
+import com.project.fitness.dto.LeaderboardResponse;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.repository.ActivityRollupRepository;
+import com.project.fitness.repository.BucketTotals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+//in-memory top-K calorie and duration leaderboards per activity type for the current week and month.
+//Every activity write adds to its boards once the transaction commits; rankings are re-sorted every
+//app.leaderboards.refresh-millis and read without locks. Scores are snapshotted to disk so a restart serves
+//boards straight away, then rebuilt from the WEEK/MONTH rollups, which are the source of truth.
+//A commit holds the read lock from just before it commits until its deltas are applied, and the rebuild takes
+//the write lock to start its rollup queries and again to swap in its boards. A delta committed in between is
+//in neither the rollups the rebuild read nor its boards, so it is buffered and replayed onto them at the swap.
+//The rebuild only ever tries the lock, so a commit waiting for a row lock held by another commit never waits
+//behind it.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class Leaderboards {
+
+    private static final List<RollupPeriod> PERIODS = List.of(RollupPeriod.WEEK, RollupPeriod.MONTH);
+
+    private final ActivityRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    //replaced wholesale by a rebuild
+    private volatile Map<LeaderboardKey, Leaderboard> boards = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    private final ReentrantReadWriteLock commits = new ReentrantReadWriteLock();
+    //deltas committed since the running rebuild started its queries; null when no rebuild runs
+    private volatile Queue<Committed> replay;
+
+    @Value("${app.leaderboards.top-k:100}")
+    private int topK;
+
+    @Value("${app.leaderboards.snapshot-file:data/leaderboards.snapshot}")
+    private Path snapshotFile;
+
+    //runs inside the activity write; the scores only move once it commits
+    public void record(String userId, Collection<Activity> activities)
+    {
+        apply(userId, activities, 1);
+    }
+
+    //deleted activities come back off their boards
+    public void retract(String userId, Collection<Activity> activities)
+    {
+        apply(userId, activities, -1);
+    }
+
+    private void apply(String userId, Collection<Activity> activities, int sign)
+    {
+        LocalDate today = LocalDate.now();
+        Map<LeaderboardKey, long[]> deltas = new HashMap<>();
+        for (Activity activity : activities) {
+            if (activity.getStartTime() == null || activity.getType() == null) {
+                continue;
+            }
+            for (RollupPeriod period : PERIODS) {
+                LocalDate bucketStart = period.bucketStart(activity.getStartTime().toLocalDate());
+                //backfilled activities from earlier buckets never reach a board
+                if (!bucketStart.equals(period.bucketStart(today))) {
+                    continue;
+                }
+                long[] delta = deltas.computeIfAbsent(new LeaderboardKey(period, bucketStart, activity.getType()), key -> new long[2]);
+                delta[0] += sign * (activity.getDuration() == null ? 0 : activity.getDuration());
+                delta[1] += sign * (activity.getCaloriesBurned() == null ? 0 : activity.getCaloriesBurned());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Committed committed = new Committed(userId, deltas);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                private boolean locked;
+
+                @Override
+                public void beforeCommit(boolean readOnly)
+                {
+                    commits.readLock().lock();
+                    locked = true;
+                }
+
+                @Override
+                public void afterCommit()
+                {
+                    publish(committed);
+                }
+
+                @Override
+                public void afterCompletion(int status)
+                {
+                    if (locked) {
+                        commits.readLock().unlock();
+                    }
+                }
+            });
+        } else {
+            commits.readLock().lock();
+            try {
+                publish(committed);
+            } finally {
+                commits.readLock().unlock();
+            }
+        }
+    }
+
+    //called under the read lock
+    private void publish(Committed committed)
+    {
+        committed.addTo(boards);
+        Queue<Committed> pending = replay;
+        if (pending != null) {
+            pending.add(committed);
+        }
+    }
+
+    public LeaderboardResponse getLeaderboard(ActivityType type, RollupPeriod period, LeaderboardMetric metric,
+                                              int limit, String userId)
+    {
+        if (!PERIODS.contains(period)) {
+            throw new IllegalArgumentException("Leaderboards cover WEEK and MONTH only");
+        }
+        LocalDate bucketStart = period.bucketStart(LocalDate.now());
+        Leaderboard board = boards.get(new LeaderboardKey(period, bucketStart, type));
+        List<LeaderboardEntry> top = board == null ? List.of() : board.top(metric, Math.clamp(limit, 1, topK)).stream()
+                .map(Leaderboards::toEntry)
+                .toList();
+        Leaderboard.Ranked you = board == null || userId == null ? null : board.rank(metric, userId);
+        return new LeaderboardResponse(type, period, bucketStart, metric, top, you == null ? null : toEntry(you));
+    }
+
+    //re-sorts boards that changed and drops boards whose week or month is over
+    @Scheduled(fixedDelayString = "${app.leaderboards.refresh-millis:1000}")
+    public void refresh()
+    {
+        LocalDate today = LocalDate.now();
+        Map<LeaderboardKey, Leaderboard> current = boards;
+        current.keySet().removeIf(key -> key.bucketStart().isBefore(key.period().bucketStart(today)));
+        current.values().forEach(board -> board.refresh(topK));
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboards.snapshot-millis:60000}",
+            initialDelayString = "${app.leaderboards.snapshot-millis:60000}")
+    public void snapshot()
+    {
+        if (!started) {
+            return;
+        }
+        try {
+            LeaderboardSnapshot.write(snapshotFile, boards);
+        } catch (IOException e) {
+            log.warn("Could not write leaderboard snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start()
+    {
+        try {
+            Map<LeaderboardKey, Leaderboard> loaded = LeaderboardSnapshot.read(snapshotFile);
+            boards.forEach((key, board) -> loaded.putIfAbsent(key, board));
+            boards = new ConcurrentHashMap<>(loaded);
+            refresh();
+            log.info("Loaded {} leaderboard(s) from {}", loaded.size(), snapshotFile);
+        } catch (IOException e) {
+            log.warn("Ignoring leaderboard snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            //the snapshot keeps serving; the next restart tries again
+            log.error("Leaderboard rebuild from rollups failed", e);
+        }
+        started = true;
+    }
+
+    //one at a time: each run owns the replay buffer
+    public synchronized void rebuild()
+    {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        Map<LeaderboardKey, Leaderboard> rebuilt = new ConcurrentHashMap<>();
+        Queue<Committed> pending = new ConcurrentLinkedQueue<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Stream<BucketTotals>> streams = new ArrayList<>();
+                try {
+                    //the queries run as they are opened, so their snapshot is taken with no commit half applied
+                    lockCommits();
+                    try {
+                        replay = pending;
+                        for (RollupPeriod period : PERIODS) {
+                            streams.add(rollupRepository.streamBucketTotals(period, period.bucketStart(today)));
+                        }
+                    } finally {
+                        commits.writeLock().unlock();
+                    }
+                    for (int i = 0; i < PERIODS.size(); i++) {
+                        RollupPeriod period = PERIODS.get(i);
+                        LocalDate bucketStart = period.bucketStart(today);
+                        streams.get(i).forEach(total -> rebuilt
+                                .computeIfAbsent(new LeaderboardKey(period, bucketStart, total.type()), key -> new Leaderboard())
+                                .add(total.userId(), total.totalDuration(), total.totalCalories()));
+                    }
+                } finally {
+                    streams.forEach(Stream::close);
+                }
+            });
+            rebuilt.values().forEach(board -> board.refresh(topK));
+            lockCommits();
+            try {
+                //re-sorted by the next refresh
+                pending.forEach(committed -> committed.addTo(rebuilt));
+                boards = rebuilt;
+            } finally {
+                commits.writeLock().unlock();
+            }
+        } finally {
+            replay = null;
+        }
+        log.info("Rebuilt {} leaderboard(s) from rollups in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //never queues for the lock: a queued writer would block new readers, including a commit holding a row lock
+    //that a commit already holding the read lock is waiting for
+    private void lockCommits()
+    {
+        while (!commits.writeLock().tryLock()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    //one committed write's score changes
+    private record Committed(String userId, Map<LeaderboardKey, long[]> deltas) {
+
+        void addTo(Map<LeaderboardKey, Leaderboard> boards)
+        {
+            deltas.forEach((key, delta) -> boards.computeIfAbsent(key, k -> new Leaderboard()).add(userId, delta[0], delta[1]));
+        }
+    }
+
+    private static LeaderboardEntry toEntry(Leaderboard.Ranked ranked)
+    {
+        return new LeaderboardEntry(ranked.rank(), ranked.userId(), ranked.score());
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.fitness.mapper;
+
+import com.project.fitness.archive.ArchivedActivity;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.ActivitySummary;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ActivityMapper {
+
+    public Activity toEntity(ActivityRequest activityRequest)
+    {
+        Activity activity = new Activity();
+        activity.setType(activityRequest.getType());
+        activity.setAdditionalMetrics(activityRequest.getAdditionalMetrics());
+        activity.setDuration(activityRequest.getDuration());
+        activity.setCaloriesBurned(activityRequest.getCaloriesBurned());
+        activity.setStartTime(activityRequest.getStartTime());
+        return activity;
+    }
+
+    public ActivityResponse toResponse(Activity activity)
+    {
+        //getId() on a lazy user proxy does not initialise it
+        User user = activity.getUser();
+        return new ActivityResponse(
+                activity.getId(),
+                user == null ? null : user.getId(),
+                activity.getType(),
+                activity.getAdditionalMetrics(),
+                activity.getDuration(),
+                activity.getCaloriesBurned(),
+                activity.getStartTime(),
+                activity.getCreatedAt(),
+                activity.getUpdatedAt());
+    }
+
+    public ActivityResponse toResponse(ActivitySummary activity)
+    {
+        return new ActivityResponse(
+                activity.id(),
+                activity.userId(),
+                activity.type(),
+                null,
+                activity.duration(),
+                activity.caloriesBurned(),
+                activity.startTime(),
+                activity.createdAt(),
+                activity.updatedAt());
+    }
+
+    public ActivityResponse toResponse(ArchivedActivity activity)
+    {
+        return new ActivityResponse(
+                activity.id(),
+                activity.userId(),
+                activity.type(),
+                activity.additionalMetrics(),
+                activity.duration(),
+                activity.caloriesBurned(),
+                activity.startTime(),
+                activity.createdAt(),
+                activity.updatedAt());
+    }
+
+    public ArchivedActivity toArchived(Activity activity)
+    {
+        User user = activity.getUser();
+        return new ArchivedActivity(
+                activity.getId(),
+                user == null ? null : user.getId(),
+                activity.getType(),
+                activity.getStartTime(),
+                activity.getDuration(),
+                activity.getCaloriesBurned(),
+                activity.getCreatedAt(),
+                activity.getUpdatedAt(),
+                activity.getAdditionalMetrics());
+    }
+}
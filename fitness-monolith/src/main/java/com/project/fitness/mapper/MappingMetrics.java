@@ -0,0 +1,29 @@
+package com.project.fitness.mapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//dto.mapping timer, tagged by what was mapped. Wrap whole lists rather than single rows - the mappers
+//themselves stay plain so a per-row timer never costs more than the mapping it measures.
+@Component
+@RequiredArgsConstructor
+public class MappingMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public <T> T record(String mapping, Supplier<T> mapper)
+    {
+        return timers.computeIfAbsent(mapping, name -> Timer.builder("dto.mapping")
+                        .description("Time spent mapping between entities and DTOs")
+                        .tag("mapping", name)
+                        .register(meterRegistry))
+                .record(mapper);
+    }
+}
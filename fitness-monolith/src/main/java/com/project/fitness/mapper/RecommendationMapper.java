@@ -0,0 +1,39 @@
+package com.project.fitness.mapper;
+
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RecommendationResponse;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.Recommendation;
+import com.project.fitness.model.User;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RecommendationMapper {
+
+    public Recommendation toEntity(RecommendationRequest request)
+    {
+        Recommendation recommendation = new Recommendation();
+        recommendation.setImprovements(request.getImprovements());
+        recommendation.setSuggestions(request.getSuggestions());
+        recommendation.setSafety(request.getSafety());
+        return recommendation;
+    }
+
+    public RecommendationResponse toResponse(Recommendation recommendation)
+    {
+        //getId() on lazy proxies does not initialise them
+        User user = recommendation.getUser();
+        Activity activity = recommendation.getActivity();
+        return new RecommendationResponse(
+                recommendation.getId(),
+                user == null ? null : user.getId(),
+                activity == null ? null : activity.getId(),
+                recommendation.getType(),
+                recommendation.getRecommendation(),
+                recommendation.getImprovements(),
+                recommendation.getSuggestions(),
+                recommendation.getSafety(),
+                recommendation.getCreatedAt(),
+                recommendation.getUpdatedAt());
+    }
+}
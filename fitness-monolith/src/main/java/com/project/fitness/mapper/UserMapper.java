@@ -0,0 +1,25 @@
+package com.project.fitness.mapper;
+
+import com.project.fitness.dto.RegisteredRequest;
+import com.project.fitness.dto.UserResponse;
+import com.project.fitness.model.User;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserMapper {
+
+    public User toEntity(RegisteredRequest registeredRequest)
+    {
+        User user = new User();
+        user.setEmail(registeredRequest.getEmail());
+        user.setPassword(registeredRequest.getPassword());
+        user.setFirstName(registeredRequest.getFirstName());
+        user.setLastName(registeredRequest.getLastName());
+        return user;
+    }
+
+    public UserResponse toResponse(User user)
+    {
+        return new UserResponse(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName());
+    }
+}
@@ -0,0 +1,94 @@
+package com.project.fitness.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+//counts statements, JDBC execute time and connection-acquire time into JdbcStats for the calling thread.
+//Connections and statements are wrapped in JDK proxies; only execute* calls and getConnection are timed.
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    public InstrumentedDataSource(DataSource targetDataSource)
+    {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException
+    {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        JdbcStats.current().recordConnection(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException
+    {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        JdbcStats.current().recordConnection(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    private static Connection wrap(Connection connection)
+    {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement statement) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                        new Class<?>[]{type},
+                        new StatementHandler(statement));
+            }
+            return result;
+        }
+    }
+
+    private record StatementHandler(Statement target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            //execute, executeQuery, executeUpdate, executeLargeUpdate, executeBatch - one round trip each
+            if (!method.getName().startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                JdbcStats.current().recordStatement(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable
+    {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.fitness.metrics;
+
+//JDBC work done by the current thread since the last reset: statements executed, time spent in
+//execute* calls and time spent waiting for a pooled connection. Filled in by InstrumentedDataSource,
+//reset per request by RequestMetricsFilter and read directly by tests that assert query budgets.
+public final class JdbcStats {
+
+    private static final ThreadLocal<JdbcStats> CURRENT = ThreadLocal.withInitial(JdbcStats::new);
+
+    private long statements;
+    private long jdbcNanos;
+    private long connections;
+    private long connectionWaitNanos;
+
+    private JdbcStats() {
+    }
+
+    public static JdbcStats current()
+    {
+        return CURRENT.get();
+    }
+
+    public static void reset()
+    {
+        JdbcStats stats = CURRENT.get();
+        stats.statements = 0;
+        stats.jdbcNanos = 0;
+        stats.connections = 0;
+        stats.connectionWaitNanos = 0;
+    }
+
+    void recordStatement(long nanos)
+    {
+        statements++;
+        jdbcNanos += nanos;
+    }
+
+    void recordConnection(long waitNanos)
+    {
+        connections++;
+        connectionWaitNanos += waitNanos;
+    }
+
+    public long getStatements()
+    {
+        return statements;
+    }
+
+    public long getJdbcNanos()
+    {
+        return jdbcNanos;
+    }
+
+    public long getConnections()
+    {
+        return connections;
+    }
+
+    public long getConnectionWaitNanos()
+    {
+        return connectionWaitNanos;
+    }
+}
@@ -0,0 +1,72 @@
+package com.project.fitness.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//per-endpoint database cost next to Spring's http.server.requests latency: SQL statements, JDBC time and
+//connection-wait time per request, tagged with the same method/uri template. Work done on another
+//thread (the streaming export body) is not attributed to the request.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        JdbcStats.reset();
+        try {
+            filterChain.doFilter(request,response);
+        } finally {
+            record(request, response, JdbcStats.current());
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, JdbcStats stats)
+    {
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri(request, response));
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per request")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("http.server.requests.jdbc")
+                .description("Time spent executing SQL per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("http.server.requests.connection.wait")
+                .description("Time spent waiting for a pooled connection per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getConnectionWaitNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    //the route template keeps the tag cardinality bounded; raw paths never become tags
+    private static String uri(HttpServletRequest request, HttpServletResponse response)
+    {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        return response.getStatus() == HttpStatus.NOT_FOUND.value() ? "NOT_FOUND" : "UNKNOWN";
+    }
+}
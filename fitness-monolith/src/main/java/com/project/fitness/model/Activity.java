@@ -4,7 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -17,6 +19,12 @@ import java.util.Map;
 
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_activity_user_start", columnList = "user_id, start_time, id"),
+        @Index(name = "idx_activity_user_change", columnList = "user_id, change_seq, id"),
+        @Index(name = "idx_activity_user_distance", columnList = "user_id, distance"),
+        @Index(name = "idx_activity_user_heart_rate", columnList = "user_id, heart_rate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,26 +37,47 @@ public class Activity {
     @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnore
     @JoinColumn(name = "user_id",nullable = false,foreignKey = @ForeignKey(name = "fk_activity_user"))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
     @OneToMany(mappedBy = "activity",cascade = CascadeType.ALL,orphanRemoval = true)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Recommendation> recommendations;
 
     @Enumerated(EnumType.STRING)//because by default it stores the integer index from enum , in DB
     private ActivityType type;
 
+    //jsonb on PostgreSQL (GIN-indexed for containment queries), json on H2
     @JdbcTypeCode(SqlTypes.JSON)
-    @Column(columnDefinition = "json")//Store as a JSON in DB
     private Map<String, Object> additionalMetrics;
 
+    //typed copies of the PromotedMetric keys, maintained by promoteMetrics()
+    private Double distance;
+    private Double heartRate;
+
     private Integer duration;
     private Integer caloriesBurned;
+    //partition key of the activity table - never null
+    @Column(nullable = false)
     private LocalDateTime startTime;
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+    //changes feed position, stamped by ChangeSequence as the write commits
+    @Column(insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @PrePersist
+    @PreUpdate
+    void promoteMetrics()
+    {
+        distance = PromotedMetric.DISTANCE.extract(additionalMetrics);
+        heartRate = PromotedMetric.HEART_RATE.extract(additionalMetrics);
+    }
 }
 
 
@@ -0,0 +1,75 @@
+package com.project.fitness.model;
+
+import com.project.fitness.imports.ImportFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//one uploaded export file and how far its import got. Progress is written in the same transaction as each
+//chunk of activities, so rowsRead always matches what was committed and a resumed import skips exactly that
+@Entity
+@Table(name = "activity_import",
+        indexes = @Index(name = "idx_activity_import_status", columnList = "status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityImport {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        //resumable until its upload expires
+        FAILED,
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportFormat format;
+
+    //the spooled upload in app.imports.directory
+    @Column(nullable = false)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    //data rows consumed by committed chunks, imported or not
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+
+    //the first app.imports.max-errors rejected rows, as "row N: reason"
+    @Column(columnDefinition = "json")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> errors = new ArrayList<>();
+
+    //why the import stopped, when it failed
+    @Column(length = 2000)
+    private String error;
+
+    //time spent reading and writing chunks across all runs, without time queued
+    private long processingMillis;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
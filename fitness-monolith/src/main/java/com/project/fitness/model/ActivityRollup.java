@@ -0,0 +1,44 @@
+package com.project.fitness.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+//pre-aggregated totals per user / period bucket / activity type, maintained on every activity write
+@Entity
+@Table(name = "activity_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_activity_rollup_bucket",
+                columnNames = {"user_id", "period", "bucket_start", "activity_type"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    //plain column, rollups never need the user entity
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RollupPeriod period;
+
+    @Column(nullable = false)
+    private LocalDate bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ActivityType activityType;
+
+    private long activityCount;
+    private long totalDuration;
+    private long totalCalories;
+    private int maxDuration;
+    private int maxCalories;
+}
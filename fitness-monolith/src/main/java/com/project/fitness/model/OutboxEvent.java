@@ -0,0 +1,74 @@
+package com.project.fitness.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+//a write that listeners have not been told about yet. Inserted in the transaction of the write itself and
+//deleted once every listener has taken it; failed deliveries wait until availableAt, then go dead
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_event_seq", columnList = "seq"),
+        @Index(name = "idx_outbox_event_user_seq", columnList = "user_id, seq")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    public enum Type {
+        ACTIVITY_CREATED,
+        ACTIVITY_DELETED,
+        RECOMMENDATION_CREATED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    //the activity or recommendation written
+    @Column(nullable = false)
+    private String entityId;
+
+    //written once; not updatable so it is never compared or rewritten by dirty checking
+    @Column(columnDefinition = "json", updatable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> payload;
+
+    //delivery order, assigned by the database on insert; never written from here, so it is not read back either
+    @Column(nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint generated by default as identity")
+    private long seq;
+
+    //measures lag
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    private int attempts;
+
+    //not delivered before this; pushed back after each failed attempt
+    @Column(nullable = false)
+    private LocalDateTime availableAt;
+
+    //set while a dispatcher is delivering the event; an expired lease means the dispatcher died
+    private LocalDateTime leasedUntil;
+
+    @Column(length = 2000)
+    private String lastError;
+
+    //gave up after app.outbox.max-attempts; kept for inspection and no longer blocks the user's later events
+    private LocalDateTime deadAt;
+}
@@ -0,0 +1,39 @@
+package com.project.fitness.model;
+
+import java.util.Map;
+
+//additionalMetrics keys that are copied into typed, indexed activity columns on every write so they can be
+//filtered and aggregated in SQL. Promoting another key takes a constant here, a field on Activity set in
+//Activity.promoteMetrics, and a migration adding, backfilling and indexing the column
+public enum PromotedMetric {
+
+    DISTANCE("distance", "distance"),
+    HEART_RATE("heartRate", "heartRate");
+
+    private final String key;
+    private final String attribute;
+
+    PromotedMetric(String key, String attribute) {
+        this.key = key;
+        this.attribute = attribute;
+    }
+
+    //key in additionalMetrics
+    public String key() {
+        return key;
+    }
+
+    //Activity attribute holding the typed copy
+    public String attribute() {
+        return attribute;
+    }
+
+    //numbers only; a missing key or a value of any other shape leaves the column null
+    public Double extract(Map<String, Object> metrics) {
+        if (metrics != null && metrics.get(key) instanceof Number number) {
+            double value = number.doubleValue();
+            return Double.isFinite(value) ? value : null;
+        }
+        return null;
+    }
+}
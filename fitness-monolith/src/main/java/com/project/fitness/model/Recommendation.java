@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -15,6 +17,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_recommendation_user_change", columnList = "user_id, change_seq, id"),
+        @Index(name = "idx_recommendation_activity", columnList = "activity_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,10 +32,15 @@ public class Recommendation {
     @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnore
     @JoinColumn(name = "user_id",nullable = false,foreignKey = @ForeignKey(name = "fk_recommendation_user"))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
     @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnore
-    @JoinColumn(name = "activity_id",nullable = false,foreignKey = @ForeignKey(name = "fk_recommendation_activity"))
+    //no database foreign key: activity is partitioned by start_time, so activity(id) alone is not unique there
+    @JoinColumn(name = "activity_id",nullable = false,foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Activity activity;
     private String type;
     @Column(length = 2000)
@@ -47,5 +58,8 @@ public class Recommendation {
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+    //changes feed position, stamped by ChangeSequence as the write commits
+    @Column(insertable = false, updatable = false)
+    private Long changeSeq;
 
 }
@@ -0,0 +1,31 @@
+package com.project.fitness.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum RollupPeriod {
+
+    DAY,
+    WEEK,
+    MONTH;
+
+    //first day of the bucket the given day falls into; weeks start on Monday
+    public LocalDate bucketStart(LocalDate day)
+    {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate minus(LocalDate bucketStart, long buckets)
+    {
+        return switch (this) {
+            case DAY -> bucketStart.minusDays(buckets);
+            case WEEK -> bucketStart.minusWeeks(buckets);
+            case MONTH -> bucketStart.minusMonths(buckets);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.project.fitness.model;
+
+//what a tombstone refers to
+public enum SyncEntity {
+
+    ACTIVITY,
+    RECOMMENDATION
+}
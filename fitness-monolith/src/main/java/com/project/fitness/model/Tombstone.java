@@ -0,0 +1,41 @@
+package com.project.fitness.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//marks a deleted activity or recommendation so the changes feed can tell clients to drop it;
+//pruned after app.sync.tombstone-retention-days
+@Entity
+@Table(name = "sync_tombstone",
+        indexes = @Index(name = "idx_sync_tombstone_user_change", columnList = "user_id, change_seq, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    //plain column, the user may be gone by the time the tombstone is read
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SyncEntity entityType;
+
+    @Column(nullable = false)
+    private String entityId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    //changes feed position, stamped by ChangeSequence as the delete commits
+    @Column(insertable = false, updatable = false)
+    private Long changeSeq;
+}
@@ -0,0 +1,88 @@
+package com.project.fitness.outbox;
+
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.OutboxEvent;
+import com.project.fitness.model.Recommendation;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//records that a write happened, in the transaction of the write: the event commits or rolls back with it,
+//and the request never waits for the listeners. OutboxDispatcher delivers it afterwards.
+//Off unless app.outbox.enabled: with no listener to consume them, events would only cost an insert per write.
+//Events are numbered (seq) by the database as they are inserted. That is the order writes reached the
+//outbox, not strictly commit order - two transactions of one user that overlap can commit the other way round
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class Outbox {
+
+    private final EntityManager entityManager;
+    private final boolean enabled;
+
+    public Outbox(EntityManager entityManager, @Value("${app.outbox.enabled:false}") boolean enabled)
+    {
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+    }
+
+    public void activityCreated(Activity activity)
+    {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", typeName(activity));
+        payload.put("startTime", activity.getStartTime().toString());
+        payload.put("duration", activity.getDuration());
+        payload.put("caloriesBurned", activity.getCaloriesBurned());
+        append(activity.getUser().getId(), OutboxEvent.Type.ACTIVITY_CREATED, activity.getId(), payload);
+    }
+
+    public void activityDeleted(Activity activity)
+    {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", typeName(activity));
+        payload.put("startTime", activity.getStartTime().toString());
+        append(activity.getUser().getId(), OutboxEvent.Type.ACTIVITY_DELETED, activity.getId(), payload);
+    }
+
+    public void recommendationCreated(Recommendation recommendation)
+    {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("activityId", recommendation.getActivity().getId());
+        payload.put("type", recommendation.getType());
+        append(recommendation.getUser().getId(), OutboxEvent.Type.RECOMMENDATION_CREATED, recommendation.getId(), payload);
+    }
+
+    //persisted, not flushed: the insert goes out with the write's own statements
+    private void append(String userId, OutboxEvent.Type type, String entityId, Map<String, Object> payload)
+    {
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(userId);
+        event.setType(type);
+        event.setEntityId(entityId);
+        event.setPayload(payload);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setAvailableAt(event.getCreatedAt());
+        entityManager.persist(event);
+    }
+
+    //plain JSON values only: an enum would read back from the column as a String and the event would look
+    //dirty at every flush
+    private static String typeName(Activity activity)
+    {
+        return activity.getType() == null ? null : activity.getType().name();
+    }
+}
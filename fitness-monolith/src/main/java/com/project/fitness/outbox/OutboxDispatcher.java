@@ -0,0 +1,270 @@
+package com.project.fitness.outbox;
+
+import com.project.fitness.model.OutboxEvent;
+import com.project.fitness.repository.OutboxEventRepository;
+import com.project.fitness.repository.OutboxHead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+//drains the outbox to the OutboxListener beans. Each batch is claimed in a short transaction that leases
+//the events, delivered with no transaction or lock held, then deleted (or rescheduled) in a second one, so a
+//slow listener holds neither a connection nor row locks. Instances can run side by side: claiming skips rows
+//another instance is claiming, and a user's events are only handed out while nothing earlier of theirs (by
+//seq) is leased elsewhere or waiting on a retry. Only polls when app.outbox.enabled
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int ERROR_MAX_LENGTH = 2000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectProvider<OutboxListener> listenerProvider;
+    private final TransactionTemplate transactionTemplate;
+    //its own thread rather than the shared scheduler, so a slow listener does not hold up the cron jobs
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean stopping;
+
+    private final boolean enabled;
+    private final long pollMillis;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final Timer lag;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter dead;
+    private final AtomicReference<LocalDateTime> oldestPending = new AtomicReference<>();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ObjectProvider<OutboxListener> listenerProvider,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.outbox.enabled:false}") boolean enabled,
+                            @Value("${app.outbox.poll-millis:200}") long pollMillis,
+                            @Value("${app.outbox.batch-size:500}") int batchSize,
+                            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${app.outbox.backoff:1s}") Duration backoff,
+                            @Value("${app.outbox.max-backoff:10m}") Duration maxBackoff,
+                            @Value("${app.outbox.lease:60s}") Duration lease)
+    {
+        this.outboxEventRepository = outboxEventRepository;
+        this.listenerProvider = listenerProvider;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.pollMillis = pollMillis;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("outbox-dispatcher").factory());
+
+        this.lag = Timer.builder("outbox.lag")
+                .description("Time from a write committing its event to every listener having taken it")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.delivered = Counter.builder("outbox.events")
+                .tag("outcome", "delivered")
+                .description("Outbox events handed to the listeners")
+                .register(meterRegistry);
+        this.retried = Counter.builder("outbox.events")
+                .tag("outcome", "retried")
+                .description("Outbox events a listener failed on, delivered again later")
+                .register(meterRegistry);
+        this.dead = Counter.builder("outbox.events")
+                .tag("outcome", "dead")
+                .description("Outbox events given up on after app.outbox.max-attempts")
+                .register(meterRegistry);
+        Gauge.builder("outbox.oldest.age", oldestPending, oldest -> oldest.get() == null ? 0
+                        : Math.max(0, Duration.between(oldest.get(), LocalDateTime.now()).toMillis() / 1000.0))
+                .description("Seconds since the oldest undelivered event was written, as of the last poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start()
+    {
+        if (enabled) {
+            if (listenerProvider.orderedStream().findAny().isEmpty()) {
+                log.warn("app.outbox.enabled is set but there is no OutboxListener; events are deleted undelivered");
+            }
+            scheduler.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException
+    {
+        stopping = true;
+        scheduler.shutdown();
+        if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    //delivers everything that is due, a batch at a time; the number of events delivered
+    public int dispatch()
+    {
+        List<OutboxListener> listeners = listenerProvider.orderedStream().toList();
+        int count = 0;
+        while (!stopping) {
+            Batch batch = dispatchBatch(listeners);
+            count += batch.delivered();
+            if (batch.claimed() < batchSize) {
+                break;
+            }
+        }
+        oldestPending.set(transactionTemplate.execute(status -> outboxEventRepository
+                .findFirstByDeadAtIsNullOrderBySeqAsc()
+                .map(OutboxEvent::getCreatedAt)
+                .orElse(null)));
+        return count;
+    }
+
+    private void poll()
+    {
+        //an exception would cancel the schedule
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            log.warn("Outbox dispatch failed, retrying next poll: {}", e.getMessage());
+        }
+    }
+
+    private Batch dispatchBatch(List<OutboxListener> listeners)
+    {
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> claim(LocalDateTime.now()));
+        if (claimed.isEmpty()) {
+            return new Batch(0, 0);
+        }
+
+        List<String> deliveredIds = new ArrayList<>(claimed.size());
+        List<String> releasedIds = new ArrayList<>();
+        List<Failure> failures = new ArrayList<>();
+        Set<String> heldBack = new HashSet<>();
+        for (OutboxEvent event : claimed) {
+            if (stopping || heldBack.contains(event.getUserId())) {
+                releasedIds.add(event.getId());
+                continue;
+            }
+            try {
+                deliver(event, listeners);
+                deliveredIds.add(event.getId());
+            } catch (RuntimeException e) {
+                //the user's later events wait until this one goes through or goes dead
+                heldBack.add(event.getUserId());
+                failures.add(new Failure(event, e));
+            }
+        }
+
+        //a crash before this commits leaves the events leased; they are delivered again once the lease runs out
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!deliveredIds.isEmpty()) {
+                outboxEventRepository.deleteDelivered(deliveredIds);
+            }
+            if (!releasedIds.isEmpty()) {
+                outboxEventRepository.release(releasedIds);
+            }
+            failures.forEach(this::recordFailure);
+        });
+        return new Batch(claimed.size(), deliveredIds.size());
+    }
+
+    private List<OutboxEvent> claim(LocalDateTime now)
+    {
+        List<OutboxEvent> found = outboxEventRepository.findClaimable(now, Limit.of(batchSize));
+        if (found.isEmpty()) {
+            return found;
+        }
+        Map<String, List<OutboxEvent>> byUser = found.stream()
+                .collect(Collectors.groupingBy(OutboxEvent::getUserId, LinkedHashMap::new, Collectors.toList()));
+        Map<String, Long> heads = outboxEventRepository.findHeads(byUser.keySet()).stream()
+                .collect(Collectors.toMap(OutboxHead::userId, OutboxHead::seq));
+        List<OutboxEvent> claimed = new ArrayList<>(found.size());
+        byUser.forEach((userId, events) -> {
+            //a user whose oldest event is not in the batch has it locked by a dispatcher that is claiming it
+            //right now; their events are left for that dispatcher
+            if (heads.get(userId) == events.getFirst().getSeq()) {
+                claimed.addAll(events);
+            }
+        });
+        if (!claimed.isEmpty()) {
+            outboxEventRepository.lease(claimed.stream().map(OutboxEvent::getId).toList(), now.plus(lease));
+        }
+        return claimed;
+    }
+
+    //every listener that wants the type, in order; a failure means all of them see the event again
+    private void deliver(OutboxEvent event, List<OutboxListener> listeners)
+    {
+        for (OutboxListener listener : listeners) {
+            if (listener.accepts(event.getType())) {
+                listener.onEvent(event);
+            }
+        }
+        lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        delivered.increment();
+    }
+
+    private void recordFailure(Failure failure)
+    {
+        OutboxEvent event = failure.event();
+        int attempts = event.getAttempts() + 1;
+        String message = failure.error().toString();
+        String error = message.length() > ERROR_MAX_LENGTH ? message.substring(0, ERROR_MAX_LENGTH) : message;
+        LocalDateTime now = LocalDateTime.now();
+        if (attempts >= maxAttempts) {
+            outboxEventRepository.recordFailure(event.getId(), attempts, error, event.getAvailableAt(), now);
+            dead.increment();
+            log.error("Outbox event {} ({} of {} for user {}) failed {} times, giving up: {}",
+                    event.getId(), event.getType(), event.getEntityId(), event.getUserId(), attempts, message);
+            return;
+        }
+        //backoff, twice that, four times that ... up to max-backoff
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (delay.compareTo(maxBackoff) > 0) {
+            delay = maxBackoff;
+        }
+        outboxEventRepository.recordFailure(event.getId(), attempts, error, now.plus(delay), null);
+        retried.increment();
+        log.warn("Outbox event {} ({} of {} for user {}) failed, attempt {} of {}, retrying in {}: {}",
+                event.getId(), event.getType(), event.getEntityId(), event.getUserId(), attempts, maxAttempts,
+                delay, message);
+    }
+
+    private record Batch(int claimed, int delivered) {
+    }
+
+    private record Failure(OutboxEvent event, RuntimeException error) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.project.fitness.outbox;
+
+import com.project.fitness.model.OutboxEvent;
+
+//derived work that runs after a write has committed, off the request path. Any bean implementing this is
+//registered with the dispatcher. Delivery is at least once and in outbox order (seq) per user: an event can come
+//again after a failure or restart, so onEvent has to tolerate repeats. Throwing retries the event later and
+//holds back that user's later events until it goes through or goes dead
+public interface OutboxListener {
+
+    void onEvent(OutboxEvent event);
+
+    default boolean accepts(OutboxEvent.Type type)
+    {
+        return true;
+    }
+}
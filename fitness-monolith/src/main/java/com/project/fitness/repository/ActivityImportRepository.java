@@ -0,0 +1,29 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.ActivityImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ActivityImportRepository extends JpaRepository<ActivityImport,String> {
+
+    List<ActivityImport> findByStatusIn(Collection<ActivityImport.Status> statuses);
+
+    List<ActivityImport> findByStatusAndFinishedAtBefore(ActivityImport.Status status, LocalDateTime before);
+
+    //compare-and-set on the status, so only one of two concurrent callers gets to act on the import
+    @Transactional
+    @Modifying
+    @Query("update ActivityImport i set i.status = :to where i.id = :id and i.status = :from")
+    int transition(@Param("id") String id,
+                   @Param("from") ActivityImport.Status from,
+                   @Param("to") ActivityImport.Status to);
+}
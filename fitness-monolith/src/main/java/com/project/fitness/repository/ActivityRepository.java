@@ -1,14 +1,105 @@
 package com.project.fitness.repository;
 
 import com.project.fitness.model.Activity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ActivityRepository extends JpaRepository<Activity,String> {
+public interface ActivityRepository extends JpaRepository<Activity,String>, ActivityRepositoryCustom {
 
     List<Activity> findByUserId(String userId);
 
+    List<Activity> findByUserIdOrderByStartTimeDescIdDesc(String userId, Limit limit);
+
+    //the same list without additionalMetrics, so the json column is neither read nor parsed
+    @Query("""
+            select new com.project.fitness.repository.ActivitySummary(
+                a.id, a.user.id, a.type, a.duration, a.caloriesBurned, a.startTime, a.createdAt, a.updatedAt)
+            from Activity a
+            where a.user.id = :userId
+            order by a.startTime desc, a.id desc
+            """)
+    List<ActivitySummary> findSummariesByUserId(@Param("userId") String userId, Limit limit);
+
+    //must be consumed inside a transaction - the fetch size only takes effect with autocommit off
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select a from Activity a where a.user.id = :userId order by a.startTime, a.id")
+    Stream<Activity> streamByUserId(@Param("userId") String userId);
+
+    @Query("""
+            select new com.project.fitness.repository.DailyActivityTotals(
+                a.user.id, a.type, cast(a.startTime as LocalDate),
+                count(a), sum(a.duration), sum(a.caloriesBurned), max(a.duration), max(a.caloriesBurned))
+            from Activity a
+            where a.user.id in :userIds and a.startTime is not null and a.type is not null
+            group by a.user.id, a.type, cast(a.startTime as LocalDate)
+            """)
+    List<DailyActivityTotals> aggregateDailyTotals(@Param("userIds") Collection<String> userIds);
+
+    //recent history for a whole chunk of users in one round trip, served by idx_activity_user_start
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select a from Activity a where a.user.id in :userIds and a.startTime >= :since order by a.startTime, a.id")
+    List<Activity> findRecentByUserIds(@Param("userIds") Collection<String> userIds, @Param("since") LocalDateTime since);
+
+    //cold rows for ActivityArchiveJob, walked user by user in (user, startTime, id) keyset order
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            select a from Activity a
+            where a.startTime < :before
+              and (a.user.id > :afterUser
+                or (a.user.id = :afterUser and (a.startTime > :afterStart or (a.startTime = :afterStart and a.id > :afterId))))
+            order by a.user.id, a.startTime, a.id
+            """)
+    List<Activity> findArchivable(@Param("before") LocalDateTime before,
+                                  @Param("afterUser") String afterUser,
+                                  @Param("afterStart") LocalDateTime afterStart,
+                                  @Param("afterId") String afterId,
+                                  Limit limit);
+
+    //the start time bound lets PostgreSQL prune the delete to the archived months' partitions
+    @Modifying
+    @Query("delete from Activity a where a.id in :ids and a.startTime <= :through")
+    int deleteArchived(@Param("ids") Collection<String> ids, @Param("through") LocalDateTime through);
+
+    //changes feed, keyset on (changeSeq, id); rows still to be stamped are left out. Served by idx_activity_user_change
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            select a from Activity a
+            where a.user.id = :userId
+              and (a.changeSeq > :after or (a.changeSeq = :after and a.id > :afterId))
+            order by a.changeSeq, a.id
+            """)
+    List<Activity> findChanges(@Param("userId") String userId,
+                               @Param("after") long after,
+                               @Param("afterId") String afterId,
+                               Limit limit);
+
+    //ChangeSequence, as the write commits: this transaction's rows take their user's new position
+    @Modifying
+    @Query("""
+            update Activity a set a.changeSeq = (select u.changeSeq from User u where u.id = a.user.id)
+            where a.user.id in :userIds and a.changeSeq is null
+            """)
+    int stampChanges(@Param("userIds") Collection<String> userIds);
+
+    //one statement; recommendations are removed separately so the cascade never loads them
+    @Modifying
+    @Query("delete from Activity a where a.id = :id")
+    int deleteInBulk(@Param("id") String id);
+
 }
@@ -0,0 +1,26 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ActivityRepositoryCustom {
+
+    //newest first, keyset on (startTime, id); afterStartTime/afterId are the last row of the previous page
+    List<Activity> findPage(String userId, LocalDateTime from, LocalDateTime to, ActivityType type,
+                            LocalDateTime afterStartTime, String afterId, int limit);
+
+    //the same page without additionalMetrics
+    List<ActivitySummary> findSummaryPage(String userId, LocalDateTime from, LocalDateTime to, ActivityType type,
+                                          LocalDateTime afterStartTime, String afterId, int limit);
+
+    //newest first like findPage, limited to activities whose metric lies in [min, max]; either bound may be null
+    List<Activity> findByMetric(String userId, PromotedMetric metric, Double min, Double max, ActivityType type,
+                                LocalDateTime afterStartTime, String afterId, int limit);
+
+    //per activity type, over activities that recorded the metric, with startTime in [from, to)
+    List<MetricTotals> summarizeMetric(String userId, PromotedMetric metric, LocalDateTime from, LocalDateTime to);
+}
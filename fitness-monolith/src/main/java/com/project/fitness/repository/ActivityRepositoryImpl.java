@@ -0,0 +1,146 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ActivityRepositoryImpl implements ActivityRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Activity> findPage(String userId, LocalDateTime from, LocalDateTime to, ActivityType type,
+                                   LocalDateTime afterStartTime, String afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Activity> query = cb.createQuery(Activity.class);
+        Root<Activity> activity = query.from(Activity.class);
+
+        List<Predicate> predicates = pagePredicates(cb, activity, userId, from, to, type, afterStartTime, afterId);
+        query.select(activity)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(activity.get("startTime")), cb.desc(activity.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<ActivitySummary> findSummaryPage(String userId, LocalDateTime from, LocalDateTime to, ActivityType type,
+                                                 LocalDateTime afterStartTime, String afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ActivitySummary> query = cb.createQuery(ActivitySummary.class);
+        Root<Activity> activity = query.from(Activity.class);
+
+        List<Predicate> predicates = pagePredicates(cb, activity, userId, from, to, type, afterStartTime, afterId);
+        query.select(cb.construct(ActivitySummary.class,
+                        activity.get("id"),
+                        activity.get("user").get("id"),
+                        activity.get("type"),
+                        activity.get("duration"),
+                        activity.get("caloriesBurned"),
+                        activity.get("startTime"),
+                        activity.get("createdAt"),
+                        activity.get("updatedAt")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(activity.get("startTime")), cb.desc(activity.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Activity> findByMetric(String userId, PromotedMetric metric, Double min, Double max, ActivityType type,
+                                       LocalDateTime afterStartTime, String afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Activity> query = cb.createQuery(Activity.class);
+        Root<Activity> activity = query.from(Activity.class);
+        Path<Double> value = activity.get(metric.attribute());
+
+        //the metric range is served by the partial (user_id, <metric>) index
+        List<Predicate> predicates = pagePredicates(cb, activity, userId, null, null, type, afterStartTime, afterId);
+        predicates.add(cb.isNotNull(value));
+        if (min != null) {
+            predicates.add(cb.greaterThanOrEqualTo(value, min));
+        }
+        if (max != null) {
+            predicates.add(cb.lessThanOrEqualTo(value, max));
+        }
+        query.select(activity)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(activity.get("startTime")), cb.desc(activity.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<MetricTotals> summarizeMetric(String userId, PromotedMetric metric, LocalDateTime from, LocalDateTime to) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MetricTotals> query = cb.createQuery(MetricTotals.class);
+        Root<Activity> activity = query.from(Activity.class);
+        Path<Double> value = activity.get(metric.attribute());
+        Path<ActivityType> type = activity.get("type");
+        Path<LocalDateTime> startTime = activity.get("startTime");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(activity.get("user").get("id"), userId));
+        predicates.add(cb.isNotNull(value));
+        predicates.add(cb.isNotNull(type));
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(startTime, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(startTime, to));
+        }
+        query.select(cb.construct(MetricTotals.class, type, cb.count(activity), cb.avg(value), cb.min(value), cb.max(value)))
+                .where(predicates.toArray(Predicate[]::new))
+                .groupBy(type)
+                .orderBy(cb.asc(type));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    //user, from/to and the cursor are a prefix and range on idx_activity_user_start, so the page is read as an
+    //index range scan in (start_time, id) order. type is not in that index and is checked on each row the scan
+    //reaches, so a rarely used type can read many rows to fill one page
+    private static List<Predicate> pagePredicates(CriteriaBuilder cb, Root<Activity> activity, String userId,
+                                                  LocalDateTime from, LocalDateTime to, ActivityType type,
+                                                  LocalDateTime afterStartTime, String afterId) {
+        Path<LocalDateTime> startTime = activity.get("startTime");
+        Path<String> id = activity.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(activity.get("user").get("id"), userId));
+        predicates.add(cb.isNotNull(startTime));
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(startTime, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(startTime, to));
+        }
+        if (type != null) {
+            predicates.add(cb.equal(activity.get("type"), type));
+        }
+        if (afterStartTime != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(startTime, afterStartTime),
+                    cb.and(cb.equal(startTime, afterStartTime), cb.lessThan(id, afterId))));
+        }
+        return predicates;
+    }
+}
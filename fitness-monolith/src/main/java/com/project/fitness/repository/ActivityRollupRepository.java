@@ -0,0 +1,82 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.ActivityRollup;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ActivityRollupRepository extends JpaRepository<ActivityRollup,String> {
+
+    //atomic in-place increment, returns 0 when the bucket row does not exist yet
+    @Modifying
+    @Query("""
+            update ActivityRollup r
+            set r.activityCount = r.activityCount + :count,
+                r.totalDuration = r.totalDuration + :duration,
+                r.totalCalories = r.totalCalories + :calories,
+                r.maxDuration = case when r.maxDuration < :maxDuration then :maxDuration else r.maxDuration end,
+                r.maxCalories = case when r.maxCalories < :maxCalories then :maxCalories else r.maxCalories end
+            where r.userId = :userId and r.period = :period and r.bucketStart = :bucketStart and r.activityType = :type
+            """)
+    int increment(@Param("userId") String userId,
+                  @Param("period") RollupPeriod period,
+                  @Param("bucketStart") LocalDate bucketStart,
+                  @Param("type") ActivityType type,
+                  @Param("count") long count,
+                  @Param("duration") long duration,
+                  @Param("calories") long calories,
+                  @Param("maxDuration") int maxDuration,
+                  @Param("maxCalories") int maxCalories);
+
+    //creates an empty bucket row; concurrent creators race on the unique key and the loser is a no-op
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into activity_rollup
+                (id, user_id, period, bucket_start, activity_type,
+                 activity_count, total_duration, total_calories, max_duration, max_calories)
+            values (:id, :userId, :period, :bucketStart, :type, 0, 0, 0, 0, 0)
+            on conflict do nothing
+            """)
+    int insertEmpty(@Param("id") String id,
+                    @Param("userId") String userId,
+                    @Param("period") String period,
+                    @Param("bucketStart") LocalDate bucketStart,
+                    @Param("type") String type);
+
+    //rebuild: a chunk's users lose their rows in the transaction that writes the recomputed ones
+    @Modifying
+    @Query("delete from ActivityRollup r where r.userId in :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<String> userIds);
+
+    @Modifying
+    @Query("delete from ActivityRollup r where not exists (select u.id from User u where u.id = r.userId)")
+    int deleteWithoutUser();
+
+    List<ActivityRollup> findByUserIdAndPeriodAndBucketStartBetweenOrderByBucketStartAscActivityTypeAsc(
+            String userId, RollupPeriod period, LocalDate from, LocalDate to);
+
+    List<ActivityRollup> findByUserIdAndPeriodAndActivityTypeAndBucketStartBetweenOrderByBucketStartAsc(
+            String userId, RollupPeriod period, ActivityType activityType, LocalDate from, LocalDate to);
+
+    //every user's totals in one bucket, as unmanaged projections; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.project.fitness.repository.BucketTotals(r.userId, r.activityType, r.totalDuration, r.totalCalories)
+            from ActivityRollup r
+            where r.period = :period and r.bucketStart = :bucketStart
+            """)
+    Stream<BucketTotals> streamBucketTotals(@Param("period") RollupPeriod period, @Param("bucketStart") LocalDate bucketStart);
+}
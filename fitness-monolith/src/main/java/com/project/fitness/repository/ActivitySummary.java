@@ -0,0 +1,16 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.ActivityType;
+
+import java.time.LocalDateTime;
+
+//an activity without additionalMetrics, for lists that do not need them: the json column is never read
+public record ActivitySummary(String id,
+                              String userId,
+                              ActivityType type,
+                              Integer duration,
+                              Integer caloriesBurned,
+                              LocalDateTime startTime,
+                              LocalDateTime createdAt,
+                              LocalDateTime updatedAt) {
+}
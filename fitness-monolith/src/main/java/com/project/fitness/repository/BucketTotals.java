@@ -0,0 +1,10 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.ActivityType;
+
+//one user's totals for one rollup bucket and activity type, used to rebuild leaderboards
+public record BucketTotals(String userId,
+                           ActivityType type,
+                           long totalDuration,
+                           long totalCalories) {
+}
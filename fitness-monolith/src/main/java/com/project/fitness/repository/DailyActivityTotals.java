@@ -0,0 +1,16 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.ActivityType;
+
+import java.time.LocalDate;
+
+//one row of the per-day aggregate used to rebuild rollups from the raw activity table
+public record DailyActivityTotals(String userId,
+                                  ActivityType type,
+                                  LocalDate day,
+                                  Long count,
+                                  Long totalDuration,
+                                  Long totalCalories,
+                                  Integer maxDuration,
+                                  Integer maxCalories) {
+}
@@ -0,0 +1,11 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.ActivityType;
+
+//count, average and range of one promoted metric over a user's activities of one type
+public record MetricTotals(ActivityType type,
+                           Long count,
+                           Double average,
+                           Double min,
+                           Double max) {
+}
@@ -0,0 +1,74 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent,String> {
+
+    //due events, oldest first, of users with nothing earlier waiting on a retry or leased to another dispatcher.
+    //Rows another dispatcher is claiming right now are skipped rather than waited for (lock timeout -2 is
+    //SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("""
+            select e from OutboxEvent e
+            where e.deadAt is null and e.availableAt <= :now
+              and (e.leasedUntil is null or e.leasedUntil < :now)
+              and not exists (select o.id from OutboxEvent o
+                              where o.userId = e.userId and o.seq < e.seq and o.deadAt is null
+                                and (o.availableAt > :now or o.leasedUntil >= :now))
+            order by e.seq
+            """)
+    List<OutboxEvent> findClaimable(@Param("now") LocalDateTime now, Limit limit);
+
+    @Query("""
+            select new com.project.fitness.repository.OutboxHead(e.userId, min(e.seq))
+            from OutboxEvent e
+            where e.userId in :userIds and e.deadAt is null
+            group by e.userId
+            """)
+    List<OutboxHead> findHeads(@Param("userIds") Collection<String> userIds);
+
+    Optional<OutboxEvent> findFirstByDeadAtIsNullOrderBySeqAsc();
+
+    @Modifying
+    @Query("update OutboxEvent e set e.leasedUntil = :until where e.id in :ids")
+    int lease(@Param("ids") Collection<String> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.leasedUntil = null where e.id in :ids")
+    int release(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteDelivered(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("""
+            update OutboxEvent e
+            set e.attempts = :attempts, e.lastError = :error, e.availableAt = :availableAt,
+                e.deadAt = :deadAt, e.leasedUntil = null
+            where e.id = :id
+            """)
+    int recordFailure(@Param("id") String id,
+                      @Param("attempts") int attempts,
+                      @Param("error") String error,
+                      @Param("availableAt") LocalDateTime availableAt,
+                      @Param("deadAt") LocalDateTime deadAt);
+}
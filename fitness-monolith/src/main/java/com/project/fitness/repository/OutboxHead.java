@@ -0,0 +1,6 @@
+package com.project.fitness.repository;
+
+//the sequence number of a user's oldest undelivered outbox event
+public record OutboxHead(String userId,
+                         long seq) {
+}
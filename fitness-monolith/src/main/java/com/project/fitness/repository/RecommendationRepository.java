@@ -1,8 +1,16 @@
 package com.project.fitness.repository;
 
 import com.project.fitness.model.Recommendation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
@@ -11,8 +19,40 @@ import java.util.stream.Collectors;
 @Repository
 public interface RecommendationRepository extends JpaRepository<Recommendation,String> {
 
+    //read-only here rather than on the cached service methods, so a cache hit never opens a transaction;
+    //read-only transactions are served by the read replica when one is configured
+    @Transactional(readOnly = true)
     List<Recommendation> findByUserId(String userId);
 
+    @Transactional(readOnly = true)
     List<Recommendation> findByActivityId(String activityId);
 
+    @Query("select r.id from Recommendation r where r.activity.id = :activityId")
+    List<String> findIdsByActivityId(@Param("activityId") String activityId);
+
+    @Modifying
+    @Query("delete from Recommendation r where r.activity.id = :activityId")
+    int deleteByActivityIdInBulk(@Param("activityId") String activityId);
+
+    //changes feed, keyset on (changeSeq, id); rows still to be stamped are left out. Served by idx_recommendation_user_change
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            select r from Recommendation r
+            where r.user.id = :userId
+              and (r.changeSeq > :after or (r.changeSeq = :after and r.id > :afterId))
+            order by r.changeSeq, r.id
+            """)
+    List<Recommendation> findChanges(@Param("userId") String userId,
+                                     @Param("after") long after,
+                                     @Param("afterId") String afterId,
+                                     Limit limit);
+
+    //ChangeSequence, as the write commits: this transaction's rows take their user's new position
+    @Modifying
+    @Query("""
+            update Recommendation r set r.changeSeq = (select u.changeSeq from User u where u.id = r.user.id)
+            where r.user.id in :userIds and r.changeSeq is null
+            """)
+    int stampChanges(@Param("userIds") Collection<String> userIds);
+
 }
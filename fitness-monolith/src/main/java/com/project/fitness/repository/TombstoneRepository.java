@@ -0,0 +1,47 @@
+package com.project.fitness.repository;
+
+import com.project.fitness.model.Tombstone;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone,String> {
+
+    //changes feed, keyset on (changeSeq, id); rows still to be stamped are left out. Served by idx_sync_tombstone_user_change
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            select t from Tombstone t
+            where t.userId = :userId
+              and (t.changeSeq > :after or (t.changeSeq = :after and t.id > :afterId))
+            order by t.changeSeq, t.id
+            """)
+    List<Tombstone> findChanges(@Param("userId") String userId,
+                                @Param("after") long after,
+                                @Param("afterId") String afterId,
+                                Limit limit);
+
+    //ChangeSequence, as the write commits: this transaction's rows take their user's new position
+    @Modifying
+    @Query("""
+            update Tombstone t set t.changeSeq = (select u.changeSeq from User u where u.id = t.userId)
+            where t.userId in :userIds and t.changeSeq is null
+            """)
+    int stampChanges(@Param("userIds") Collection<String> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Tombstone t where t.deletedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -2,12 +2,35 @@ package com.project.fitness.repository;
 
 
 import com.project.fitness.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User,String> {
 
     User findByEmail(String email);
-}
 
+    //keyset walk over all user ids, for jobs that process users in chunks
+    @Query("select u.id from User u where u.id > :after order by u.id")
+    List<String> findIdsAfter(@Param("after") String after, Limit limit);
+
+    //a bulk update skips @UpdateTimestamp, so the caller passes updatedAt
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password, u.updatedAt = :updatedAt where u.id = :id")
+    int updatePassword(@Param("id") String id, @Param("password") String password, @Param("updatedAt") LocalDateTime updatedAt);
+
+    //ChangeSequence: also locks the rows until the transaction ends
+    @Modifying
+    @Query("update User u set u.changeSeq = u.changeSeq + 1 where u.id in :ids")
+    int incrementChangeSeq(@Param("ids") Collection<String> ids);
+}
@@ -1,66 +1,93 @@
 package com.project.fitness.security;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    @Autowired
-    private JwtUtils jwtUtils;
+    private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+    private final Timer cachedVerifyTimer;
+    private final Timer verifyTimer;
+
+    public JwtAuthFilter(JwtUtils jwtUtils, VerifiedTokenCache verifiedTokenCache, MeterRegistry meterRegistry)
+    {
+        this.jwtUtils = jwtUtils;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.cachedVerifyTimer = verifyTimer(meterRegistry, "hit");
+        this.verifyTimer = verifyTimer(meterRegistry, "miss");
+    }
 
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        try{
-            String jwt = parseJwt(request);
-            if(jwt!=null && jwtUtils.validateJwtTOken(jwt))
+        String jwt = parseJwt(request);
+        if(jwt!=null)
+        {
+            VerifiedToken token = verify(jwt);
+            if(token!=null)
             {
-                System.out.println("TOKEN HERE : "+jwt);
-                String userId = jwtUtils.getUserIdFromToken(jwt);
-
-                Claims claims = jwtUtils.getALlClaims(jwt);
-                List<String> roles = claims.get("roles",List.class);
-                System.out.println("ROLES : "+roles);
-                List<GrantedAuthority> authorities = List.of();
-                if(roles!=null)
-                {
-                    authorities = roles
-                            .stream()
-                            .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
-                            .toList();
-                }
-
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userId,
+                        new UsernamePasswordAuthenticationToken(token.userId(),
                                 null,
-                                authorities);
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                                token.authorities());
+                authentication.setDetails(detailsSource.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
-        }catch (Exception e)
-        {
-            e.printStackTrace();
         }
 
         filterChain.doFilter(request,response);
     }
 
+    private VerifiedToken verify(String jwt)
+    {
+        long start = System.nanoTime();
+        String tokenHash = VerifiedTokenCache.hash(jwt);
+        VerifiedToken token = verifiedTokenCache.get(tokenHash);
+        if(token!=null)
+        {
+            cachedVerifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return token;
+        }
+
+        try{
+            token = jwtUtils.verify(jwt);
+        }catch (JwtException | IllegalArgumentException e)
+        {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        verifiedTokenCache.put(tokenHash,token);
+        return token;
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String cache)
+    {
+        return Timer.builder("security.jwt.verify")
+                .description("JWT verification, including the verified-token cache lookup")
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
     private String parseJwt(HttpServletRequest request)
     {
         String jwt = jwtUtils.getJwtFromHeader(request);
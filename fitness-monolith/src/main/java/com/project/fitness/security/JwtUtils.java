@@ -1,17 +1,16 @@
 package com.project.fitness.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
 import java.util.Date;
 import java.util.List;
 
@@ -22,6 +21,10 @@ public class JwtUtils {
     private String jwtSecret = "YS1zdHJpbmctc2VjcmV0LWF0LWxlYXN0LTI1Ni1iaXRzLWxvbmc=";
     private int jwtExpiration = 172800000;
 
+    //decoded once; the parser is immutable and safe to share between request threads
+    private final SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    private final JwtParser parser = Jwts.parser().verifyWith(key).build();
+
 
     //parse token from Authorization Header
     public String getJwtFromHeader(HttpServletRequest request)
@@ -42,41 +45,34 @@ public class JwtUtils {
                 .claim("roles", List.of(role))
                 .issuedAt(new Date())
                 .expiration(new Date(new Date().getTime() + jwtExpiration))
-                .signWith(key())
+                .signWith(key)
                 .compact();
     }
 
-    private Key key()
+    //verifies signature and expiry exactly once and extracts everything the filter needs
+    //throws JwtException / IllegalArgumentException for an invalid token
+    public VerifiedToken verify(String jwt)
     {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
+        Claims claims = parser.parseSignedClaims(jwt).getPayload();
 
-    public String getUserIdFromToken(String jwt)
-    {
-        return Jwts.parser().verifyWith((SecretKey) key())
-                .build().parseSignedClaims(jwt)
-                .getPayload().getSubject();
-
-    }
-
-    public boolean validateJwtTOken(String jwt) {
-        try {
-            Jwts.parser()
-                    .verifyWith((SecretKey) key())
-                    .build()
-                    .parseSignedClaims(jwt);
-            return true;
-        } catch (Exception e) {
-            return false;
+        //tokens carry bare role names (USER, ADMIN); hasRole() rules look for the ROLE_ prefix
+        List<?> roles = claims.get("roles", List.class);
+        List<GrantedAuthority> authorities = List.of();
+        if(roles!=null)
+        {
+            authorities = roles
+                    .stream()
+                    .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(authority(String.valueOf(role))))
+                    .toList();
         }
+
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(claims.getSubject(), authorities, expiration == null ? null : expiration.toInstant());
     }
 
-    public Claims getALlClaims(String jwt) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(jwt)
-                .getPayload();
+    private static String authority(String role)
+    {
+        return role.startsWith("ROLE_") ? role : "ROLE_" + role;
     }
 
 }
@@ -0,0 +1,156 @@
+package com.project.fitness.security;
+
+import com.project.fitness.exception.PasswordHashingRejectedException;
+import com.project.fitness.exception.PasswordHashingTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//runs BCrypt on a small dedicated pool so a sign-in burst can only ever occupy `threads` cores.
+//A full queue is rejected immediately (429); a task that waited past max-queue-wait is dropped
+//without hashing (503), since the client has most likely given up by then.
+@Component
+public class PasswordHashingExecutor {
+
+    private static final long HASH_ALLOWANCE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxQueueWaitNanos;
+    private final int strength;
+
+    private final Counter rejectedCounter;
+    private final Counter timedOutCounter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.security.bcrypt.strength:10}") int strength,
+                                   @Value("${app.security.hashing.threads:0}") int threads,
+                                   @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.security.hashing.max-queue-wait:500ms}") Duration maxQueueWait)
+    {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        //0 = half the cores, leaving the rest for every other endpoint
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("security.password.hashing.queue.depth", executor.getQueue(), BlockingQueue::size)
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("security.password.hashing.rejected")
+                .description("Hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        this.timedOutCounter = Counter.builder("security.password.hashing.timeouts")
+                .description("Hashing tasks dropped after waiting longer than max-queue-wait")
+                .register(meterRegistry);
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.matchesTimer = hashingTimer(meterRegistry, "matches");
+    }
+
+    //time on the hashing thread only; queue wait is visible through the depth gauge and timeouts
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation)
+    {
+        return Timer.builder("security.password.hashing")
+                .description("BCrypt hashing time")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    public String encode(String rawPassword)
+    {
+        return run(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword)
+    {
+        return run(() -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    //true when the stored hash was made with a different cost than app.security.bcrypt.strength
+    public boolean needsRehash(String encodedPassword)
+    {
+        //$2a$10$... - the cost is the two digits after the second '$'
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private <T> T run(Callable<T> hashing)
+    {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (System.nanoTime() - submittedAt > maxQueueWaitNanos) {
+                    throw new PasswordHashingTimeoutException("Password check timed out in queue");
+                }
+                return hashing.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException("Too many sign-in attempts, retry shortly");
+        }
+
+        try {
+            //queue wait plus a generous allowance for the hash itself
+            return future.get(maxQueueWaitNanos + HASH_ALLOWANCE_NANOS, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOutCounter.increment();
+            throw new PasswordHashingTimeoutException("Password check timed out");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PasswordHashingTimeoutException timeout) {
+                timedOutCounter.increment();
+                throw timeout;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingTimeoutException("Password check interrupted");
+        }
+    }
+}
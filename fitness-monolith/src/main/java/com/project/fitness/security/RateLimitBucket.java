@@ -0,0 +1,36 @@
+package com.project.fitness.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//token bucket stored as a single "theoretical arrival time" (GCRA): each request pushes it one
+//emission interval into the future, and a request is refused when that would put it more than a
+//full burst ahead of now. One CAS per request, no lock, no refill thread.
+public class RateLimitBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public RateLimitBucket(int capacity, double refillPerSecond, long nowNanos)
+    {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    //0 when the request may proceed, otherwise how long until it would be allowed
+    public long tryAcquire(long nowNanos)
+    {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.project.fitness.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//runs right after JwtAuthFilter in the security chain: authenticated requests are limited per user id
+//(the verified JWT subject), anonymous ones per client IP. Buckets live in a size-bounded Caffeine
+//cache that drops keys idle for app.rate-limit.idle-timeout.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final List<CompiledRule> rules;
+    private final Cache<String, RateLimitBucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry)
+    {
+        this.enabled = properties.isEnabled();
+        this.rules = properties.getRules().stream()
+                .map(rule -> CompiledRule.of(rule, meterRegistry))
+                .toList();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request)
+    {
+        return !enabled || rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        CompiledRule rule = match(request);
+        if(rule!=null)
+        {
+            String key = rule.name() + '|' + clientKey(request);
+            long now = System.nanoTime();
+            long waitNanos = buckets.get(key, k -> new RateLimitBucket(rule.capacity(), rule.refillPerSecond(), now))
+                    .tryAcquire(now);
+            if(waitNanos>0)
+            {
+                rule.rejected().increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request,response);
+    }
+
+    private CompiledRule match(HttpServletRequest request)
+    {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (CompiledRule rule : rules) {
+            if ((rule.methods().isEmpty() || rule.methods().contains(request.getMethod())) && rule.pattern().matches(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    //set server.forward-headers-strategy when running behind a proxy so getRemoteAddr is the real client
+    private static String clientKey(HttpServletRequest request)
+    {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException
+    {
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests\"}");
+    }
+
+    private record CompiledRule(String name, PathPattern pattern, Set<String> methods,
+                                int capacity, double refillPerSecond, Counter rejected) {
+
+        static CompiledRule of(RateLimitProperties.Rule rule, MeterRegistry meterRegistry)
+        {
+            if (rule.getCapacity() <= 0 || rule.getRefillPerSecond() <= 0) {
+                throw new IllegalArgumentException("Rate limit rule " + rule.getName()
+                        + " needs a positive capacity and refill-per-second");
+            }
+            return new CompiledRule(rule.getName(),
+                    PathPatternParser.defaultInstance.parse(rule.getPattern()),
+                    rule.getMethods().stream().map(method -> method.toUpperCase(Locale.ROOT)).collect(Collectors.toSet()),
+                    rule.getCapacity(),
+                    rule.getRefillPerSecond(),
+                    Counter.builder("http.server.requests.rate.limited")
+                            .description("Requests rejected by the rate limiter")
+                            .tag("rule", rule.getName())
+                            .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.project.fitness.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//app.rate-limit.* - rules are checked in order and the first whose pattern and method match applies
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    //upper bound on tracked buckets (user ids + IPs across all rules)
+    private long maxKeys = 100_000;
+    //a bucket nobody has touched for this long is full again anyway, so it can be dropped
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        private String name;
+        //PathPattern syntax, e.g. /api/activities/**
+        private String pattern;
+        //empty = every method
+        private List<String> methods = new ArrayList<>();
+        //burst size
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
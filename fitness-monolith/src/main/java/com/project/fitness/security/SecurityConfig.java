@@ -1,6 +1,9 @@
 package com.project.fitness.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,10 +18,12 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final JwtAuthFilter jwt;
+    private final RateLimitFilter rateLimit;
 
     @Bean
     public AuthenticationManager authenticationManager(
@@ -36,18 +41,33 @@ public class SecurityConfig {
                         auth -> auth.requestMatchers("/api/admin/**").hasRole("ADMIN")
                                 .requestMatchers("/api/users/**").permitAll()
                                 .requestMatchers("/swagger-ui.html","/swagger-ui/**","/v3/api-docs/**").permitAll()
+                                .requestMatchers("/actuator/health").permitAll()
+                                //metrics name every endpoint and its database cost - operators only
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 );
 
         http.addFilterBefore(jwt, UsernamePasswordAuthenticationFilter.class);
+        //after authentication so limits can be keyed by the verified user id
+        http.addFilterAfter(rateLimit, JwtAuthFilter.class);
         // build and return the filter
         return http.build();
     }
 
+    //only runs inside the security chain - as a plain servlet filter it would see no authentication
     @Bean
-    public PasswordEncoder passwordEncoder()
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter)
     {
-        return new BCryptPasswordEncoder();
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    //hashes are verified and produced through PasswordHashingExecutor, never on the request thread
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength)
+    {
+        return new BCryptPasswordEncoder(strength);
     }
 
 }
@@ -0,0 +1,10 @@
+package com.project.fitness.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+//result of a successful signature + expiry check, kept so repeat requests skip the crypto
+public record VerifiedToken(String userId, List<GrantedAuthority> authorities, Instant expiresAt) {
+}
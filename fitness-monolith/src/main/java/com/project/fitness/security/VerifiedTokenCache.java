@@ -0,0 +1,111 @@
+package com.project.fitness.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+//bounded cache of already verified tokens, keyed by SHA-256 of the raw token so the cache never holds bearer tokens.
+//An entry lives until the token expires or for max-ttl, whichever is sooner - a token without exp is
+//re-verified at least that often instead of being trusted forever
+@Component
+public class VerifiedTokenCache {
+
+    private final ConcurrentHashMap<String, Entry> tokens = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Duration maxTtl;
+
+    public VerifiedTokenCache(@Value("${app.security.token-cache.max-size:10000}") int maxSize,
+                              @Value("${app.security.token-cache.max-ttl:5m}") Duration maxTtl)
+    {
+        this.maxSize = maxSize;
+        this.maxTtl = maxTtl;
+    }
+
+    public VerifiedToken get(String tokenHash)
+    {
+        return get(tokenHash, Instant.now());
+    }
+
+    VerifiedToken get(String tokenHash, Instant now)
+    {
+        Entry entry = tokens.get(tokenHash);
+        if(entry == null)
+        {
+            return null;
+        }
+        if(entry.isExpired(now))
+        {
+            tokens.remove(tokenHash, entry);
+            return null;
+        }
+        return entry.token();
+    }
+
+    public void put(String tokenHash, VerifiedToken token)
+    {
+        put(tokenHash, token, Instant.now());
+    }
+
+    void put(String tokenHash, VerifiedToken token, Instant now)
+    {
+        if(maxSize <= 0)
+        {
+            return;
+        }
+        Instant cachedUntil = now.plus(maxTtl);
+        if(token.expiresAt() != null && token.expiresAt().isBefore(cachedUntil))
+        {
+            cachedUntil = token.expiresAt();
+        }
+        if(tokens.size() >= maxSize)
+        {
+            evict(now);
+        }
+        tokens.put(tokenHash, new Entry(token, cachedUntil));
+    }
+
+    public int size()
+    {
+        return tokens.size();
+    }
+
+    //drop expired entries first; if that is not enough, drop an arbitrary tenth so eviction cost is amortised
+    private void evict(Instant now)
+    {
+        tokens.values().removeIf(entry -> entry.isExpired(now));
+
+        int excess = tokens.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> keys = tokens.keySet().iterator();
+        while(excess-- > 0 && keys.hasNext())
+        {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    public static String hash(String jwt)
+    {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(VerifiedToken token, Instant cachedUntil) {
+
+        boolean isExpired(Instant now)
+        {
+            return !now.isBefore(cachedUntil);
+        }
+    }
+}
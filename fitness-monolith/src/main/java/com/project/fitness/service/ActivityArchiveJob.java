@@ -0,0 +1,158 @@
+package com.project.fitness.service;
+
+import com.project.fitness.archive.ActivityArchive;
+import com.project.fitness.archive.ArchiveSegmentWriter;
+import com.project.fitness.archive.ArchivedActivity;
+import com.project.fitness.mapper.ActivityMapper;
+import com.project.fitness.repository.ActivityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+//moves activities older than app.archive.horizon-days out of the activity table into ActivityArchive.
+//Cold rows are read in (user, startTime, id) keyset chunks and streamed into a segment; a full segment is
+//published (readable, pending), its rows are deleted from the table in id chunks and only then committed.
+//A crash anywhere in between leaves the segment pending, and the next startup finishes the deletes.
+//Recommendations are not archived: they keep the archived activity's id, which the archive still serves,
+//and RecommendationMapper reads only that id, never the missing row.
+@Service
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityArchiveJob {
+
+    //keeps each memory-mapped blob well under the 2 GB a single mapping can cover
+    private static final long MAX_BLOB_BYTES = 1L << 30;
+
+    private final ActivityRepository activityRepository;
+    private final ActivityArchive activityArchive;
+    private final ActivityMapper activityMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.archive.horizon-days:730}")
+    private int horizonDays;
+
+    @Value("${app.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.archive.segment-max-rows:4000000}")
+    private int segmentMaxRows;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile()
+    {
+        for (String segment : activityArchive.pendingSegments()) {
+            log.info("Finishing pending archive segment {}", segment);
+            removeFromTable(segment);
+        }
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 0 4 * * *}")
+    public void runNightly()
+    {
+        run();
+    }
+
+    public long run()
+    {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Activity archiving is already running");
+        }
+        try {
+            return archive();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Activity archiving failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long archive() throws IOException
+    {
+        long start = System.nanoTime();
+        LocalDateTime before = LocalDate.now().minusDays(horizonDays).atStartOfDay();
+        long archived = 0;
+
+        //"" sorts before every user id, so the first chunk starts at the first user
+        String afterUser = "";
+        LocalDateTime afterStart = before;
+        String afterId = "";
+        ArchiveSegmentWriter writer = activityArchive.newSegment();
+        try {
+            List<ArchivedActivity> chunk;
+            while (!(chunk = readChunk(before, afterUser, afterStart, afterId)).isEmpty()) {
+                for (ArchivedActivity activity : chunk) {
+                    writer.append(activity);
+                }
+                ArchivedActivity last = chunk.getLast();
+                afterUser = last.userId();
+                afterStart = last.startTime();
+                afterId = last.id();
+
+                if (writer.rows() >= segmentMaxRows || writer.blobBytes() >= MAX_BLOB_BYTES) {
+                    archived += seal(writer);
+                    writer = activityArchive.newSegment();
+                }
+            }
+            archived += seal(writer);
+        } finally {
+            writer.close();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Archived {} activities older than {} in {} ms ({} rows/s)", archived, before, elapsedMillis,
+                elapsedMillis == 0 ? archived : archived * 1000 / elapsedMillis);
+        return archived;
+    }
+
+    //mapped inside the transaction; the rows are detached once it ends
+    private List<ArchivedActivity> readChunk(LocalDateTime before, String afterUser, LocalDateTime afterStart, String afterId)
+    {
+        return transactionTemplate.execute(status -> activityRepository
+                .findArchivable(before, afterUser, afterStart, afterId, Limit.of(chunkSize))
+                .stream()
+                .map(activityMapper::toArchived)
+                .toList());
+    }
+
+    private int seal(ArchiveSegmentWriter writer) throws IOException
+    {
+        if (writer.rows() == 0) {
+            return 0;
+        }
+        activityArchive.publish(writer);
+        removeFromTable(writer.name());
+        return writer.rows();
+    }
+
+    private void removeFromTable(String segment)
+    {
+        LocalDateTime through = activityArchive.latestStart(segment);
+        AtomicLong deleted = new AtomicLong();
+        activityArchive.forEachIdChunk(segment, chunkSize, ids ->
+                deleted.addAndGet(transactionTemplate.execute(status -> activityRepository.deleteArchived(ids, through))));
+        try {
+            activityArchive.commit(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Archive segment {} committed, {} activities removed from the table", segment, deleted.get());
+    }
+}
@@ -0,0 +1,45 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.model.Activity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//opaque keyset position: the (startTime, id) of the last activity a client has seen
+public record ActivityCursor(LocalDateTime startTime, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static ActivityCursor of(Activity activity)
+    {
+        return new ActivityCursor(activity.getStartTime(), activity.getId());
+    }
+
+    public static ActivityCursor of(ActivityResponse activity)
+    {
+        return new ActivityCursor(activity.getStartTime(), activity.getId());
+    }
+
+    public String encode()
+    {
+        String raw = startTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ActivityCursor decode(String cursor)
+    {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ActivityCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
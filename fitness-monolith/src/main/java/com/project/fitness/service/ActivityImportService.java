@@ -0,0 +1,375 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityBatchItemResult;
+import com.project.fitness.dto.ActivityBatchResponse;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.imports.ImportFormat;
+import com.project.fitness.imports.ImportRowMapper;
+import com.project.fitness.imports.ImportRowReader;
+import com.project.fitness.model.ActivityImport;
+import com.project.fitness.model.ActivityImport.Status;
+import com.project.fitness.repository.ActivityImportRepository;
+import com.project.fitness.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//imports another app's export file for one user. The upload is spooled to app.imports.directory and a
+//worker streams it row by row, writing chunk-size rows per transaction through createActivities and
+//recording progress in that same transaction. Imports that were queued or running when the instance stopped
+//resume on the next startup, failed ones when asked to; either way from the last committed chunk
+@Service
+@Slf4j
+public class ActivityImportService {
+
+    private static final int ERROR_MAX_LENGTH = 2000;
+
+    private final ActivityImportRepository importRepository;
+    private final ActivityService activityService;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    //imports being processed on this instance
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    private final Path directory;
+    private final int chunkSize;
+    private final int maxQueued;
+    private final long maxBytes;
+    private final int maxErrors;
+    private final Duration failedRetention;
+
+    private final Counter importedRows;
+    private final Counter failedRows;
+
+    public ActivityImportService(ActivityImportRepository importRepository,
+                                 ActivityService activityService,
+                                 UserRepository userRepository,
+                                 ObjectMapper objectMapper,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.imports.directory:data/imports}") Path directory,
+                                 @Value("${app.imports.chunk-size:1000}") int chunkSize,
+                                 @Value("${app.imports.workers:2}") int workers,
+                                 @Value("${app.imports.max-queued:100}") int maxQueued,
+                                 @Value("${app.imports.max-size:100MB}") DataSize maxSize,
+                                 @Value("${app.imports.max-errors:100}") int maxErrors,
+                                 @Value("${app.imports.failed-retention:7d}") Duration failedRetention)
+    {
+        this.importRepository = importRepository;
+        this.activityService = activityService;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.maxQueued = maxQueued;
+        this.maxBytes = maxSize.toBytes();
+        this.maxErrors = maxErrors;
+        this.failedRetention = failedRetention;
+        //every worker holds a connection for the length of a chunk, keep them well under the pool size
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().daemon().name("activity-import-", 0).factory());
+
+        Gauge.builder("activity.imports.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Imports waiting for a worker")
+                .register(meterRegistry);
+        this.importedRows = Counter.builder("activity.imports.rows")
+                .tag("outcome", "imported")
+                .description("Rows written as activities by imports")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("activity.imports.rows")
+                .tag("outcome", "failed")
+                .description("Rows rejected by imports")
+                .register(meterRegistry);
+    }
+
+    //empty when too many imports are already waiting - the caller should back off
+    public Optional<ActivityImport> submit(String userId, ImportFormat format, InputStream body) throws IOException
+    {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        if (executor.getQueue().size() >= maxQueued) {
+            return Optional.empty();
+        }
+
+        Files.createDirectories(directory);
+        String fileName = UUID.randomUUID() + "." + format.extension();
+        Path file = directory.resolve(fileName);
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW)) {
+            spool(body, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        ActivityImport activityImport = new ActivityImport();
+        activityImport.setUserId(userId);
+        activityImport.setFormat(format);
+        activityImport.setFileName(fileName);
+        activityImport.setStatus(Status.QUEUED);
+        ActivityImport queued = importRepository.save(activityImport);
+        executor.execute(() -> run(queued.getId()));
+        return Optional.of(queued);
+    }
+
+    public Optional<ActivityImport> find(String importId, String userId)
+    {
+        return importRepository.findById(importId)
+                .filter(activityImport -> activityImport.getUserId().equals(userId));
+    }
+
+    //queues a failed import again; empty when too many imports are already waiting
+    public Optional<ActivityImport> resume(ActivityImport activityImport)
+    {
+        if (executor.getQueue().size() >= maxQueued) {
+            return Optional.empty();
+        }
+        //of two concurrent resumes only one wins the transition and queues the work
+        if (importRepository.transition(activityImport.getId(), Status.FAILED, Status.QUEUED) == 1) {
+            executor.execute(() -> run(activityImport.getId()));
+        }
+        return importRepository.findById(activityImport.getId());
+    }
+
+    //uploads are local to the instance that received them, so only imports whose file is here are picked up
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted()
+    {
+        for (ActivityImport activityImport : importRepository.findByStatusIn(List.of(Status.QUEUED, Status.RUNNING))) {
+            if (Files.exists(directory.resolve(activityImport.getFileName()))) {
+                log.info("Resuming import {} after row {}", activityImport.getId(), activityImport.getRowsRead());
+                executor.execute(() -> run(activityImport.getId()));
+            }
+        }
+    }
+
+    //a failed import keeps its upload for failed-retention, after that it can no longer be resumed
+    @Scheduled(cron = "${app.imports.cleanup-cron:0 45 4 * * *}")
+    public void expireFailed()
+    {
+        LocalDateTime before = LocalDateTime.now().minus(failedRetention);
+        for (ActivityImport activityImport : importRepository.findByStatusAndFinishedAtBefore(Status.FAILED, before)) {
+            try {
+                Files.deleteIfExists(directory.resolve(activityImport.getFileName()));
+                importRepository.transition(activityImport.getId(), Status.FAILED, Status.EXPIRED);
+            } catch (IOException e) {
+                log.warn("Could not delete upload of import {}: {}", activityImport.getId(), e.getMessage());
+            }
+        }
+    }
+
+    //workers finish the chunk in hand and leave their imports RUNNING, to be resumed on the next startup
+    @PreDestroy
+    void stop() throws InterruptedException
+    {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(String importId)
+    {
+        //a startup pickup and a resume must never both work through the same rows
+        if (!active.add(importId)) {
+            return;
+        }
+        try {
+            importRepository.findById(importId)
+                    .filter(activityImport -> activityImport.getStatus() == Status.QUEUED
+                            || activityImport.getStatus() == Status.RUNNING)
+                    .ifPresent(this::process);
+        } finally {
+            active.remove(importId);
+        }
+    }
+
+    private void process(ActivityImport queued)
+    {
+        String importId = queued.getId();
+        queued.setStatus(Status.RUNNING);
+        queued.setError(null);
+        queued.setFinishedAt(null);
+        if (queued.getStartedAt() == null) {
+            queued.setStartedAt(LocalDateTime.now());
+        }
+        ActivityImport activityImport = importRepository.save(queued);
+
+        Path file = directory.resolve(activityImport.getFileName());
+        try (ImportRowReader reader = activityImport.getFormat().open(
+                new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), 1 << 16),
+                objectMapper)) {
+            skip(reader, activityImport.getRowsRead());
+            ImportChunk chunk;
+            do {
+                if (stopping) {
+                    log.info("Import {} stopped after row {}", importId, activityImport.getRowsRead());
+                    return;
+                }
+                long start = System.nanoTime();
+                chunk = readChunk(reader, activityImport.getRowsRead());
+                if (chunk.rows() > 0) {
+                    activityImport = commit(activityImport, chunk, start);
+                }
+            } while (!chunk.last());
+
+            activityImport.setStatus(Status.COMPLETED);
+            activityImport.setFinishedAt(LocalDateTime.now());
+            activityImport = importRepository.save(activityImport);
+            Files.deleteIfExists(file);
+            double seconds = Math.max(activityImport.getProcessingMillis() / 1000.0, 0.001);
+            log.info("Import {}: {} rows, {} imported, {} failed in {} ms ({} rows/sec)",
+                    importId, activityImport.getRowsRead(), activityImport.getRowsImported(),
+                    activityImport.getRowsFailed(), activityImport.getProcessingMillis(),
+                    String.format("%.0f", activityImport.getRowsRead() / seconds));
+        } catch (IOException | RuntimeException e) {
+            if (stopping) {
+                //the chunk in flight rolled back and is read again on the next startup
+                return;
+            }
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            log.warn("Import {} failed: {}", importId, message);
+            //reloaded, the copy in hand may already count the chunk that failed to commit
+            importRepository.findById(importId).ifPresent(failed -> {
+                failed.setStatus(Status.FAILED);
+                failed.setError(message.length() > ERROR_MAX_LENGTH ? message.substring(0, ERROR_MAX_LENGTH) : message);
+                failed.setFinishedAt(LocalDateTime.now());
+                importRepository.save(failed);
+            });
+        }
+    }
+
+    //rows up to chunk-size; a row the reader or mapper rejects still counts, so rowsRead stays a file position
+    private ImportChunk readChunk(ImportRowReader reader, long rowsBefore) throws IOException
+    {
+        List<ActivityRequest> requests = new ArrayList<>(chunkSize);
+        List<Long> rowNumbers = new ArrayList<>(chunkSize);
+        List<RowError> errors = new ArrayList<>();
+        int rows = 0;
+        while (rows < chunkSize) {
+            long rowNumber = rowsBefore + rows + 1;
+            try {
+                Map<String, Object> row = reader.next();
+                if (row == null) {
+                    return new ImportChunk(requests, rowNumbers, errors, rows, true);
+                }
+                requests.add(ImportRowMapper.toRequest(row));
+                rowNumbers.add(rowNumber);
+            } catch (IllegalArgumentException e) {
+                errors.add(new RowError(rowNumber, e.getMessage()));
+            }
+            rows++;
+        }
+        return new ImportChunk(requests, rowNumbers, errors, rows, false);
+    }
+
+    //the activities and the progress that accounts for them commit together
+    private ActivityImport commit(ActivityImport activityImport, ImportChunk chunk, long startNanos)
+    {
+        long importedBefore = activityImport.getRowsImported();
+        ActivityImport saved = transactionTemplate.execute(status -> {
+            List<RowError> errors = new ArrayList<>(chunk.errors());
+            int imported = 0;
+            if (!chunk.requests().isEmpty()) {
+                ActivityBatchResponse batch = activityService.createActivities(chunk.requests(), activityImport.getUserId());
+                imported = batch.getCreated();
+                for (ActivityBatchItemResult result : batch.getResults()) {
+                    if (result.getStatus() == ActivityBatchItemResult.Status.REJECTED) {
+                        errors.add(new RowError(chunk.rowNumbers().get(result.getIndex()), result.getError()));
+                    }
+                }
+            }
+            errors.sort(Comparator.comparingLong(RowError::row));
+            List<String> kept = activityImport.getErrors() == null ? new ArrayList<>() : new ArrayList<>(activityImport.getErrors());
+            for (RowError error : errors) {
+                if (kept.size() >= maxErrors) {
+                    break;
+                }
+                kept.add("row " + error.row() + ": " + error.message());
+            }
+            activityImport.setErrors(kept);
+            activityImport.setRowsRead(activityImport.getRowsRead() + chunk.rows());
+            activityImport.setRowsImported(activityImport.getRowsImported() + imported);
+            activityImport.setRowsFailed(activityImport.getRowsFailed() + chunk.rows() - imported);
+            activityImport.setProcessingMillis(activityImport.getProcessingMillis() + (System.nanoTime() - startNanos) / 1_000_000);
+            return importRepository.save(activityImport);
+        });
+        long imported = saved.getRowsImported() - importedBefore;
+        importedRows.increment(imported);
+        failedRows.increment(chunk.rows() - imported);
+        return saved;
+    }
+
+    //rows already accounted for by committed chunks
+    private static void skip(ImportRowReader reader, long rows) throws IOException
+    {
+        for (long row = 0; row < rows; row++) {
+            try {
+                if (reader.next() == null) {
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                //rejected the first time round as well, and counted then
+            }
+        }
+    }
+
+    private void spool(InputStream body, OutputStream out) throws IOException
+    {
+        byte[] buffer = new byte[1 << 16];
+        long total = 0;
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            total += read;
+            if (total > maxBytes) {
+                throw new IllegalArgumentException("Import is larger than app.imports.max-size (" + maxBytes + " bytes)");
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private record ImportChunk(List<ActivityRequest> requests, List<Long> rowNumbers, List<RowError> errors,
+                               int rows, boolean last) {
+    }
+
+    private record RowError(long row, String message) {
+    }
+}
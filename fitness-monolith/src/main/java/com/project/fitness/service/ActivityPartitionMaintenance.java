@@ -0,0 +1,131 @@
+package com.project.fitness.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//keeps the monthly partitions of activity (see V2__partition_activity_by_month.sql) ahead of the calendar and
+//detaches months past the retention period. Detached months stay in place as activity_archive_YYYY_MM tables
+//for archiving. PostgreSQL only, so tests on H2 leave app.activities.partitions.enabled off
+@Service
+@ConditionalOnProperty(name = "app.activities.partitions.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityPartitionMaintenance {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("activity_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.activities.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    //0 keeps every month attached
+    @Value("${app.activities.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.activities.partitions.cron:0 30 2 * * *}")
+    public void maintain()
+    {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Set<YearMonth> attached = attachedMonths();
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = current.plusMonths(i);
+                if (!attached.contains(month)) {
+                    create(month);
+                }
+            }
+            if (retentionMonths > 0) {
+                YearMonth oldestKept = current.minusMonths(retentionMonths);
+                attached.stream()
+                        .filter(month -> month.isBefore(oldestKept))
+                        .forEach(this::detach);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Set<YearMonth> attachedMonths()
+    {
+        List<String> names = jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = 'activity'::regclass
+                """, String.class);
+        Set<YearMonth> months = new TreeSet<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return months;
+    }
+
+    //rows for the month may already sit in activity_default (the default partition blocks a plain
+    //"partition of" create then), so the table is built standalone, those rows are moved in and it is attached
+    private void create(YearMonth month)
+    {
+        String table = "activity_p" + month.format(SUFFIX);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("create table " + table + " (like activity including defaults)");
+                int moved = jdbcTemplate.update("""
+                        with moved as (
+                            delete from activity_default where start_time >= ?::timestamp and start_time < ?::timestamp returning *
+                        )
+                        insert into %s select * from moved
+                        """.formatted(table), from, to);
+                jdbcTemplate.execute("alter table activity attach partition " + table
+                        + " for values from ('" + from + "') to ('" + to + "')");
+                log.info("Created activity partition {} ({} rows moved from activity_default)", table, moved);
+            });
+        } catch (DataAccessException e) {
+            //another instance may have created it first; the next run retries anything still missing
+            log.warn("Could not create activity partition {}: {}", table, e.getMessage());
+        }
+    }
+
+    private void detach(YearMonth month)
+    {
+        String table = "activity_p" + month.format(SUFFIX);
+        String archive = "activity_archive_" + month.format(SUFFIX);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("alter table activity detach partition " + table);
+                jdbcTemplate.execute("alter table " + table + " rename to " + archive);
+            });
+            log.info("Detached activity partition {} as {}", table, archive);
+        } catch (DataAccessException e) {
+            log.warn("Could not detach activity partition {}: {}", table, e.getMessage());
+        }
+    }
+}
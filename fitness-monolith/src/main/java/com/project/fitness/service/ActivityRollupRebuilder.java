@@ -0,0 +1,125 @@
+package com.project.fitness.service;
+
+import com.project.fitness.archive.ActivityArchive;
+import com.project.fitness.dto.RollupRebuildResponse;
+import com.project.fitness.model.ActivityRollup;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.ActivityRollupRepository;
+import com.project.fitness.repository.DailyActivityTotals;
+import com.project.fitness.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+//recomputes every rollup from the raw activity table and the activity archive; users are processed in chunks on a fixed pool,
+//each chunk aggregating per day in the database and folding days into weeks/months in memory. A chunk replaces its users'
+//rollups in one transaction, so readers see either the old rows or the rebuilt ones, and a failed rebuild leaves every
+//chunk it did not finish as it was. Activities written while a rebuild runs may be counted twice or missed, so run it
+//while writes are quiet.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityRollupRebuilder {
+
+    private final UserRepository userRepository;
+    private final ActivityRepository activityRepository;
+    private final ActivityRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ActivityArchive activityArchive;
+
+    @Value("${app.rollups.rebuild.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.rollups.rebuild.parallelism:4}")
+    private int parallelism;
+
+    public RollupRebuildResponse rebuild()
+    {
+        long start = System.nanoTime();
+
+        long users = 0;
+        long rollups = 0;
+        List<Future<Integer>> chunks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            String after = "";
+            List<String> userIds;
+            while (!(userIds = userRepository.findIdsAfter(after, Limit.of(chunkSize))).isEmpty()) {
+                List<String> chunk = userIds;
+                chunks.add(executor.submit(() -> transactionTemplate.execute(status -> rebuildChunk(chunk))));
+                users += chunk.size();
+                after = chunk.getLast();
+            }
+            for (Future<Integer> chunk : chunks) {
+                rollups += chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rollup rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rollup rebuild failed", e.getCause());
+        }
+        //rows of users that no longer exist were not replaced by any chunk
+        int orphaned = transactionTemplate.execute(status -> rollupRepository.deleteWithoutUser());
+        if (orphaned > 0) {
+            log.info("Removed {} rollups of deleted users", orphaned);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Rebuilt {} rollups for {} users in {} ms", rollups, users, elapsedMillis);
+        return new RollupRebuildResponse(users, rollups, elapsedMillis);
+    }
+
+    private int rebuildChunk(List<String> userIds)
+    {
+        rollupRepository.deleteByUserIds(userIds);
+        Map<String, ActivityRollup> rollups = new HashMap<>();
+        //activities moved to the archive are no longer in the table but still count
+        List<DailyActivityTotals> days = Stream.concat(
+                activityRepository.aggregateDailyTotals(userIds).stream(),
+                activityArchive.dailyTotals(userIds).stream()).toList();
+        for (DailyActivityTotals day : days) {
+            for (RollupPeriod period : RollupPeriod.values()) {
+                LocalDate bucketStart = period.bucketStart(day.day());
+                String key = day.userId() + '|' + period + '|' + bucketStart + '|' + day.type();
+                ActivityRollup rollup = rollups.computeIfAbsent(key, k -> {
+                    ActivityRollup empty = new ActivityRollup();
+                    empty.setUserId(day.userId());
+                    empty.setPeriod(period);
+                    empty.setBucketStart(bucketStart);
+                    empty.setActivityType(day.type());
+                    return empty;
+                });
+                rollup.setActivityCount(rollup.getActivityCount() + orZero(day.count()));
+                rollup.setTotalDuration(rollup.getTotalDuration() + orZero(day.totalDuration()));
+                rollup.setTotalCalories(rollup.getTotalCalories() + orZero(day.totalCalories()));
+                rollup.setMaxDuration(Math.max(rollup.getMaxDuration(), day.maxDuration() == null ? 0 : day.maxDuration()));
+                rollup.setMaxCalories(Math.max(rollup.getMaxCalories(), day.maxCalories() == null ? 0 : day.maxCalories()));
+            }
+        }
+        //new entities with generated ids go out as JDBC batches
+        rollups.values().forEach(entityManager::persist);
+        return rollups.size();
+    }
+
+    private static long orZero(Long value)
+    {
+        return value == null ? 0 : value;
+    }
+}
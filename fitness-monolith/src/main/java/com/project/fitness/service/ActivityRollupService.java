@@ -0,0 +1,134 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityStatsResponse;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityRollup;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.repository.ActivityRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class ActivityRollupService {
+
+    private final ActivityRollupRepository rollupRepository;
+
+    @Value("${app.rollups.default-buckets:12}")
+    private int defaultBuckets;
+
+    //folds the new activities into their DAY/WEEK/MONTH buckets; runs in the caller's transaction so
+    //the rollups commit or roll back together with the activity rows
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String userId, Collection<Activity> activities)
+    {
+        Map<BucketKey, Delta> deltas = new LinkedHashMap<>();
+        for (Activity activity : activities) {
+            if (activity.getStartTime() == null || activity.getType() == null) {
+                continue;
+            }
+            LocalDate day = activity.getStartTime().toLocalDate();
+            for (RollupPeriod period : RollupPeriod.values()) {
+                deltas.computeIfAbsent(new BucketKey(period, period.bucketStart(day), activity.getType()), key -> new Delta())
+                        .add(activity);
+            }
+        }
+        deltas.forEach((key, delta) -> apply(userId, key, delta));
+    }
+
+    //takes deleted activities back out of their buckets. Maxima cannot be undone by a delta, so they stay
+    //as an upper bound until the next rebuild
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void retract(String userId, Collection<Activity> activities)
+    {
+        Map<BucketKey, Delta> deltas = new LinkedHashMap<>();
+        for (Activity activity : activities) {
+            if (activity.getStartTime() == null || activity.getType() == null) {
+                continue;
+            }
+            LocalDate day = activity.getStartTime().toLocalDate();
+            for (RollupPeriod period : RollupPeriod.values()) {
+                deltas.computeIfAbsent(new BucketKey(period, period.bucketStart(day), activity.getType()), key -> new Delta())
+                        .subtract(activity);
+            }
+        }
+        deltas.forEach((key, delta) -> increment(userId, key, delta));
+    }
+
+    public List<ActivityStatsResponse> getStats(String userId, RollupPeriod period, LocalDate from, LocalDate to, ActivityType type)
+    {
+        LocalDate end = period.bucketStart(to == null ? LocalDate.now() : to);
+        LocalDate start = from == null ? period.minus(end, defaultBuckets - 1) : period.bucketStart(from);
+
+        List<ActivityRollup> rollups = type == null
+                ? rollupRepository.findByUserIdAndPeriodAndBucketStartBetweenOrderByBucketStartAscActivityTypeAsc(userId, period, start, end)
+                : rollupRepository.findByUserIdAndPeriodAndActivityTypeAndBucketStartBetweenOrderByBucketStartAsc(userId, period, type, start, end);
+
+        return rollups.stream()
+                .map(rollup -> new ActivityStatsResponse(
+                        rollup.getPeriod(),
+                        rollup.getBucketStart(),
+                        rollup.getActivityType(),
+                        rollup.getActivityCount(),
+                        rollup.getTotalDuration(),
+                        rollup.getTotalCalories(),
+                        rollup.getMaxDuration(),
+                        rollup.getMaxCalories()))
+                .toList();
+    }
+
+    private void apply(String userId, BucketKey key, Delta delta)
+    {
+        if (increment(userId, key, delta) > 0) {
+            return;
+        }
+        rollupRepository.insertEmpty(UUID.randomUUID().toString(), userId, key.period().name(), key.bucketStart(), key.type().name());
+        increment(userId, key, delta);
+    }
+
+    private int increment(String userId, BucketKey key, Delta delta)
+    {
+        return rollupRepository.increment(userId, key.period(), key.bucketStart(), key.type(),
+                delta.count, delta.duration, delta.calories, delta.maxDuration, delta.maxCalories);
+    }
+
+    private record BucketKey(RollupPeriod period, LocalDate bucketStart, ActivityType type) {
+    }
+
+    private static final class Delta {
+        private long count;
+        private long duration;
+        private long calories;
+        private int maxDuration;
+        private int maxCalories;
+
+        private void add(Activity activity)
+        {
+            int activityDuration = activity.getDuration() == null ? 0 : activity.getDuration();
+            int activityCalories = activity.getCaloriesBurned() == null ? 0 : activity.getCaloriesBurned();
+            count++;
+            duration += activityDuration;
+            calories += activityCalories;
+            maxDuration = Math.max(maxDuration, activityDuration);
+            maxCalories = Math.max(maxCalories, activityCalories);
+        }
+
+        private void subtract(Activity activity)
+        {
+            count--;
+            duration -= activity.getDuration() == null ? 0 : activity.getDuration();
+            calories -= activity.getCaloriesBurned() == null ? 0 : activity.getCaloriesBurned();
+        }
+    }
+}
@@ -1,43 +1,421 @@
 package com.project.fitness.service;
 
 
+import com.project.fitness.archive.ActivityArchive;
+import com.project.fitness.config.CacheConfig;
+import com.project.fitness.archive.ArchivedActivity;
+import com.project.fitness.datasource.ReadYourWrites;
+import com.project.fitness.dto.ActivityBatchItemResult;
+import com.project.fitness.dto.ActivityBatchResponse;
+import com.project.fitness.dto.ActivityPage;
 import com.project.fitness.dto.ActivityRequest;
 import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.ActivityStatsResponse;
+import com.project.fitness.dto.MetricSummaryResponse;
+import com.project.fitness.leaderboard.Leaderboards;
+import com.project.fitness.mapper.ActivityMapper;
+import com.project.fitness.mapper.MappingMetrics;
 import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.model.SyncEntity;
+import com.project.fitness.model.Tombstone;
 import com.project.fitness.model.User;
+import com.project.fitness.outbox.Outbox;
 import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.ActivitySummary;
+import com.project.fitness.repository.RecommendationRepository;
+import com.project.fitness.repository.TombstoneRepository;
 import com.project.fitness.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 
 @Service
 @RequiredArgsConstructor
 public class ActivityService {
 
+    private static final Comparator<ActivityResponse> NEWEST_FIRST = Comparator
+            .comparing(ActivityResponse::getStartTime)
+            .thenComparing(ActivityResponse::getId)
+            .reversed();
+
     private final ActivityRepository activityRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final ActivityMapper activityMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ActivityRollupService rollupService;
+    private final MappingMetrics mappingMetrics;
+    private final ReadYourWrites readYourWrites;
+    private final ActivityArchive activityArchive;
+    private final Leaderboards leaderboards;
+    private final RecommendationRepository recommendationRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final CacheManager cacheManager;
+    private final DataVersions dataVersions;
+    private final Outbox outbox;
+    private final ChangeSequence changeSequence;
+
+    //keep in step with hibernate.jdbc.batch_size so every chunk goes out as one JDBC batch
+    @Value("${app.activities.batch.chunk-size:50}")
+    private int batchChunkSize;
+
+    @Value("${app.activities.list-cap:1000}")
+    private int listCap;
+
+    @Value("${app.activities.page.max-size:200}")
+    private int maxPageSize;
 
+    @Transactional
     public ActivityResponse createActivity(ActivityRequest activityRequest, String userId) {
 
         User user = userRepository.findById(userId).orElse(null);
-        Activity activity = modelMapper.map(activityRequest,Activity.class);
+        Activity activity = mappingMetrics.record("activity.request", () -> activityMapper.toEntity(activityRequest));
         activity.setUser(user);
-        ActivityResponse activityResponse = modelMapper.map(activityRepository.save(activity),ActivityResponse.class);
+        if(activity.getStartTime() == null)
+        {
+            //keyset pagination orders by startTime, an activity logged without one started now
+            activity.setStartTime(LocalDateTime.now());
+        }
+        Activity saved = activityRepository.save(activity);
+        changeSequence.written(userId, ChangeSequence.Source.ACTIVITY);
+        outbox.activityCreated(saved);
+        rollupService.record(userId, List.of(saved));
+        leaderboards.record(userId, List.of(saved));
+        readYourWrites.recordWrite(userId);
+        afterCommit(() -> dataVersions.userChanged(userId));
+        ActivityResponse activityResponse = mappingMetrics.record("activity", () -> activityMapper.toResponse(saved));
         activityResponse.setUserId(userId);
         return activityResponse;
 
     }
 
-    public List<ActivityResponse> getAllActivities(String userId) {
+    @Transactional
+    public ActivityBatchResponse createActivities(List<ActivityRequest> activityRequests, String userId) {
+
+        User user = userRepository.findById(userId).orElseThrow(()-> new RuntimeException("User Not found"));
+
+        //validate everything up front so rejected items never reach the batch
+        ActivityBatchItemResult[] results = new ActivityBatchItemResult[activityRequests.size()];
+        List<Integer> accepted = new ArrayList<>(activityRequests.size());
+        for (int i = 0; i < activityRequests.size(); i++) {
+            String error = validate(activityRequests.get(i));
+            if (error != null) {
+                results[i] = ActivityBatchItemResult.rejected(i, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        List<Activity> created = new ArrayList<>(accepted.size());
+        List<Activity> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        for (int index : accepted) {
+            Activity activity = activityMapper.toEntity(activityRequests.get(index));
+            activity.setUser(user);
+            entityManager.persist(activity);
+            //persisted before the flush so each chunk's events go out as one batch too
+            outbox.activityCreated(activity);
+            created.add(activity);
+            chunk.add(activity);
+            chunkIndexes.add(index);
+
+            if (chunk.size() == batchChunkSize) {
+                flushChunk(chunk, chunkIndexes, results, user);
+            }
+        }
+        flushChunk(chunk, chunkIndexes, results, user);
+        if (!created.isEmpty()) {
+            changeSequence.written(userId, ChangeSequence.Source.ACTIVITY);
+        }
+        //one upsert per touched bucket for the whole batch rather than per activity
+        rollupService.record(userId, created);
+        leaderboards.record(userId, created);
+        readYourWrites.recordWrite(userId);
+        afterCommit(() -> dataVersions.userChanged(userId));
+
+        return new ActivityBatchResponse(created.size(), results.length - created.size(), List.of(results));
+    }
+
+    //removes the activity and its recommendations, leaving tombstones for the changes feed. False when the
+    //activity does not exist or belongs to someone else; archived activities are not deletable here
+    @Transactional
+    public boolean deleteActivity(String activityId, String userId) {
+
+        Activity activity = activityRepository.findById(activityId)
+                .filter(found -> found.getUser() != null && userId.equals(found.getUser().getId()))
+                .orElse(null);
+        if (activity == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Tombstone> tombstones = new ArrayList<>();
+        tombstones.add(new Tombstone(null, userId, SyncEntity.ACTIVITY, activityId, now, null));
+        for (String recommendationId : recommendationRepository.findIdsByActivityId(activityId)) {
+            tombstones.add(new Tombstone(null, userId, SyncEntity.RECOMMENDATION, recommendationId, now, null));
+        }
+        tombstoneRepository.saveAll(tombstones);
+        changeSequence.written(userId, ChangeSequence.Source.TOMBSTONE);
+        outbox.activityDeleted(activity);
+        recommendationRepository.deleteByActivityIdInBulk(activityId);
+        activityRepository.deleteInBulk(activityId);
+        rollupService.retract(userId, List.of(activity));
+        leaderboards.retract(userId, List.of(activity));
+        readYourWrites.recordWrite(userId);
+
+        //caches before versions, so nobody gets the new version with a cached pre-delete list
+        afterCommit(() -> {
+            evict(CacheConfig.USER_RECOMMENDATIONS, userId);
+            evict(CacheConfig.ACTIVITY_RECOMMENDATIONS, activityId);
+            dataVersions.userChanged(userId);
+            dataVersions.activityChanged(activityId);
+        });
+        return true;
+    }
+
+    //newest activities only, capped at app.activities.list-cap - use getActivityPage for the full history.
+    //Read-only transactions are served by the read replica when one is configured
+    @Transactional(readOnly = true)
+    public List<ActivityResponse> getAllActivities(String userId, boolean includeMetrics) {
+
+        List<ActivityResponse> responses = includeMetrics
+                ? map("activity.list", activityRepository.findByUserIdOrderByStartTimeDescIdDesc(userId, Limit.of(listCap)))
+                : mapSummaries(activityRepository.findSummariesByUserId(userId, Limit.of(listCap)));
+        if (activityArchive.isEmpty()) {
+            return responses;
+        }
+        return mergeArchived(responses, activityArchive.history(userId, null, null, null, null, null, listCap), listCap, includeMetrics);
+    }
+
+    @Transactional(readOnly = true)
+    public ActivityPage getActivityPage(String userId, String cursor, int size,
+                                        LocalDateTime from, LocalDateTime to, ActivityType type, boolean includeMetrics) {
+
+        int pageSize = Math.clamp(size, 1, maxPageSize);
+        ActivityCursor after = cursor == null || cursor.isBlank() ? null : ActivityCursor.decode(cursor);
+        LocalDateTime afterStartTime = after == null ? null : after.startTime();
+        String afterId = after == null ? null : after.id();
+
+        //one extra row tells us whether another page exists without a count query
+        List<ActivityResponse> responses = includeMetrics
+                ? map("activity.page", activityRepository.findPage(userId, from, to, type, afterStartTime, afterId, pageSize + 1))
+                : mapSummaries(activityRepository.findSummaryPage(userId, from, to, type, afterStartTime, afterId, pageSize + 1));
+        if (!activityArchive.isEmpty()) {
+            responses = mergeArchived(responses, activityArchive.history(userId, from, to, type,
+                    afterStartTime, afterId, pageSize + 1), pageSize + 1, includeMetrics);
+        }
+        return toPage(responses, pageSize);
+    }
+
+    //activities whose promoted metric lies in [min, max], newest first. Served from the typed column and its
+    //index, so archived activities (which have no typed columns) are not searched
+    @Transactional(readOnly = true)
+    public ActivityPage searchByMetric(String userId, PromotedMetric metric, Double min, Double max,
+                                       ActivityType type, String cursor, int size) {
+
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException("min must not be greater than max");
+        }
+        int pageSize = Math.clamp(size, 1, maxPageSize);
+        ActivityCursor after = cursor == null || cursor.isBlank() ? null : ActivityCursor.decode(cursor);
+        List<Activity> activityList = activityRepository.findByMetric(userId, metric, min, max, type,
+                after == null ? null : after.startTime(),
+                after == null ? null : after.id(),
+                pageSize + 1);
+        return toPage(map("activity.metric-search", activityList), pageSize);
+    }
+
+    //count, average and range of a promoted metric per activity type, aggregated in the database
+    @Transactional(readOnly = true)
+    public List<MetricSummaryResponse> getMetricSummary(String userId, PromotedMetric metric,
+                                                        LocalDateTime from, LocalDateTime to) {
+        return activityRepository.summarizeMetric(userId, metric, from, to).stream()
+                .map(totals -> new MetricSummaryResponse(metric, totals.type(), totals.count(),
+                        totals.average(), totals.min(), totals.max()))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ActivityStatsResponse> getStats(String userId, RollupPeriod period,
+                                                LocalDate from, LocalDate to, ActivityType type) {
+        return rollupService.getStats(userId, period, from, to, type);
+    }
+
+    //writes one JSON object per line as rows arrive; each row is detached once written so the
+    //persistence context never holds more than the row in flight. Archived activities are merged in
+    //start time order from the archive's own oldest-first iterator
+    @Transactional(readOnly = true)
+    public long exportActivities(String userId, OutputStream out) throws IOException {
+
+        long count = 0;
+        try (Stream<Activity> activities = activityRepository.streamByUserId(userId)) {
+            Iterator<Activity> live = activities.iterator();
+            Iterator<ArchivedActivity> archived = activityArchive.isEmpty()
+                    ? Collections.emptyIterator()
+                    : activityArchive.oldestFirst(userId);
+            Activity nextLive = next(live);
+            ArchivedActivity nextArchived = next(archived);
+            while (nextLive != null || nextArchived != null) {
+                ActivityResponse activityResponse;
+                if (nextArchived == null || (nextLive != null && compare(nextLive, nextArchived) <= 0)) {
+                    if (nextArchived != null && nextArchived.id().equals(nextLive.getId())) {
+                        //archived but not yet deleted from the table
+                        nextArchived = next(archived);
+                    }
+                    activityResponse = activityMapper.toResponse(nextLive);
+                    entityManager.detach(nextLive);
+                    nextLive = next(live);
+                } else {
+                    activityResponse = activityMapper.toResponse(nextArchived);
+                    nextArchived = next(archived);
+                }
+                out.write(objectMapper.writeValueAsBytes(activityResponse));
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private List<ActivityResponse> map(String metricName, List<Activity> activityList)
+    {
+        return mappingMetrics.record(metricName, () -> activityList.stream()
+                .map(activityMapper::toResponse)
+                .toList());
+    }
+
+    private List<ActivityResponse> mapSummaries(List<ActivitySummary> summaries)
+    {
+        return mappingMetrics.record("activity.summary", () -> summaries.stream()
+                .map(activityMapper::toResponse)
+                .toList());
+    }
+
+    private static ActivityPage toPage(List<ActivityResponse> responses, int pageSize)
+    {
+        boolean hasMore = responses.size() > pageSize;
+        List<ActivityResponse> page = hasMore ? responses.subList(0, pageSize) : responses;
+        String nextCursor = hasMore ? ActivityCursor.of(page.getLast()).encode() : null;
+        return new ActivityPage(page, nextCursor);
+    }
 
-        List<Activity> activityList = activityRepository.findByUserId(userId);
-        return activityList.stream()
-                .map(activity -> modelMapper.map(activity,ActivityResponse.class))
+    //both lists newest first; rows of a segment that is still pending are in both and kept once
+    private List<ActivityResponse> mergeArchived(List<ActivityResponse> live, List<ArchivedActivity> archived,
+                                                 int limit, boolean includeMetrics)
+    {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<String, ActivityResponse> merged = new LinkedHashMap<>();
+        live.forEach(activity -> merged.put(activity.getId(), activity));
+        archived.forEach(activity -> merged.computeIfAbsent(activity.id(), id -> {
+            ActivityResponse response = activityMapper.toResponse(activity);
+            if (!includeMetrics) {
+                response.setAdditionalMetrics(null);
+            }
+            return response;
+        }));
+        return merged.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
                 .toList();
     }
+
+    private static int compare(Activity live, ArchivedActivity archived)
+    {
+        int byStart = live.getStartTime().compareTo(archived.startTime());
+        return byStart != 0 ? byStart : live.getId().compareTo(archived.id());
+    }
+
+    //versions move only once the write is visible, or a reader could tag pre-commit data with the new version
+    private static void afterCommit(Runnable action)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit()
+            {
+                action.run();
+            }
+        });
+    }
+
+    private void evict(String cacheName, String key)
+    {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private static <T> T next(Iterator<T> iterator)
+    {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void flushChunk(List<Activity> chunk, List<Integer> chunkIndexes,
+                            ActivityBatchItemResult[] results, User user)
+    {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (int i = 0; i < chunk.size(); i++) {
+            ActivityResponse activityResponse = activityMapper.toResponse(chunk.get(i));
+            activityResponse.setUserId(user.getId());
+            results[chunkIndexes.get(i)] = ActivityBatchItemResult.created(chunkIndexes.get(i), activityResponse);
+        }
+        //detached user is fine here, the next chunk only needs its id for the foreign key
+        entityManager.clear();
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private String validate(ActivityRequest activityRequest)
+    {
+        if (activityRequest == null) {
+            return "Activity is required";
+        }
+        if (activityRequest.getType() == null) {
+            return "Activity type is required";
+        }
+        if (activityRequest.getStartTime() == null) {
+            return "Start time is required";
+        }
+        if (activityRequest.getDuration() != null && activityRequest.getDuration() < 0) {
+            return "Duration must not be negative";
+        }
+        if (activityRequest.getCaloriesBurned() != null && activityRequest.getCaloriesBurned() < 0) {
+            return "Calories burned must not be negative";
+        }
+        return null;
+    }
 }
@@ -0,0 +1,38 @@
+package com.project.fitness.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//opaque changes-feed position: the (changeSeq, id) of the last change a client has applied, and asOf, a time
+//no later than any change after it. asOf only decides whether the cursor has outlived the tombstones
+public record ChangeCursor(long changeSeq, String id, LocalDateTime asOf) {
+
+    //before any change; rows that predate the sequence are at 0 and "" sorts below every id
+    public static final ChangeCursor START = new ChangeCursor(0, "", LocalDateTime.of(1970, 1, 1, 0, 0));
+
+    private static final char SEPARATOR = '|';
+
+    public String encode()
+    {
+        String raw = Long.toString(changeSeq) + SEPARATOR + asOf + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String cursor)
+    {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = first < 0 ? -1 : raw.indexOf(SEPARATOR, first + 1);
+            if (second < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ChangeCursor(Long.parseLong(raw.substring(0, first)), raw.substring(second + 1),
+                    LocalDateTime.parse(raw.substring(first + 1, second)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
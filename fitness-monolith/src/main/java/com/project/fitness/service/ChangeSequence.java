@@ -0,0 +1,83 @@
+package com.project.fitness.service;
+
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.RecommendationRepository;
+import com.project.fitness.repository.TombstoneRepository;
+import com.project.fitness.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+//positions in the changes feed. Activity, recommendation and tombstone rows are inserted with a null
+//change_seq; just before the transaction commits it bumps fitness_user.change_seq for each user it wrote for
+//and stamps those rows with the new value. The bump locks the user's row until the commit, so the next
+//writer for that user stamps only after this one has committed: once a position is visible, every lower
+//one of the same user is too, and a cursor can never pass a write that is still to commit. The lock covers
+//the stamp and the commit only, so a user's transactions still overlap for everything before that.
+@Service
+@RequiredArgsConstructor
+public class ChangeSequence {
+
+    public enum Source {
+        ACTIVITY,
+        RECOMMENDATION,
+        TOMBSTONE
+    }
+
+    private final UserRepository userRepository;
+    private final ActivityRepository activityRepository;
+    private final RecommendationRepository recommendationRepository;
+    private final TombstoneRepository tombstoneRepository;
+
+    //call from the write transaction, after or before its rows are saved
+    public void written(String userId, Source source)
+    {
+        written(Set.of(userId), source);
+    }
+
+    public void written(Collection<String> userIds, Source source)
+    {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Changes can only be recorded inside a transaction");
+        }
+        Pending pending = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(Pending.class::isInstance)
+                .map(Pending.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    Pending created = new Pending();
+                    TransactionSynchronizationManager.registerSynchronization(created);
+                    return created;
+                });
+        pending.userIds.addAll(userIds);
+        pending.sources.add(source);
+    }
+
+    //one transaction's users and sources; REQUIRES_NEW transactions get their own
+    private class Pending implements TransactionSynchronization {
+
+        private final Set<String> userIds = new LinkedHashSet<>();
+        private final Set<Source> sources = EnumSet.noneOf(Source.class);
+
+        //a transaction that writes for many users locks their rows in one statement; batch chunks cover
+        //disjoint users and every other writer holds at most one user row, so they cannot deadlock
+        @Override
+        public void beforeCommit(boolean readOnly)
+        {
+            userRepository.incrementChangeSeq(userIds);
+            for (Source source : sources) {
+                switch (source) {
+                    case ACTIVITY -> activityRepository.stampChanges(userIds);
+                    case RECOMMENDATION -> recommendationRepository.stampChanges(userIds);
+                    case TOMBSTONE -> tombstoneRepository.stampChanges(userIds);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.project.fitness.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//in-memory versions of each user's and each activity's data, behind the ETags of the read endpoints.
+//Writers bump a key once their transaction has committed and any cached copy is evicted; readers take the
+//version before they read. A tag can therefore be older than the body it was sent with, never newer.
+//Every bump takes a fresh value from one sequence. An evicted key answers with the highest value evicted
+//so far, which is above every tag it handed out, so a 304 is never sent for data that has changed.
+//Versions are per process: the boot id stops tags from a previous run matching, and with more than one
+//instance a client must stick to one.
+@Component
+public class DataVersions {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong evictedFloor = new AtomicLong();
+    private final Cache<String, Long> versions;
+
+    public DataVersions(@Value("${app.data-versions.max-keys:500000}") long maxKeys)
+    {
+        //the eviction listener runs inside the removal, so no reader sees the key gone before the floor moved
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .evictionListener((String key, Long version, RemovalCause cause) -> {
+                    if (version != null) {
+                        evictedFloor.accumulateAndGet(version, Math::max);
+                    }
+                })
+                .build();
+    }
+
+    //activities or recommendations of the user changed
+    public void userChanged(String userId)
+    {
+        bump("u:" + userId);
+    }
+
+    //recommendations of the activity changed
+    public void activityChanged(String activityId)
+    {
+        bump("a:" + activityId);
+    }
+
+    public String userTag(String userId)
+    {
+        return tag("u:" + userId);
+    }
+
+    public String activityTag(String activityId)
+    {
+        return tag("a:" + activityId);
+    }
+
+    private void bump(String key)
+    {
+        long next = sequence.incrementAndGet();
+        versions.asMap().merge(key, next, Math::max);
+    }
+
+    private String tag(String key)
+    {
+        Long version = versions.getIfPresent(key);
+        return "\"" + bootId + "." + (version != null ? version : evictedFloor.get()) + "\"";
+    }
+}
@@ -0,0 +1,161 @@
+package com.project.fitness.service;
+
+import com.project.fitness.config.CacheConfig;
+import com.project.fitness.dto.RecommendationBatchResponse;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.Recommendation;
+import com.project.fitness.model.User;
+import com.project.fitness.outbox.Outbox;
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+//nightly pass that runs RecommendationEngine over every user's recent history. Users are walked in
+//id-keyset chunks; each chunk is one task on a fork/join pool that loads the whole chunk's activities
+//in a single query, analyses users independently and persists the results as one JDBC batch.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationBatchJob {
+
+    private final UserRepository userRepository;
+    private final ActivityRepository activityRepository;
+    private final RecommendationEngine engine;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final DataVersions dataVersions;
+    private final Outbox outbox;
+    private final ChangeSequence changeSequence;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.recommendation.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.recommendation.batch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.recommendation.batch.lookback-days:14}")
+    private int lookbackDays;
+
+    @Scheduled(cron = "${app.recommendation.batch.cron:0 0 3 * * *}")
+    public void runNightly()
+    {
+        run();
+    }
+
+    public RecommendationBatchResponse run()
+    {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Recommendation batch is already running");
+        }
+        try {
+            return runChunks();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RecommendationBatchResponse runChunks()
+    {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minusDays(lookbackDays);
+
+        long users = 0;
+        long recommendations = 0;
+        List<Future<List<Recommendation>>> chunks = new ArrayList<>();
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            String after = "";
+            List<String> userIds;
+            while (!(userIds = userRepository.findIdsAfter(after, Limit.of(chunkSize))).isEmpty()) {
+                List<String> chunk = userIds;
+                chunks.add(pool.submit(() -> transactionTemplate.execute(status -> processChunk(chunk, since, now))));
+                users += chunk.size();
+                after = chunk.getLast();
+            }
+            for (Future<List<Recommendation>> chunk : chunks) {
+                List<Recommendation> saved = chunk.get();
+                evict(saved);
+                recommendations += saved.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recommendation batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Recommendation batch failed", e.getCause());
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double usersPerSecond = users / Math.max(elapsedMillis / 1000.0, 0.001);
+        log.info("Recommendation batch: {} recommendations for {} users in {} ms ({} users/sec)",
+                recommendations, users, elapsedMillis, String.format("%.0f", usersPerSecond));
+        return new RecommendationBatchResponse(users, recommendations, elapsedMillis, usersPerSecond);
+    }
+
+    private List<Recommendation> processChunk(List<String> userIds, LocalDateTime since, LocalDateTime now)
+    {
+        Map<String, List<Activity>> byUser = activityRepository.findRecentByUserIds(userIds, since).stream()
+                .collect(Collectors.groupingBy(activity -> activity.getUser().getId(), LinkedHashMap::new, Collectors.toList()));
+
+        List<Recommendation> saved = new ArrayList<>(byUser.size());
+        byUser.forEach((userId, history) -> {
+            RecommendationRequest advice = engine.analyze(history, now);
+            //anchored to the latest activity; references avoid a select per user and activity
+            Recommendation recommendation = Recommendation.builder()
+                    .user(entityManager.getReference(User.class, userId))
+                    .activity(entityManager.getReference(Activity.class, history.getLast().getId()))
+                    .type(RecommendationEngine.TYPE)
+                    .recommendation(engine.summarize(advice))
+                    .improvements(advice.getImprovements())
+                    .suggestions(advice.getSuggestions())
+                    .safety(advice.getSafety())
+                    .build();
+            entityManager.persist(recommendation);
+            outbox.recommendationCreated(recommendation);
+            saved.add(recommendation);
+        });
+        if (!byUser.isEmpty()) {
+            changeSequence.written(byUser.keySet(), ChangeSequence.Source.RECOMMENDATION);
+        }
+        return saved;
+    }
+
+    private void evict(List<Recommendation> saved)
+    {
+        Cache userCache = cacheManager.getCache(CacheConfig.USER_RECOMMENDATIONS);
+        Cache activityCache = cacheManager.getCache(CacheConfig.ACTIVITY_RECOMMENDATIONS);
+        for (Recommendation recommendation : saved) {
+            if (userCache != null) {
+                userCache.evict(recommendation.getUser().getId());
+            }
+            if (activityCache != null) {
+                activityCache.evict(recommendation.getActivity().getId());
+            }
+            dataVersions.userChanged(recommendation.getUser().getId());
+            dataVersions.activityChanged(recommendation.getActivity().getId());
+        }
+    }
+}
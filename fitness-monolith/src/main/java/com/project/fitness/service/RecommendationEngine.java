@@ -0,0 +1,228 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+//derives improvements / suggestions / safety notes from a user's recent activity history.
+//Pure and stateless, so the nightly batch can call it from many threads at once.
+@Component
+public class RecommendationEngine {
+
+    public static final String TYPE = "RULE_ENGINE";
+
+    private static final Set<ActivityType> ENDURANCE = EnumSet.of(
+            ActivityType.WALKING, ActivityType.JOGGING, ActivityType.RUNNING, ActivityType.TREADMILL_RUNNING,
+            ActivityType.CYCLING, ActivityType.STATIONARY_CYCLING, ActivityType.SWIMMING, ActivityType.ROWING,
+            ActivityType.ELLIPTICAL, ActivityType.STAIR_CLIMBING, ActivityType.CARDIO_GENERAL, ActivityType.HIKING,
+            ActivityType.TREKKING, ActivityType.SKIPPING_ROPE, ActivityType.ACTIVE_COMMUTE);
+    private static final Set<ActivityType> STRENGTH = EnumSet.of(
+            ActivityType.WEIGHT_TRAINING, ActivityType.BODYWEIGHT_TRAINING, ActivityType.POWERLIFTING,
+            ActivityType.OLYMPIC_LIFTING, ActivityType.CROSSFIT, ActivityType.CIRCUIT_TRAINING,
+            ActivityType.FUNCTIONAL_TRAINING);
+    private static final Set<ActivityType> MOBILITY = EnumSet.of(
+            ActivityType.YOGA, ActivityType.PILATES, ActivityType.STRETCHING, ActivityType.MOBILITY,
+            ActivityType.BREATHWORK, ActivityType.MEDITATION);
+    private static final Set<ActivityType> HIGH_INTENSITY = EnumSet.of(
+            ActivityType.HIIT, ActivityType.TABATA, ActivityType.CROSSFIT, ActivityType.BOXING,
+            ActivityType.KICKBOXING, ActivityType.MMA);
+    private static final Set<ActivityType> RUNNING = EnumSet.of(
+            ActivityType.JOGGING, ActivityType.RUNNING, ActivityType.TREADMILL_RUNNING);
+
+    private static final int MIN_WEEKLY_SESSIONS = 3;
+    private static final int MAX_WEEKLY_HIGH_INTENSITY = 3;
+    private static final int MIN_ENDURANCE_MINUTES = 20;
+    private static final double MIN_ENDURANCE_CALORIES_PER_MINUTE = 4.0;
+    private static final int LONG_SESSION_MINUTES = 180;
+    private static final double MAX_WEEKLY_LOAD_INCREASE = 0.10;
+    private static final int HIGH_AVG_HEART_RATE = 170;
+    private static final int HIGH_MAX_HEART_RATE = 190;
+
+    //recent: the user's activities over (at least) the last 14 days, in any order
+    public RecommendationRequest analyze(List<Activity> recent, LocalDateTime now)
+    {
+        List<String> improvements = new ArrayList<>();
+        List<String> suggestions = new ArrayList<>();
+        List<String> safety = new ArrayList<>();
+
+        LocalDateTime weekAgo = now.minusDays(7);
+        List<Activity> history = recent.stream()
+                .filter(activity -> activity.getStartTime() != null && activity.getType() != null)
+                .sorted(Comparator.comparing(Activity::getStartTime))
+                .toList();
+        List<Activity> thisWeek = history.stream().filter(activity -> activity.getStartTime().isAfter(weekAgo)).toList();
+        List<Activity> lastWeek = history.stream()
+                .filter(activity -> !activity.getStartTime().isAfter(weekAgo) && activity.getStartTime().isAfter(weekAgo.minusDays(7)))
+                .toList();
+
+        frequencyRules(history, thisWeek, suggestions, safety);
+        loadRules(thisWeek, lastWeek, safety);
+        perTypeRules(history, improvements, safety);
+        metricRules(history, improvements, safety);
+
+        if (improvements.isEmpty() && suggestions.isEmpty() && safety.isEmpty()) {
+            suggestions.add("Your training is well balanced - keep the current routine and review it again next week.");
+        }
+        return new RecommendationRequest(improvements, suggestions, safety);
+    }
+
+    public String summarize(RecommendationRequest advice)
+    {
+        return "%d improvement(s), %d suggestion(s), %d safety note(s) from your recent activity."
+                .formatted(advice.getImprovements().size(), advice.getSuggestions().size(), advice.getSafety().size());
+    }
+
+    private void frequencyRules(List<Activity> history, List<Activity> thisWeek, List<String> suggestions, List<String> safety)
+    {
+        if (thisWeek.size() < MIN_WEEKLY_SESSIONS) {
+            suggestions.add("Aim for at least " + MIN_WEEKLY_SESSIONS + " sessions a week - you logged "
+                    + thisWeek.size() + " in the last 7 days.");
+        }
+        if (history.stream().anyMatch(activity -> ENDURANCE.contains(activity.getType()))
+                && history.stream().noneMatch(activity -> STRENGTH.contains(activity.getType()))) {
+            suggestions.add("Add two short strength sessions a week to support your endurance training.");
+        }
+        if (!history.isEmpty() && history.stream().noneMatch(activity -> MOBILITY.contains(activity.getType()))) {
+            suggestions.add("Add 10-15 minutes of stretching, yoga or mobility work after your sessions.");
+        }
+
+        long highIntensity = thisWeek.stream().filter(activity -> HIGH_INTENSITY.contains(activity.getType())).count();
+        if (highIntensity > MAX_WEEKLY_HIGH_INTENSITY) {
+            safety.add("You did " + highIntensity + " high-intensity sessions this week - keep it to "
+                    + MAX_WEEKLY_HIGH_INTENSITY + " and leave 48 hours between them.");
+        }
+
+        Set<LocalDate> activeDays = thisWeek.stream()
+                .map(activity -> activity.getStartTime().toLocalDate())
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (activeDays.size() >= 7) {
+            safety.add("You trained every day this week - schedule at least one full rest day.");
+        }
+    }
+
+    private void loadRules(List<Activity> thisWeek, List<Activity> lastWeek, List<String> safety)
+    {
+        long thisWeekMinutes = minutes(thisWeek);
+        long lastWeekMinutes = minutes(lastWeek);
+        if (lastWeekMinutes > 0 && thisWeekMinutes > lastWeekMinutes * (1 + MAX_WEEKLY_LOAD_INCREASE)) {
+            safety.add("Training time went from " + lastWeekMinutes + " to " + thisWeekMinutes
+                    + " minutes week over week - increase weekly load by no more than "
+                    + Math.round(MAX_WEEKLY_LOAD_INCREASE * 100) + "% to avoid overuse injuries.");
+        }
+    }
+
+    private void perTypeRules(List<Activity> history, List<String> improvements, List<String> safety)
+    {
+        Map<ActivityType, List<Activity>> byType = history.stream()
+                .collect(Collectors.groupingBy(Activity::getType, () -> new EnumMap<>(ActivityType.class), Collectors.toList()));
+
+        byType.forEach((type, sessions) -> {
+            String name = displayName(type);
+            double avgDuration = sessions.stream().filter(a -> a.getDuration() != null)
+                    .mapToInt(Activity::getDuration).average().orElse(0);
+
+            if (ENDURANCE.contains(type) && avgDuration > 0 && avgDuration < MIN_ENDURANCE_MINUTES) {
+                improvements.add("Your " + name + " sessions average " + Math.round(avgDuration)
+                        + " minutes - build them up towards 30 minutes for aerobic benefit.");
+            }
+
+            double caloriesPerMinute = caloriesPerMinute(sessions);
+            if (ENDURANCE.contains(type) && caloriesPerMinute > 0 && caloriesPerMinute < MIN_ENDURANCE_CALORIES_PER_MINUTE) {
+                improvements.add("Your " + name + " intensity is low (" + String.format("%.1f", caloriesPerMinute)
+                        + " kcal/min) - add intervals or pick up the pace for part of each session.");
+            }
+
+            if (STRENGTH.contains(type) && sessions.size() == 1) {
+                improvements.add("One " + name + " session in two weeks is not enough to progress - aim for two a week.");
+            }
+
+            if (sessions.stream().anyMatch(a -> a.getDuration() != null && a.getDuration() > LONG_SESSION_MINUTES)) {
+                safety.add("For " + name + " sessions over " + LONG_SESSION_MINUTES / 60
+                        + " hours, carry water and take on fuel every 45-60 minutes.");
+            }
+        });
+    }
+
+    private void metricRules(List<Activity> history, List<String> improvements, List<String> safety)
+    {
+        double peakAvgHeartRate = history.stream()
+                .mapToDouble(activity -> metric(activity, "heartRate"))
+                .max().orElse(0);
+        if (peakAvgHeartRate > HIGH_AVG_HEART_RATE) {
+            safety.add("An average heart rate of " + Math.round(peakAvgHeartRate)
+                    + " bpm is very high - keep most sessions conversational and check with a doctor if this is unusual for you.");
+        }
+        double peakMaxHeartRate = history.stream()
+                .mapToDouble(activity -> metric(activity, "maxHeartRate"))
+                .max().orElse(0);
+        if (peakMaxHeartRate > HIGH_MAX_HEART_RATE) {
+            safety.add("A max heart rate of " + Math.round(peakMaxHeartRate)
+                    + " bpm was recorded - stop and rest if you feel dizzy or short of breath.");
+        }
+
+        double longestRun = history.stream()
+                .filter(activity -> RUNNING.contains(activity.getType()))
+                .mapToDouble(activity -> metric(activity, "distance"))
+                .max().orElse(0);
+        if (longestRun > 0) {
+            improvements.add("Your longest run was " + String.format("%.1f", longestRun)
+                    + " km - extend next week's long run to about " + String.format("%.1f", longestRun * 1.1) + " km.");
+        }
+    }
+
+    private static long minutes(List<Activity> activities)
+    {
+        return activities.stream().filter(a -> a.getDuration() != null).mapToLong(Activity::getDuration).sum();
+    }
+
+    private static double caloriesPerMinute(List<Activity> sessions)
+    {
+        long minutes = 0;
+        long calories = 0;
+        for (Activity session : sessions) {
+            if (session.getDuration() != null && session.getDuration() > 0 && session.getCaloriesBurned() != null) {
+                minutes += session.getDuration();
+                calories += session.getCaloriesBurned();
+            }
+        }
+        return minutes == 0 ? 0 : (double) calories / minutes;
+    }
+
+    //numeric value of a free-form metric, 0 when absent or not a number
+    private static double metric(Activity activity, String key)
+    {
+        if (activity.getAdditionalMetrics() == null) {
+            return 0;
+        }
+        Object value = activity.getAdditionalMetrics().get(key);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static String displayName(ActivityType type)
+    {
+        return type.name().toLowerCase().replace('_', ' ');
+    }
+}
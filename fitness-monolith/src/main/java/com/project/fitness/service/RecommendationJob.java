@@ -0,0 +1,63 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.RecommendationRequest;
+import lombok.Getter;
+
+import java.time.Instant;
+
+//in-memory state of one queued recommendation generation, written by a single worker and read by pollers
+@Getter
+public class RecommendationJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final String userId;
+    private final String activityId;
+    private final Instant submittedAt = Instant.now();
+    private volatile RecommendationRequest request;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String recommendationId;
+    private volatile String error;
+
+    public RecommendationJob(String id, String userId, String activityId, RecommendationRequest request)
+    {
+        this.id = id;
+        this.userId = userId;
+        this.activityId = activityId;
+        this.request = request;
+    }
+
+    void start()
+    {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void complete(String recommendationId)
+    {
+        this.recommendationId = recommendationId;
+        finish(Status.COMPLETED);
+    }
+
+    void fail(String error)
+    {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status status)
+    {
+        finishedAt = Instant.now();
+        //the payload is not needed once processed, don't keep it around for the retention period
+        request = null;
+        this.status = status;
+    }
+}
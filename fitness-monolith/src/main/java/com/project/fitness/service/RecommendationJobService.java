@@ -0,0 +1,172 @@
+package com.project.fitness.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.fitness.datasource.ReadYourWrites;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.model.Recommendation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+//runs RecommendationService.generate off the request thread: a bounded queue drained by a fixed number of
+//workers (virtual threads when spring.threads.virtual.enabled), so a burst can never hold more than
+//`workers` database connections. Queued and running jobs are held until they finish, at most
+//queue-capacity + workers of them; only finished jobs go to the expiring, size-bounded history
+@Service
+@Slf4j
+public class RecommendationJobService {
+
+    private final RecommendationService recommendationService;
+    private final ReadYourWrites readYourWrites;
+    private final BlockingQueue<RecommendationJob> queue;
+    private final Map<String, RecommendationJob> unfinished = new ConcurrentHashMap<>();
+    private final Cache<String, RecommendationJob> finished;
+    private final int workers;
+    private final boolean virtualThreads;
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean stopped;
+
+    private final Timer waitTimer;
+    private final Timer processingTimer;
+    private final Counter rejectedCounter;
+
+    public RecommendationJobService(RecommendationService recommendationService,
+                                    ReadYourWrites readYourWrites,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.recommendation.jobs.queue-capacity:1000}") int queueCapacity,
+                                    @Value("${app.recommendation.jobs.workers:8}") int workers,
+                                    @Value("${app.recommendation.jobs.retention:1h}") Duration retention,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads)
+    {
+        this.recommendationService = recommendationService;
+        this.readYourWrites = readYourWrites;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.virtualThreads = virtualThreads;
+        //finished jobs stay pollable for the retention period, or until ten queues' worth have finished after them
+        this.finished = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .maximumSize(queueCapacity * 10L)
+                .build();
+
+        Gauge.builder("recommendation.jobs.queue.depth", queue, BlockingQueue::size)
+                .description("Recommendation jobs waiting for a worker")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("recommendation.jobs.wait")
+                .description("Time a job spent queued before a worker picked it up")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.processingTimer = Timer.builder("recommendation.jobs.processing")
+                .description("Time spent generating a recommendation")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("recommendation.jobs.rejected")
+                .description("Jobs rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startWorkers()
+    {
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual().name("recommendation-worker-", 0)
+                : Thread.ofPlatform().daemon().name("recommendation-worker-", 0);
+        for (int i = 0; i < workers; i++) {
+            workerThreads.add(builder.start(this::work));
+        }
+    }
+
+    //jobs still queued will never run: they end FAILED rather than staying QUEUED until the process exits.
+    //Running jobs finish or fail on their own
+    @PreDestroy
+    void stopWorkers()
+    {
+        stopped = true;
+        workerThreads.forEach(Thread::interrupt);
+        List<RecommendationJob> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for (RecommendationJob job : abandoned) {
+            job.fail("Shut down before the job started");
+            finish(job);
+        }
+    }
+
+    //empty when the queue is full or the service is shutting down - the caller should back off
+    public Optional<RecommendationJob> submit(RecommendationRequest request, String userId, String activityId)
+    {
+        if (stopped) {
+            rejectedCounter.increment();
+            return Optional.empty();
+        }
+        RecommendationJob job = new RecommendationJob(UUID.randomUUID().toString(), userId, activityId, request);
+        //registered first so a poll that races the worker always finds it
+        unfinished.put(job.getId(), job);
+        if (!queue.offer(job)) {
+            unfinished.remove(job.getId());
+            rejectedCounter.increment();
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    public Optional<RecommendationJob> find(String jobId, String userId)
+    {
+        RecommendationJob pending = unfinished.get(jobId);
+        return Optional.ofNullable(pending != null ? pending : finished.getIfPresent(jobId))
+                .filter(job -> job.getUserId().equals(userId));
+    }
+
+    private void work()
+    {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                process(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void process(RecommendationJob job)
+    {
+        job.start();
+        waitTimer.record(Duration.between(job.getSubmittedAt(), job.getStartedAt()));
+        processingTimer.record(() -> {
+            try {
+                //no authenticated request on this thread - apply the job owner's read-your-writes window, so an
+                //activity created just before the submit is read from the primary
+                Recommendation recommendation = readYourWrites.forUser(job.getUserId(),
+                        () -> recommendationService.generate(job.getRequest(), job.getUserId(), job.getActivityId()));
+                job.complete(recommendation.getId());
+            } catch (RuntimeException e) {
+                log.warn("Recommendation job {} failed: {}", job.getId(), e.getMessage());
+                job.fail(e.getMessage());
+            }
+        });
+        finish(job);
+    }
+
+    //into the history before leaving the unfinished jobs, so a poll in between still finds it
+    private void finish(RecommendationJob job)
+    {
+        finished.put(job.getId(), job);
+        unfinished.remove(job.getId());
+    }
+}
@@ -1,16 +1,27 @@
 package com.project.fitness.service;
 
+import com.project.fitness.config.CacheConfig;
+import com.project.fitness.datasource.ReadYourWrites;
 import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RecommendationResponse;
+import com.project.fitness.mapper.MappingMetrics;
+import com.project.fitness.mapper.RecommendationMapper;
 import com.project.fitness.model.Activity;
 import com.project.fitness.model.Recommendation;
 import com.project.fitness.model.User;
+import com.project.fitness.outbox.Outbox;
 import com.project.fitness.repository.ActivityRepository;
 import com.project.fitness.repository.RecommendationRepository;
 import com.project.fitness.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -20,23 +31,102 @@ public class RecommendationService {
     private final RecommendationRepository recommendationRepository;
     private final UserRepository userRepository;
     private final ActivityRepository activityRepository;
-    private final ModelMapper modelMapper;
+    private final RecommendationMapper recommendationMapper;
+    private final MappingMetrics mappingMetrics;
+    private final RecommendationEngine recommendationEngine;
+    private final ReadYourWrites readYourWrites;
+    private final CacheManager cacheManager;
+    private final DataVersions dataVersions;
+    private final Outbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeSequence changeSequence;
+
+    @Value("${app.recommendation.batch.lookback-days:14}")
+    private int lookbackDays;
+
+    //not transactional: the eviction has to follow the commit of the insert, so only the insert and its
+    //outbox event share a transaction
     public Recommendation generate(RecommendationRequest request,String userId, String activityId) {
 
         User user = userRepository.findById(userId).orElseThrow(()-> new RuntimeException("User Not found"));
         Activity activity = activityRepository.findById(activityId).orElseThrow(()-> new RuntimeException("Activity Not found"));
 
-        Recommendation recommendation = modelMapper.map(request,Recommendation.class);
+        Recommendation recommendation = mappingMetrics.record("recommendation.request", () -> recommendationMapper.toEntity(request));
         recommendation.setUser(user);
         recommendation.setActivity(activity);
-        return recommendationRepository.save(recommendation);
+        Recommendation saved = save(recommendation);
+        readYourWrites.recordWrite(userId);
+        changed(userId, activityId);
+        return saved;
+    }
+
+    //rule-based recommendation from the user's recent history, anchored to their latest activity.
+    //Not transactional for the same reason as generate
+    public Recommendation generateFromHistory(String userId) {
+
+        User user = userRepository.findById(userId).orElseThrow(()-> new RuntimeException("User Not found"));
+        LocalDateTime now = LocalDateTime.now();
+        List<Activity> history = activityRepository.findRecentByUserIds(List.of(userId), now.minusDays(lookbackDays));
+        if (history.isEmpty()) {
+            throw new IllegalArgumentException("No activity in the last " + lookbackDays + " days to analyse");
+        }
+
+        RecommendationRequest advice = recommendationEngine.analyze(history, now);
+        Recommendation recommendation = recommendationMapper.toEntity(advice);
+        recommendation.setType(RecommendationEngine.TYPE);
+        recommendation.setRecommendation(recommendationEngine.summarize(advice));
+        recommendation.setUser(user);
+        recommendation.setActivity(history.getLast());
+        Recommendation saved = save(recommendation);
+        readYourWrites.recordWrite(userId);
+        changed(userId, saved.getActivity().getId());
+        return saved;
+    }
+
+    //sync = true: concurrent misses on one key share a single database load. The cache holds unmodifiable
+    //lists of responses, never entities: one cached value is handed to every concurrent reader
+    @Cacheable(cacheNames = CacheConfig.USER_RECOMMENDATIONS, key = "#userId", sync = true)
+    public List<RecommendationResponse> getUserRecommendation(String userId) {
+        return toResponses(recommendationRepository.findByUserId(userId));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.ACTIVITY_RECOMMENDATIONS, key = "#activityId", sync = true)
+    public List<RecommendationResponse> getActivityRecommendation(String activityId) {
+        return toResponses(recommendationRepository.findByActivityId(activityId));
+    }
+
+    private List<RecommendationResponse> toResponses(List<Recommendation> recommendations)
+    {
+        return mappingMetrics.record("recommendation", () -> recommendations.stream()
+                .map(recommendationMapper::toResponse)
+                .toList());
+    }
+
+    private Recommendation save(Recommendation recommendation)
+    {
+        return transactionTemplate.execute(status -> {
+            Recommendation saved = recommendationRepository.save(recommendation);
+            changeSequence.written(saved.getUser().getId(), ChangeSequence.Source.RECOMMENDATION);
+            outbox.recommendationCreated(saved);
+            return saved;
+        });
     }
 
-    public List<Recommendation> getUserRecommendation(String userId) {
-        return recommendationRepository.findByUserId(userId).stream().toList();
+    //cached lists first, then the versions: a reader holding the new version must never be served
+    //the old list. An in-flight load of the same key finishes before its eviction and is dropped
+    private void changed(String userId, String activityId)
+    {
+        evict(CacheConfig.USER_RECOMMENDATIONS, userId);
+        evict(CacheConfig.ACTIVITY_RECOMMENDATIONS, activityId);
+        dataVersions.userChanged(userId);
+        dataVersions.activityChanged(activityId);
     }
 
-    public List<Recommendation> getActivityRecommendation(String activityId) {
-        return recommendationRepository.findByActivityId(activityId).stream().toList();
+    private void evict(String cacheName, String key)
+    {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
     }
 }
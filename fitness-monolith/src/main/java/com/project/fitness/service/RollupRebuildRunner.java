@@ -0,0 +1,22 @@
+package com.project.fitness.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+//java -jar fitness-monolith.jar --rebuild-rollups
+@Component
+@RequiredArgsConstructor
+public class RollupRebuildRunner implements ApplicationRunner {
+
+    private final ActivityRollupRebuilder rollupRebuilder;
+
+    @Override
+    public void run(ApplicationArguments args)
+    {
+        if (args.containsOption("rebuild-rollups")) {
+            rollupRebuilder.rebuild();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.ChangesResponse;
+import com.project.fitness.dto.DeletedEntity;
+import com.project.fitness.dto.RecommendationResponse;
+import com.project.fitness.exception.SyncCursorExpiredException;
+import com.project.fitness.mapper.ActivityMapper;
+import com.project.fitness.mapper.RecommendationMapper;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.Recommendation;
+import com.project.fitness.model.Tombstone;
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.RecommendationRepository;
+import com.project.fitness.repository.TombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//delta sync for device clients: the activities and recommendations created, updated or deleted after a cursor.
+//The three sources (activity, recommendation, sync_tombstone) are each read by (changeSeq, id) keyset and
+//merged; ids are UUIDs, unique across all three, so one cursor orders them all. changeSeq is the per-user
+//position ChangeSequence stamps as a write commits, in commit order, so whatever becomes visible after a
+//read sorts after everything that read returned and the cursor never has to wait for late commits.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncService {
+
+    private static final Comparator<Change> ORDER = Comparator.comparingLong(Change::changeSeq).thenComparing(Change::id);
+
+    private final ActivityRepository activityRepository;
+    private final RecommendationRepository recommendationRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final ActivityMapper activityMapper;
+    private final RecommendationMapper recommendationMapper;
+
+    @Value("${app.sync.max-changes:500}")
+    private int maxChanges;
+
+    @Value("${app.sync.tombstone-retention-days:90}")
+    private int tombstoneRetentionDays;
+
+    //one indexed range read per source, whatever the size of the history
+    @Transactional(readOnly = true)
+    public ChangesResponse getChanges(String userId, String cursor, int limit)
+    {
+        int pageSize = Math.clamp(limit, 1, maxChanges);
+        boolean fullSync = cursor == null || cursor.isBlank();
+        ChangeCursor after = fullSync ? ChangeCursor.START : ChangeCursor.decode(cursor);
+        LocalDateTime now = LocalDateTime.now();
+        if (!fullSync && after.asOf().isBefore(now.minusDays(tombstoneRetentionDays))) {
+            throw new SyncCursorExpiredException("Cursor is older than " + tombstoneRetentionDays + " days, start a full sync");
+        }
+
+        //the first pageSize changes overall are among the first pageSize + 1 of each source
+        List<Change> changes = new ArrayList<>();
+        for (Activity activity : activityRepository.findChanges(userId, after.changeSeq(), after.id(), Limit.of(pageSize + 1))) {
+            changes.add(new Change(activity.getChangeSeq(), activity.getId(), activity));
+        }
+        for (Recommendation recommendation : recommendationRepository.findChanges(userId, after.changeSeq(), after.id(), Limit.of(pageSize + 1))) {
+            changes.add(new Change(recommendation.getChangeSeq(), recommendation.getId(), recommendation));
+        }
+        for (Tombstone tombstone : tombstoneRepository.findChanges(userId, after.changeSeq(), after.id(), Limit.of(pageSize + 1))) {
+            changes.add(new Change(tombstone.getChangeSeq(), tombstone.getId(), tombstone));
+        }
+        changes.sort(ORDER);
+
+        boolean hasMore = changes.size() > pageSize;
+        List<Change> page = hasMore ? changes.subList(0, pageSize) : changes;
+        List<ActivityResponse> activities = new ArrayList<>();
+        List<RecommendationResponse> recommendations = new ArrayList<>();
+        List<DeletedEntity> deleted = new ArrayList<>();
+        for (Change change : page) {
+            switch (change.item()) {
+                case Activity activity -> activities.add(activityMapper.toResponse(activity));
+                case Recommendation recommendation -> recommendations.add(recommendationMapper.toResponse(recommendation));
+                case Tombstone tombstone -> deleted.add(new DeletedEntity(tombstone.getEntityType(), tombstone.getEntityId(), tombstone.getDeletedAt()));
+                default -> throw new IllegalStateException("Unexpected change " + change.item());
+            }
+        }
+        //asOf is when the client last caught up, or began its full sync: whatever it has yet to see was written
+        //after that, give or take one write transaction, so the tombstones it needs are never older than asOf.
+        //Every caught-up call moves it to now, so idle clients stay within the retention
+        LocalDateTime asOf = hasMore && !fullSync ? after.asOf() : now;
+        ChangeCursor next = page.isEmpty()
+                ? new ChangeCursor(after.changeSeq(), after.id(), asOf)
+                : new ChangeCursor(page.getLast().changeSeq(), page.getLast().id(), asOf);
+        return new ChangesResponse(activities, recommendations, deleted, next.encode(), hasMore);
+    }
+
+    @Scheduled(cron = "${app.sync.tombstone-cleanup-cron:0 15 4 * * *}")
+    public void pruneTombstones()
+    {
+        int pruned = tombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        log.info("Pruned {} sync tombstones older than {} days", pruned, tombstoneRetentionDays);
+    }
+
+    private record Change(long changeSeq, String id, Object item) {
+    }
+}
@@ -3,26 +3,34 @@ package com.project.fitness.service;
 import com.project.fitness.dto.LoginRequest;
 import com.project.fitness.dto.RegisteredRequest;
 import com.project.fitness.dto.UserResponse;
+import com.project.fitness.mapper.MappingMetrics;
+import com.project.fitness.mapper.UserMapper;
 import com.project.fitness.model.User;
+import com.project.fitness.exception.PasswordHashingRejectedException;
+import com.project.fitness.exception.PasswordHashingTimeoutException;
 import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class UserService {
 
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final UserMapper userMapper;
+    private final MappingMetrics mappingMetrics;
+    private final PasswordHashingExecutor passwordHashing;
 
     public UserResponse register(RegisteredRequest registeredRequest) {
-        User user = modelMapper.map(registeredRequest,User.class);
-        user.setPassword(passwordEncoder.encode(registeredRequest.getPassword()));
+        User user = mappingMetrics.record("user.request", () -> userMapper.toEntity(registeredRequest));
+        user.setPassword(passwordHashing.encode(registeredRequest.getPassword()));
         userRepository.save(user);
-        return modelMapper.map(user,UserResponse.class);
+        return mappingMetrics.record("user", () -> userMapper.toResponse(user));
     }
 
     public User authenticate(LoginRequest loginRequest) {
@@ -31,11 +39,30 @@ public class UserService {
         {
             throw new RuntimeException("Invalid Credentials");
         }
-        if(!passwordEncoder.matches(loginRequest.getPassword(),user.getPassword()))
+        if(!passwordHashing.matches(loginRequest.getPassword(),user.getPassword()))
         {
             throw new RuntimeException("Invalid Credentials");
         }
+        if(passwordHashing.needsRehash(user.getPassword()))
+        {
+            rehash(user, loginRequest.getPassword());
+        }
 
         return user;
     }
+
+    //the only moment the raw password is available again - move the hash to the configured cost
+    private void rehash(User user, String rawPassword)
+    {
+        try {
+            String rehashed = passwordHashing.encode(rawPassword);
+            LocalDateTime now = LocalDateTime.now();
+            userRepository.updatePassword(user.getId(), rehashed, now);
+            user.setPassword(rehashed);
+            user.setUpdatedAt(now);
+        } catch (PasswordHashingRejectedException | PasswordHashingTimeoutException e) {
+            //the login itself succeeded; the next one will try again
+            log.debug("Skipped password rehash for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,58 @@
+-- schema as it stood under spring.jpa.hibernate.ddl-auto=update, constraint names included: what Hibernate
+-- generated for the User, Activity and Recommendation entities, with PostgreSQL naming the unique and check
+-- constraints. Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and
+-- start from V2, so nothing added later belongs here.
+
+create table fitness_user (
+    id varchar(255) not null,
+    role varchar(255),
+    email varchar(255),
+    password varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    constraint fitness_user_pkey primary key (id),
+    constraint fitness_user_email_key unique (email),
+    constraint fitness_user_role_check check (role in ('USER', 'ADMIN'))
+);
+
+create table activity (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    type varchar(255),
+    additional_metrics json,
+    duration integer,
+    calories_burned integer,
+    start_time timestamp(6),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    constraint activity_pkey primary key (id),
+    constraint activity_type_check check (type in (
+        'WALKING', 'JOGGING', 'RUNNING', 'TREADMILL_RUNNING', 'CYCLING', 'STATIONARY_CYCLING', 'SWIMMING',
+        'ROWING', 'ELLIPTICAL', 'STAIR_CLIMBING', 'CARDIO_GENERAL', 'WEIGHT_TRAINING', 'BODYWEIGHT_TRAINING',
+        'POWERLIFTING', 'OLYMPIC_LIFTING', 'CROSSFIT', 'CIRCUIT_TRAINING', 'FUNCTIONAL_TRAINING', 'YOGA',
+        'PILATES', 'STRETCHING', 'MOBILITY', 'BREATHWORK', 'MEDITATION', 'HIIT', 'TABATA', 'CRICKET',
+        'FOOTBALL', 'BASKETBALL', 'VOLLEYBALL', 'TABLE_TENNIS', 'BADMINTON', 'TENNIS', 'SQUASH', 'HOCKEY',
+        'BASEBALL', 'BOXING', 'KICKBOXING', 'MMA', 'WRESTLING', 'JUDO', 'KARATE', 'TAEKWONDO', 'HIKING',
+        'TREKKING', 'CLIMBING', 'SKIPPING_ROPE', 'SURFING', 'SKATING', 'SKIING', 'DANCE', 'ZUMBA',
+        'AEROBICS', 'HOUSEWORK', 'YARD_WORK', 'ACTIVE_COMMUTE', 'OTHER'
+    )),
+    constraint fk_activity_user foreign key (user_id) references fitness_user (id)
+);
+
+create table recommendation (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    activity_id varchar(255) not null,
+    type varchar(255),
+    recommendation varchar(2000),
+    improvements json,
+    suggestions json,
+    safety json,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    constraint recommendation_pkey primary key (id),
+    constraint fk_recommendation_user foreign key (user_id) references fitness_user (id),
+    constraint fk_recommendation_activity foreign key (activity_id) references activity (id)
+);
@@ -0,0 +1,55 @@
+-- activity becomes range-partitioned by start_time: one partition per calendar month (activity_pYYYY_MM)
+-- plus activity_default for anything outside them. Queries bounded on start_time only touch the matching
+-- months. ActivityPartitionMaintenance creates future months and detaches expired ones from here on.
+--
+-- A partitioned table's primary key has to include the partition key, so activity(id) alone is no longer
+-- unique at the database level and recommendation.activity_id cannot keep its foreign key.
+
+alter table recommendation drop constraint if exists fk_recommendation_activity;
+
+alter table activity rename to activity_unpartitioned;
+alter index if exists activity_pkey rename to activity_unpartitioned_pkey;
+alter index if exists idx_activity_user_start rename to idx_activity_unpartitioned_user_start;
+alter table activity_unpartitioned drop constraint if exists fk_activity_user;
+
+create table activity (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    type varchar(255),
+    additional_metrics json,
+    duration integer,
+    calories_burned integer,
+    start_time timestamp(6) not null,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    constraint activity_pkey primary key (id, start_time),
+    constraint fk_activity_user foreign key (user_id) references fitness_user (id)
+) partition by range (start_time);
+
+create table activity_default partition of activity default;
+
+-- months from the oldest existing activity up to three months ahead
+do $$
+declare
+    month_start date := date_trunc('month', coalesce((select min(start_time) from activity_unpartitioned), now()))::date;
+    last_month date := (date_trunc('month', now()) + interval '3 months')::date;
+begin
+    while month_start <= last_month loop
+        execute format('create table %I partition of activity for values from (%L) to (%L)',
+                       'activity_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    end loop;
+end $$;
+
+-- the service has always defaulted a missing start time to "now"; older rows fall back to created_at
+insert into activity (id, user_id, type, additional_metrics, duration, calories_burned, start_time, created_at, updated_at)
+select id, user_id, type, additional_metrics, duration, calories_burned,
+       coalesce(start_time, created_at, now()), created_at, updated_at
+from activity_unpartitioned;
+
+drop table activity_unpartitioned;
+
+-- partitioned index: every partition gets its own copy, including partitions created or attached later
+create index idx_activity_user_start on activity (user_id, start_time, id);
@@ -0,0 +1,6 @@
+-- PostgreSQL does not index foreign key columns on its own. activity.user_id is the leading column of
+-- idx_activity_user_start; recommendation had no index on either column, so lookups by user or activity
+-- (and deletes of either) scanned the whole table.
+
+create index idx_recommendation_user on recommendation (user_id);
+create index idx_recommendation_activity on recommendation (activity_id);
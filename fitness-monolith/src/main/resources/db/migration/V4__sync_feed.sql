@@ -0,0 +1,16 @@
+-- changes feed: every source is read by (user_id, changed-at, id) range, so each gets an index in that
+-- order. idx_recommendation_user_updated also serves plain lookups by user, replacing idx_recommendation_user.
+
+create table sync_tombstone (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    entity_type varchar(255) not null,
+    entity_id varchar(255) not null,
+    deleted_at timestamp(6) not null,
+    constraint sync_tombstone_pkey primary key (id)
+);
+
+create index idx_sync_tombstone_user_deleted on sync_tombstone (user_id, deleted_at, id);
+create index idx_activity_user_updated on activity (user_id, updated_at, id);
+create index idx_recommendation_user_updated on recommendation (user_id, updated_at, id);
+drop index idx_recommendation_user;
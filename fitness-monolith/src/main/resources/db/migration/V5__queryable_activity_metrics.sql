@@ -0,0 +1,23 @@
+-- additional_metrics becomes jsonb: parsed once on write instead of on every read, and indexable. The type
+-- change rewrites every partition, so run it in a maintenance window on large tables.
+alter table activity alter column additional_metrics type jsonb using additional_metrics::jsonb;
+
+-- containment lookups on any key, e.g. additional_metrics @> '{"device": "watch"}'
+create index idx_activity_metrics on activity using gin (additional_metrics jsonb_path_ops);
+
+-- promoted metrics: typed copies of frequently queried keys, written by the application on every insert
+-- and update (PromotedMetric). Non-numeric values stay null, as they do in the application.
+alter table activity
+    add column distance double precision,
+    add column heart_rate double precision;
+
+update activity
+set distance   = case when jsonb_typeof(additional_metrics -> 'distance') = 'number'
+                      then (additional_metrics ->> 'distance')::double precision end,
+    heart_rate = case when jsonb_typeof(additional_metrics -> 'heartRate') = 'number'
+                      then (additional_metrics ->> 'heartRate')::double precision end
+where additional_metrics ?| array['distance', 'heartRate'];
+
+-- metric search and summaries are per user; activities without the metric are left out of the index
+create index idx_activity_user_distance on activity (user_id, distance) where distance is not null;
+create index idx_activity_user_heart_rate on activity (user_id, heart_rate) where heart_rate is not null;
@@ -0,0 +1,22 @@
+-- bulk imports: one row per uploaded export file, updated in the same transaction as each chunk of
+-- activities it inserts, so an interrupted import resumes after its last committed chunk.
+
+create table activity_import (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    format varchar(255) not null,
+    file_name varchar(255) not null,
+    status varchar(255) not null,
+    rows_read bigint not null,
+    rows_imported bigint not null,
+    rows_failed bigint not null,
+    errors json,
+    error varchar(2000),
+    processing_millis bigint not null,
+    created_at timestamp(6),
+    started_at timestamp(6),
+    finished_at timestamp(6),
+    constraint activity_import_pkey primary key (id)
+);
+
+create index idx_activity_import_status on activity_import (status);
@@ -0,0 +1,22 @@
+-- transactional outbox: one row per activity or recommendation write, inserted in the write's transaction
+-- and deleted once delivered. seq is assigned on insert; dispatchers read due events in seq order, and the
+-- (user_id, seq) index serves the "nothing earlier pending for this user" checks.
+
+create table outbox_event (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    type varchar(255) not null,
+    entity_id varchar(255) not null,
+    seq bigint generated by default as identity,
+    payload json,
+    created_at timestamp(6) not null,
+    attempts integer not null,
+    available_at timestamp(6) not null,
+    leased_until timestamp(6),
+    last_error varchar(2000),
+    dead_at timestamp(6),
+    constraint outbox_event_pkey primary key (id)
+);
+
+create index idx_outbox_event_seq on outbox_event (seq);
+create index idx_outbox_event_user_seq on outbox_event (user_id, seq);
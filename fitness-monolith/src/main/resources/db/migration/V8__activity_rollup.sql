@@ -0,0 +1,19 @@
+-- pre-aggregated activity summaries: one row per (user, period, bucket, type), updated in the same
+-- transaction as every activity write. Activities that predate the table are not counted until an admin runs
+-- POST /api/admin/rollups/rebuild. uk_activity_rollup_bucket is the upsert key and, led by user_id, also
+-- serves the per-user lookups.
+
+create table activity_rollup (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    period varchar(255) not null,
+    bucket_start date not null,
+    activity_type varchar(255) not null,
+    activity_count bigint not null,
+    total_duration bigint not null,
+    total_calories bigint not null,
+    max_duration integer not null,
+    max_calories integer not null,
+    constraint activity_rollup_pkey primary key (id),
+    constraint uk_activity_rollup_bucket unique (user_id, period, bucket_start, activity_type)
+);
@@ -0,0 +1,22 @@
+-- changes feed positions: ChangeSequence bumps fitness_user.change_seq as each write transaction commits and
+-- stamps the activity, recommendation and tombstone rows it wrote with the new value. Rows are inserted
+-- unstamped (null) and the feed never returns them until they are. Existing rows all sit at position 0, in
+-- id order; the default is dropped again so it only fills them in, without rewriting the tables.
+
+alter table fitness_user add column change_seq bigint not null default 0;
+
+alter table activity add column change_seq bigint default 0;
+alter table activity alter column change_seq drop default;
+alter table recommendation add column change_seq bigint default 0;
+alter table recommendation alter column change_seq drop default;
+alter table sync_tombstone add column change_seq bigint default 0;
+alter table sync_tombstone alter column change_seq drop default;
+
+-- the (user_id, changed-at, id) indexes of V4 give way to (user_id, change_seq, id); the recommendation one
+-- keeps serving plain lookups by user
+drop index idx_activity_user_updated;
+drop index idx_recommendation_user_updated;
+drop index idx_sync_tombstone_user_deleted;
+create index idx_activity_user_change on activity (user_id, change_seq, id);
+create index idx_recommendation_user_change on recommendation (user_id, change_seq, id);
+create index idx_sync_tombstone_user_change on sync_tombstone (user_id, change_seq, id);
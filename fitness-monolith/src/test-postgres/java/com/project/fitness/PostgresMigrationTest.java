@@ -0,0 +1,216 @@
+package com.project.fitness;
+
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.service.ActivityPartitionMaintenance;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//the path a production database takes: the V1 schema with rows in it, migrated to the latest version by the
+//application on startup, validated by Hibernate, then partition maintenance run against it. The H2 tests
+//cannot cover any of this, since H2 has no partitioning and they let Hibernate create the schema.
+//Seed rows are placed relative to the current month: one 30 months back (detached at the 24-month
+//retention), one last month without a start time (backfilled from created_at by V2) and one five months
+//ahead, which V2 leaves in activity_default and maintenance at six months ahead moves into its own partition
+@Tag("postgres")
+@Testcontainers
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types=PARTITIONED TABLE",
+        "app.activities.partitions.enabled=true",
+        "app.activities.partitions.months-ahead=6",
+        "app.activities.partitions.retention-months=24",
+        "app.activities.partitions.cron=-"
+})
+class PostgresMigrationTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final YearMonth NOW = YearMonth.now();
+    private static final YearMonth OLD = NOW.minusMonths(30);
+    private static final YearMonth LAST = NOW.minusMonths(1);
+    private static final YearMonth AHEAD = NOW.plusMonths(5);
+    //what ddl-auto=update left in a PostgreSQL database for the baseline commit's entities
+    private static final Set<String> BASELINE = Set.of(
+            "activity", "activity.activity_pkey", "activity.activity_type_check", "activity.fk_activity_user",
+            "fitness_user", "fitness_user.fitness_user_email_key", "fitness_user.fitness_user_pkey",
+            "fitness_user.fitness_user_role_check",
+            "recommendation", "recommendation.fk_recommendation_activity", "recommendation.fk_recommendation_user",
+            "recommendation.recommendation_pkey");
+    private static Set<String> versionOne;
+
+    @Container
+    private static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:17-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ActivityPartitionMaintenance partitionMaintenance;
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    //runs before the application context starts, so the application migrates from V1
+    @BeforeAll
+    static void seedVersionOne() throws Exception {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .target("1")
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword())) {
+            versionOne = schemaObjects(connection);
+            execute(connection, "insert into fitness_user (id, role, email, password, created_at, updated_at) "
+                    + "values ('u1', 'USER', 'seed@example.com', 'x', ?, ?)",
+                    OLD.atDay(1).atStartOfDay(), OLD.atDay(1).atStartOfDay());
+            activity(connection, "old", OLD.atDay(15).atTime(7, 0), OLD.atDay(15).atTime(8, 0),
+                    "{\"distance\": 5.2, \"heartRate\": 150}");
+            activity(connection, "no-start", null, LAST.atDay(10).atTime(18, 0), null);
+            activity(connection, "ahead", AHEAD.atDay(2).atTime(6, 0), NOW.atDay(1).atStartOfDay(),
+                    "{\"distance\": \"n/a\"}");
+            execute(connection, "insert into recommendation (id, user_id, activity_id, type, recommendation, "
+                    + "improvements, suggestions, safety, created_at, updated_at) "
+                    + "values ('r1', 'u1', 'no-start', 'RULE_ENGINE', 'seed', '[]'::json, '[]'::json, '[]'::json, ?, ?)",
+                    LAST.atDay(10).atTime(19, 0), LAST.atDay(10).atTime(19, 0));
+        }
+    }
+
+    @Test
+    void versionOneIsTheBaselineSchemaAndNothingMore() {
+        assertEquals(BASELINE, versionOne);
+    }
+
+    @Test
+    void migratesSeededVersionOneDataAndMaintainsPartitions() {
+        //startup migrated, Hibernate validated the result and maintenance already ran once
+        assertEquals("9", jdbcTemplate.queryForObject(
+                "select version from flyway_schema_history where success order by installed_rank desc limit 1",
+                String.class));
+
+        //V2 backfill: a missing start time falls back to created_at
+        assertEquals(LAST.atDay(10).atTime(18, 0), jdbcTemplate.queryForObject(
+                "select start_time from activity where id = 'no-start'", LocalDateTime.class));
+        assertEquals(partition(LAST), partitionOf("no-start"));
+        assertTrue(activityRepository.findById("no-start").isPresent());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from recommendation where activity_id = 'no-start'", Integer.class));
+
+        //create: the row V2 put in activity_default moved into its month's new partition
+        assertEquals(partition(AHEAD), partitionOf("ahead"));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from activity_default", Integer.class));
+        //V8: the rollup table starts empty, whatever activity already holds
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from activity_rollup", Integer.class));
+        //V5 promotion: non-numeric values stay null
+        assertNull(jdbcTemplate.queryForObject("select distance from activity where id = 'ahead'", Double.class));
+
+        //detach: the old month left activity and was kept, V5's promoted metrics included
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from activity where id = 'old'", Integer.class));
+        assertEquals(List.of(5.2, 150.0), jdbcTemplate.queryForObject(
+                "select distance, heart_rate from activity_archive_" + OLD.format(SUFFIX) + " where id = 'old'",
+                (row, rowNum) -> List.of(row.getDouble(1), row.getDouble(2))));
+
+        Set<YearMonth> attached = attachedMonths();
+        for (YearMonth month = NOW.minusMonths(24); !month.isAfter(NOW.plusMonths(6)); month = month.plusMonths(1)) {
+            assertTrue(attached.contains(month), "partition for " + month);
+        }
+        assertFalse(attached.stream().anyMatch(month -> month.isBefore(NOW.minusMonths(24))));
+
+        //a second run finds nothing to do
+        partitionMaintenance.maintain();
+        assertEquals(attached, attachedMonths());
+    }
+
+    private String partitionOf(String activityId) {
+        return jdbcTemplate.queryForObject("select tableoid::regclass::text from activity where id = ?",
+                String.class, activityId);
+    }
+
+    private Set<YearMonth> attachedMonths() {
+        Set<YearMonth> months = new TreeSet<>();
+        jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = 'activity'::regclass and c.relname like 'activity\\_p%'
+                """, String.class)
+                .forEach(name -> months.add(YearMonth.parse(name.substring("activity_p".length()), SUFFIX)));
+        return months;
+    }
+
+    private static String partition(YearMonth month) {
+        return "activity_p" + month.format(SUFFIX);
+    }
+
+    //tables and their constraints and indexes, as "table" and "table.name"; a key and its index share a name
+    private static Set<String> schemaObjects(Connection connection) throws Exception {
+        Set<String> objects = new TreeSet<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                select t.relname, null from pg_class t
+                join pg_namespace n on n.oid = t.relnamespace
+                where n.nspname = 'public' and t.relkind in ('r', 'p') and t.relname <> 'flyway_schema_history'
+                union all
+                select t.relname, c.conname from pg_constraint c
+                join pg_class t on t.oid = c.conrelid
+                join pg_namespace n on n.oid = t.relnamespace
+                where n.nspname = 'public' and t.relname <> 'flyway_schema_history'
+                union all
+                select t.relname, i.relname from pg_index x
+                join pg_class i on i.oid = x.indexrelid
+                join pg_class t on t.oid = x.indrelid
+                join pg_namespace n on n.oid = t.relnamespace
+                where n.nspname = 'public' and t.relname <> 'flyway_schema_history'
+                """);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                objects.add(rows.getString(2) == null ? rows.getString(1) : rows.getString(1) + "." + rows.getString(2));
+            }
+        }
+        return objects;
+    }
+
+    private static void activity(Connection connection, String id, LocalDateTime start, LocalDateTime created,
+                                 String metrics) throws Exception {
+        execute(connection, "insert into activity (id, user_id, type, additional_metrics, duration, calories_burned, "
+                + "start_time, created_at, updated_at) values (?, 'u1', 'RUNNING', ?::json, 30, 300, ?, ?, ?)",
+                id, metrics, start, created, created);
+    }
+
+    private static void execute(Connection connection, String sql, Object... parameters) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
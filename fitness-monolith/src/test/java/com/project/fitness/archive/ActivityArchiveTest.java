@@ -0,0 +1,217 @@
+package com.project.fitness.archive;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.repository.DailyActivityTotals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityArchiveTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2022, 3, 1, 7, 30, 0, 123_456_000);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void historyIsNewestFirstAcrossSegmentsAndPagesWithTheCursor() throws Exception {
+        ActivityArchive archive = new ActivityArchive(directory, objectMapper);
+        List<ArchivedActivity> first = activities("alice", START, 10);
+        List<ArchivedActivity> second = activities("alice", START.plusDays(10), 10);
+        publishAndCommit(archive, first);
+        publishAndCommit(archive, second);
+
+        List<ArchivedActivity> all = new ArrayList<>(first);
+        all.addAll(second);
+        all.sort((a, b) -> b.startTime().compareTo(a.startTime()));
+
+        List<ArchivedActivity> page = archive.history("alice", null, null, null, null, null, 7);
+        assertEquals(all.subList(0, 7), page);
+
+        ArchivedActivity last = page.getLast();
+        List<ArchivedActivity> next = archive.history("alice", null, null, null, last.startTime(), last.id(), 7);
+        assertEquals(all.subList(7, 14), next);
+
+        assertTrue(archive.history("bob", null, null, null, null, null, 7).isEmpty());
+    }
+
+    @Test
+    void historyAppliesRangeAndTypeFilters() throws Exception {
+        ActivityArchive archive = new ActivityArchive(directory, objectMapper);
+        publishAndCommit(archive, activities("alice", START, 10));
+
+        List<ArchivedActivity> range = archive.history("alice", START.plusDays(2), START.plusDays(5), null, null, null, 100);
+        assertEquals(3, range.size());
+        assertEquals(START.plusDays(4), range.getFirst().startTime());
+        assertEquals(START.plusDays(2), range.getLast().startTime());
+
+        List<ArchivedActivity> running = archive.history("alice", null, null, ActivityType.RUNNING, null, null, 100);
+        assertEquals(5, running.size());
+        assertTrue(running.stream().allMatch(activity -> activity.type() == ActivityType.RUNNING));
+    }
+
+    @Test
+    void keysetBreaksTiesOnIdWhenStartTimesAreEqual() throws Exception {
+        ActivityArchive archive = new ActivityArchive(directory, objectMapper);
+        List<ArchivedActivity> tied = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tied.add(activity("alice", START, ActivityType.YOGA, Map.of()));
+        }
+        publishAndCommit(archive, tied);
+
+        List<String> expected = tied.stream().map(ArchivedActivity::id).sorted((a, b) -> b.compareTo(a)).toList();
+        List<ArchivedActivity> page = archive.history("alice", null, null, null, null, null, 2);
+        List<ArchivedActivity> rest = archive.history("alice", null, null, null, START, page.getLast().id(), 10);
+
+        assertEquals(expected.subList(0, 2), page.stream().map(ArchivedActivity::id).toList());
+        assertEquals(expected.subList(2, 5), rest.stream().map(ArchivedActivity::id).toList());
+    }
+
+    @Test
+    void rowsRoundTripIncludingNullsAndMetrics() throws Exception {
+        ActivityArchive archive = new ActivityArchive(directory, objectMapper);
+        ArchivedActivity withMetrics = activity("alice", START, ActivityType.CYCLING, Map.of("distance", 42.5, "route", "coast"));
+        ArchivedActivity bare = new ArchivedActivity(UUID.randomUUID().toString(), "alice", null, START.plusHours(1),
+                null, null, null, null, null);
+        publishAndCommit(archive, List.of(withMetrics, bare));
+
+        Iterator<ArchivedActivity> oldestFirst = archive.oldestFirst("alice");
+        assertEquals(withMetrics, oldestFirst.next());
+        ArchivedActivity read = oldestFirst.next();
+        assertEquals(bare, read);
+        assertNull(read.additionalMetrics());
+        assertFalse(oldestFirst.hasNext());
+    }
+
+    //odd row counts leave the int columns off an 8-byte boundary, so each column after them is padded
+    @Test
+    void everyColumnReadsBackForOddRowCounts() throws Exception {
+        for (int rows : new int[]{1, 3}) {
+            Path segmentDirectory = directory.resolve("rows-" + rows);
+            ActivityArchive archive = new ActivityArchive(segmentDirectory, objectMapper);
+            List<ArchivedActivity> written = new ArrayList<>();
+            ActivityType[] types = {ActivityType.SWIMMING, ActivityType.ROWING, ActivityType.YOGA};
+            for (int row = 0; row < rows; row++) {
+                //alice's rows, then bob's
+                String userId = row < 2 ? "alice" : "bob";
+                written.add(new ArchivedActivity(UUID.randomUUID().toString(), userId, types[row], START.plusDays(row),
+                        17 + row, 211 + row * 100, START.plusDays(row).plusMinutes(1), START.plusDays(row).plusMinutes(2),
+                        Map.of("row", row)));
+            }
+            ArchiveSegmentWriter writer = archive.newSegment();
+            for (ArchivedActivity activity : written) {
+                writer.append(activity);
+            }
+            archive.publish(writer);
+
+            ArchiveSegment segment = ArchiveSegment.open(segmentDirectory, writer.name(), false);
+            assertEquals(rows, segment.rows);
+            for (int row = 0; row < rows; row++) {
+                ArchivedActivity expected = written.get(row);
+                assertEquals(expected.userId(), segment.users()[segment.user(row)], "user of row " + row + " of " + rows);
+                assertEquals(expected.duration(), segment.duration(row), "duration of row " + row + " of " + rows);
+                assertEquals(expected.caloriesBurned(), segment.calories(row), "calories of row " + row + " of " + rows);
+                assertEquals(expected.type(), segment.type(row), "type of row " + row + " of " + rows);
+                assertEquals(expected.id(), segment.id(row));
+                assertEquals(ArchiveSegment.micros(expected.startTime()), segment.start(row));
+                assertEquals(expected.updatedAt(), segment.updated(row));
+            }
+            List<ArchivedActivity> read = new ArrayList<>();
+            for (String userId : List.of("alice", "bob")) {
+                archive.oldestFirst(userId).forEachRemaining(read::add);
+            }
+            assertEquals(written, read);
+        }
+    }
+
+    @Test
+    void dailyTotalsSkipPendingSegmentsUntilCommitted() throws Exception {
+        ActivityArchive archive = new ActivityArchive(directory, objectMapper);
+        ArchiveSegmentWriter writer = archive.newSegment();
+        for (ArchivedActivity activity : activities("alice", START, 4)) {
+            writer.append(activity);
+        }
+        writer.append(activity("bob", START, ActivityType.RUNNING, null));
+        writer.append(activity("bob", START.plusHours(1), ActivityType.RUNNING, null));
+        archive.publish(writer);
+
+        assertTrue(archive.dailyTotals(List.of("alice", "bob")).isEmpty());
+        assertEquals(List.of(writer.name()), archive.pendingSegments());
+
+        archive.commit(writer.name());
+        List<DailyActivityTotals> totals = archive.dailyTotals(List.of("bob"));
+        assertEquals(List.of(new DailyActivityTotals("bob", ActivityType.RUNNING, LocalDate.of(2022, 3, 1),
+                2L, 60L, 600L, 30, 300)), totals);
+        assertEquals(5, archive.dailyTotals(List.of("alice", "bob")).size());
+    }
+
+    @Test
+    void reloadKeepsSegmentsAndPendingState() throws Exception {
+        ActivityArchive archive = new ActivityArchive(directory, objectMapper);
+        publishAndCommit(archive, activities("alice", START, 3));
+        ArchiveSegmentWriter pending = archive.newSegment();
+        pending.append(activity("bob", START, ActivityType.RUNNING, null));
+        archive.publish(pending);
+        //an interrupted writer leaves only its work directory behind
+        archive.newSegment().append(activity("carol", START, ActivityType.RUNNING, null));
+
+        ActivityArchive reloaded = new ActivityArchive(directory, objectMapper);
+
+        assertEquals(4, reloaded.rows());
+        assertEquals(List.of(pending.name()), reloaded.pendingSegments());
+        assertEquals(3, reloaded.history("alice", null, null, null, null, null, 10).size());
+        assertFalse(reloaded.userIds().contains("carol"));
+    }
+
+    @Test
+    void writerRejectsRowsThatAreNotGroupedByUser() throws Exception {
+        try (ArchiveSegmentWriter writer = new ActivityArchive(directory, objectMapper).newSegment()) {
+            writer.append(activity("alice", START, ActivityType.RUNNING, null));
+            writer.append(activity("bob", START, ActivityType.RUNNING, null));
+            assertThrows(IllegalStateException.class, () -> writer.append(activity("alice", START.plusDays(1), ActivityType.RUNNING, null)));
+            assertThrows(IllegalStateException.class, () -> writer.append(activity("bob", START.minusDays(1), ActivityType.RUNNING, null)));
+        }
+    }
+
+    private static void publishAndCommit(ActivityArchive archive, List<ArchivedActivity> activities) throws Exception {
+        ArchiveSegmentWriter writer = archive.newSegment();
+        for (ArchivedActivity activity : activities) {
+            writer.append(activity);
+        }
+        archive.publish(writer);
+        archive.commit(writer.name());
+    }
+
+    //one per day, alternating RUNNING and WALKING
+    private static List<ArchivedActivity> activities(String userId, LocalDateTime from, int days) {
+        List<ArchivedActivity> activities = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            ActivityType type = i % 2 == 0 ? ActivityType.RUNNING : ActivityType.WALKING;
+            activities.add(activity(userId, from.plusDays(i), type, Map.of("day", i)));
+        }
+        return activities;
+    }
+
+    private static ArchivedActivity activity(String userId, LocalDateTime start, ActivityType type, Map<String, Object> metrics) {
+        return new ArchivedActivity(UUID.randomUUID().toString(), userId, type, start, 30, 300,
+                start.plusMinutes(31), start.plusMinutes(31), metrics);
+    }
+}
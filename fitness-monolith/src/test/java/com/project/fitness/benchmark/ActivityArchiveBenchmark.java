@@ -0,0 +1,106 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.archive.ActivityArchive;
+import com.project.fitness.archive.ArchiveSegmentWriter;
+import com.project.fitness.archive.ArchivedActivity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.repository.DailyActivityTotals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//Scans over the memory-mapped activity archive: per-day totals for every archived user (what a rollup
+//rebuild does), for one rebuild chunk of 500 users, and one 50-row history page.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityArchiveBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final ActivityType[] TYPES = {ActivityType.RUNNING, ActivityType.CYCLING, ActivityType.YOGA};
+
+    @Param({"1000000", "5000000"})
+    private int rows;
+
+    private Path directory;
+    private ActivityArchive archive;
+    private Set<String> allUsers;
+    private List<String> chunk;
+    private String historyUser;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("archive-benchmark");
+        archive = new ActivityArchive(directory, JsonMapper.builder().build());
+
+        int perUser = rows / USERS;
+        LocalDateTime from = LocalDateTime.of(2020, 1, 1, 6, 0);
+        Map<String, Object> metrics = Map.of("distance", 5.2, "heartRate", 141);
+        try (ArchiveSegmentWriter writer = archive.newSegment()) {
+            for (int user = 0; user < USERS; user++) {
+                String userId = new UUID(0, user).toString();
+                for (int i = 0; i < perUser; i++) {
+                    writer.append(new ArchivedActivity(UUID.randomUUID().toString(), userId, TYPES[i % TYPES.length],
+                            from.plusHours(i * 7L), 30 + i % 60, 200 + i % 400, from, from,
+                            i % 10 == 0 ? metrics : null));
+                }
+            }
+            archive.publish(writer);
+            archive.commit(writer.name());
+        }
+
+        allUsers = archive.userIds();
+        chunk = new ArrayList<>(allUsers).subList(0, 500);
+        historyUser = chunk.get(250);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<DailyActivityTotals> dailyTotalsAllUsers() {
+        return archive.dailyTotals(allUsers);
+    }
+
+    @Benchmark
+    public List<DailyActivityTotals> dailyTotalsRebuildChunk() {
+        return archive.dailyTotals(chunk);
+    }
+
+    @Benchmark
+    public List<ArchivedActivity> historyPage() {
+        return archive.history(historyUser, null, null, null, null, null, 50);
+    }
+}
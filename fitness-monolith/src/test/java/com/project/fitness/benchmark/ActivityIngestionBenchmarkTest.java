@@ -0,0 +1,103 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.service.ActivityService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//compares rows/sec of the per-item create path against the batch endpoint's service method.
+//run with: mvn -Pbenchmark test
+@Tag("benchmark")
+@SpringBootTest
+class ActivityIngestionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityIngestionBenchmarkTest.class);
+    private static final int[] SIZES = {10, 100, 1_000};
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void perItemVersusBatch() {
+        String userId = createUser();
+
+        //warm up both paths so the first measured size is not paying for class loading and JIT
+        runPerItem(requests(200), userId);
+        runBatch(requests(200), userId);
+
+        for (int size : SIZES) {
+            long perItemNanos = Long.MAX_VALUE;
+            long batchNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                perItemNanos = Math.min(perItemNanos, runPerItem(requests(size), userId));
+                batchNanos = Math.min(batchNanos, runBatch(requests(size), userId));
+            }
+            log.info("items={} perItem={} rows/sec batch={} rows/sec speedup={}x",
+                    size,
+                    String.format("%.0f", rowsPerSecond(size, perItemNanos)),
+                    String.format("%.0f", rowsPerSecond(size, batchNanos)),
+                    String.format("%.1f", (double) perItemNanos / batchNanos));
+        }
+    }
+
+    private long runPerItem(List<ActivityRequest> requests, String userId) {
+        long start = System.nanoTime();
+        for (ActivityRequest request : requests) {
+            activityService.createActivity(request, userId);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runBatch(List<ActivityRequest> requests, String userId) {
+        long start = System.nanoTime();
+        int created = activityService.createActivities(requests, userId).getCreated();
+        long elapsed = System.nanoTime() - start;
+        assertEquals(requests.size(), created);
+        return elapsed;
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("bench-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        user.setFirstName("Bench");
+        user.setLastName("User");
+        return userRepository.save(user).getId();
+    }
+
+    private static List<ActivityRequest> requests(int size) {
+        List<ActivityRequest> requests = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.now().minusDays(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(new ActivityRequest(
+                    ActivityType.RUNNING,
+                    Map.of("distance", 5.0 + i % 10, "heartRate", 140 + i % 20),
+                    30 + i % 30,
+                    250 + i % 200,
+                    start.plusHours(i)));
+        }
+        return requests;
+    }
+
+    private static double rowsPerSecond(int rows, long nanos) {
+        return rows / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.fitness.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//compares a JMH JSON result file with the stored baseline and exits non-zero on regressions.
+//usage: BenchmarkBaselineCheck <result.json> <baseline.json> <tolerance, e.g. 0.10>
+//with no baseline yet (or -Dbenchmark.updateBaseline=true) the result becomes the new baseline.
+public class BenchmarkBaselineCheck {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().build();
+
+    public static void main(String[] args) throws IOException {
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        if (!Files.exists(result)) {
+            System.err.println("No JMH result at " + result);
+            System.exit(1);
+        }
+        if (!Files.exists(baseline) || Boolean.getBoolean("benchmark.updateBaseline")) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Stored " + result + " as benchmark baseline " + baseline);
+            return;
+        }
+
+        Map<String, Score> current = read(result);
+        Map<String, Score> reference = read(baseline);
+        List<String> regressions = new ArrayList<>();
+
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = reference.get(entry.getKey());
+            Score now = entry.getValue();
+            if (before == null) {
+                System.out.printf("NEW        %-90s %12.3f %s%n", entry.getKey(), now.value(), now.unit());
+                continue;
+            }
+            double change = (now.value() - before.value()) / before.value();
+            //throughput: higher is better; every other JMH mode reports time per operation
+            boolean regressed = now.higherIsBetter() ? change < -tolerance : change > tolerance;
+            System.out.printf("%-10s %-90s %12.3f -> %12.3f %s (%+.1f%%)%n",
+                    regressed ? "REGRESSED" : "OK", entry.getKey(), before.value(), now.value(), now.unit(), change * 100);
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmark(s) regressed by more than "
+                    + Math.round(tolerance * 100) + "%: " + regressions);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        JsonNode runs = MAPPER.readTree(Files.readString(file));
+        for (int i = 0; i < runs.size(); i++) {
+            JsonNode run = runs.get(i);
+            StringBuilder key = new StringBuilder(run.get("benchmark").asString());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                params.properties().forEach(param -> key.append(' ').append(param.getKey()).append('=').append(param.getValue().asString()));
+            }
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(key.toString(), new Score(
+                    metric.get("score").asDouble(),
+                    metric.get("scoreUnit").asString(),
+                    "thrpt".equals(run.get("mode").asString())));
+        }
+        return scores;
+    }
+
+    private record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.model.ActivityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Serialization of a single ActivityResponse as the web layer does it, with a wearable-sized metrics map.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ActivityResponse activityResponse;
+
+    @Setup
+    public void setup() {
+        objectMapper = JsonMapper.builder().build();
+        activityResponse = new ActivityResponse(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                ActivityType.RUNNING,
+                realisticMetrics(),
+                45,
+                420,
+                LocalDateTime.of(2026, 1, 7, 6, 30),
+                LocalDateTime.of(2026, 1, 7, 7, 15),
+                LocalDateTime.of(2026, 1, 7, 7, 15));
+    }
+
+    @Benchmark
+    public byte[] serializeActivityResponse() {
+        return objectMapper.writeValueAsBytes(activityResponse);
+    }
+
+    static Map<String, Object> realisticMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("distance", 7.5);
+        metrics.put("avgPace", "6:00");
+        metrics.put("elevation", 120);
+        metrics.put("heartRate", 145);
+        metrics.put("maxHeartRate", 172);
+        metrics.put("cadence", 168);
+        metrics.put("device", "watch");
+        metrics.put("splits", List.of(5.58, 5.61, 5.55, 6.02, 5.97, 6.10, 5.88));
+        metrics.put("weather", Map.of("temperature", 14.5, "humidity", 62, "condition", "cloudy"));
+        return metrics;
+    }
+}
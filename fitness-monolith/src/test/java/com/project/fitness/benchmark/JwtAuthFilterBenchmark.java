@@ -0,0 +1,113 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.security.JwtAuthFilter;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Per-request overhead of JwtAuthFilter: the original triple-parse path versus single verification, cold and cached.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String SECRET = "YS1zdHJpbmctc2VjcmV0LWF0LWxlYXN0LTI1Ni1iaXRzLWxvbmc=";
+
+    private JwtAuthFilter uncachedFilter;
+    private JwtAuthFilter cachedFilter;
+    private MockHttpServletRequest request;
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtUtils jwtUtils = new JwtUtils();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        uncachedFilter = new JwtAuthFilter(jwtUtils, new VerifiedTokenCache(0, Duration.ofMinutes(5)), meterRegistry);
+        cachedFilter = new JwtAuthFilter(jwtUtils, new VerifiedTokenCache(10_000, Duration.ofMinutes(5)), meterRegistry);
+        token = jwtUtils.generateToken(UUID.randomUUID().toString(), "USER");
+        request = new MockHttpServletRequest("GET", "/api/activities/all");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Authentication legacyTripleParse() {
+        Authentication authentication = legacyAuthenticate(request, token);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authentication;
+    }
+
+    @Benchmark
+    public Authentication singleParse() throws Exception {
+        return filter(uncachedFilter);
+    }
+
+    @Benchmark
+    public Authentication cachedToken() throws Exception {
+        return filter(cachedFilter);
+    }
+
+    private Authentication filter(JwtAuthFilter filter) throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    //what the filter did before: rebuild the key and parse/verify the same token three times
+    private static Authentication legacyAuthenticate(HttpServletRequest request, String jwt) {
+        Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(jwt);
+        String userId = Jwts.parser().verifyWith(legacyKey()).build()
+                .parseSignedClaims(jwt).getPayload().getSubject();
+        Claims claims = Jwts.parser().verifyWith(legacyKey()).build()
+                .parseSignedClaims(jwt).getPayload();
+        List<?> roles = claims.get("roles", List.class);
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userId, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        return authentication;
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+}
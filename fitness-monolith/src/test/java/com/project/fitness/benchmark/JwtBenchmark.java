@@ -0,0 +1,47 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.security.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String userId;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = new JwtUtils();
+        userId = UUID.randomUUID().toString();
+        token = jwtUtils.generateToken(userId, "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(userId, "USER");
+    }
+
+    @Benchmark
+    public VerifiedToken verifyToken() {
+        return jwtUtils.verify(token);
+    }
+}
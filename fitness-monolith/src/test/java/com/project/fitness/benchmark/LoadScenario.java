@@ -0,0 +1,338 @@
+package com.project.fitness.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//closed-loop HTTP load against a running instance: every client registers once, then loops
+//sign in -> create activity -> list activities. Reports throughput and p50/p99 per operation for the
+//measured window (after warm-up). JDK only, so it runs straight from source:
+//
+//   java src/test/java/com/project/fitness/benchmark/LoadScenario.java --base-url http://localhost:8080 \
+//        --clients 200 --warmup 10 --duration 30 --label virtual --out target/load-results.jsonl
+//
+//benchmarks/load-compare.sh starts the jar in platform and virtual thread mode and runs this against both.
+//
+//with --storm-clients N the scenario becomes a sign-in storm: N extra clients do nothing but sign in,
+//while the regular clients sign in once and then loop create -> list, so their latency shows what the
+//storm does to everyone else. 429/503 answers are counted as "shed" rather than errors.
+public class LoadScenario {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern USER_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[] OPERATIONS = {"signin", "create", "list"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final String password = "load-" + UUID.randomUUID();
+
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    private LoadScenario(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int stormClients = Integer.parseInt(options.getOrDefault("storm-clients", "0"));
+        String label = options.getOrDefault("label", stormClients > 0 ? "storm" : "run");
+
+        Result result = new LoadScenario(baseUrl).run(clients, stormClients, warmupSeconds, durationSeconds);
+        result.print(label, clients);
+        if (options.containsKey("out")) {
+            Path out = Path.of(options.get("out"));
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            Files.writeString(out, result.toJson(label, clients) + "\n",
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private Result run(int clients, int stormClients, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        int total = clients + stormClients;
+        List<String> emails = new ArrayList<>(total);
+        try (ExecutorService setup = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                String email = "load-" + UUID.randomUUID() + "@example.com";
+                emails.add(email);
+                setup.submit(() -> register(email));
+            }
+        }
+
+        Samples[][] samples = new Samples[total][OPERATIONS.length];
+        CountDownLatch done = new CountDownLatch(total);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                Samples[] own = samples[i];
+                for (int op = 0; op < OPERATIONS.length; op++) {
+                    own[op] = new Samples();
+                }
+                String email = emails.get(i);
+                boolean storm = i >= clients;
+                workers.submit(() -> {
+                    try {
+                        if (storm) {
+                            stormLoop(email, own);
+                        } else if (stormClients > 0) {
+                            backgroundLoop(email, own);
+                        } else {
+                            sessionLoop(email, own);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            Thread.sleep(Duration.ofSeconds(warmupSeconds));
+            measuring = true;
+            long start = System.nanoTime();
+            Thread.sleep(Duration.ofSeconds(durationSeconds));
+            measuring = false;
+            long elapsed = System.nanoTime() - start;
+            stopped = true;
+            done.await();
+            return Result.of(samples, elapsed);
+        }
+    }
+
+    private void sessionLoop(String email, Samples[] samples) {
+        LocalDateTime startTime = LocalDateTime.now().minusYears(1);
+        while (!stopped) {
+            String[] session = signIn(email, samples[0]);
+            if (session != null) {
+                startTime = startTime.plusMinutes(1);
+                createAndList(session, startTime, samples);
+            }
+        }
+    }
+
+    private void backgroundLoop(String email, Samples[] samples) {
+        String[] session = null;
+        while (session == null && !stopped) {
+            session = signIn(email, null);
+        }
+        LocalDateTime startTime = LocalDateTime.now().minusYears(1);
+        while (!stopped) {
+            startTime = startTime.plusMinutes(1);
+            createAndList(session, startTime, samples);
+        }
+    }
+
+    private void stormLoop(String email, Samples[] samples) {
+        while (!stopped) {
+            signIn(email, samples[0]);
+        }
+    }
+
+    //{token, userId}, or null when the sign in did not succeed
+    private String[] signIn(String email, Samples samples) {
+        long start = System.nanoTime();
+        HttpResponse<String> signin = send(post("/api/users/signin", null, null,
+                "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"));
+        if (samples != null) {
+            record(samples, signin, System.nanoTime() - start);
+        }
+        if (signin == null || signin.statusCode() != 200) {
+            return null;
+        }
+        String body = signin.body();
+        return new String[]{extract(TOKEN, body), extract(USER_ID, body.substring(body.indexOf("\"user\"")))};
+    }
+
+    private void createAndList(String[] session, LocalDateTime startTime, Samples[] samples) {
+        long t0 = System.nanoTime();
+        HttpResponse<String> create = send(post("/api/activities/create", session[0], "userId " + session[1],
+                "{\"type\":\"RUNNING\",\"duration\":30,\"caloriesBurned\":300,\"startTime\":\"" + startTime
+                        + "\",\"additionalMetrics\":{\"distance\":5.2,\"heartRate\":148}}"));
+        long t1 = System.nanoTime();
+        record(samples[1], create, t1 - t0);
+
+        HttpResponse<String> list = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/activities/all"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + session[0])
+                .header("USER_ID", session[1])
+                .GET()
+                .build());
+        record(samples[2], list, System.nanoTime() - t1);
+    }
+
+    private void register(String email) {
+        HttpResponse<String> response = send(post("/api/users/register", null, null,
+                "{\"email\":\"" + email + "\",\"password\":\"" + password + "\",\"firstName\":\"Load\",\"lastName\":\"Test\"}"));
+        if (response == null || response.statusCode() != 200) {
+            throw new IllegalStateException("Registration failed for " + email
+                    + (response == null ? "" : ": HTTP " + response.statusCode()));
+        }
+    }
+
+    private HttpRequest post(String path, String token, String header, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (header != null) {
+            String[] nameValue = header.split(" ", 2);
+            builder.header(nameValue[0], nameValue[1]);
+        }
+        return builder.build();
+    }
+
+    //null on I/O failure or timeout - counted as an error
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void record(Samples samples, HttpResponse<String> response, long nanos) {
+        if (!measuring) {
+            return;
+        }
+        if (response != null && (response.statusCode() == 429 || response.statusCode() == 503)) {
+            samples.shed++;
+        } else if (response == null || response.statusCode() >= 300) {
+            samples.errors++;
+        } else {
+            samples.add(nanos);
+        }
+    }
+
+    private static String extract(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new UncheckedIOException(new IOException("Unexpected response: " + body));
+        }
+        return matcher.group(1);
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    //single-writer latency buffer, one per client and operation
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+        private long shed;
+
+        void add(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+    }
+
+    private record OperationResult(String name, long count, long errors, long shed,
+                                   double perSecond, double p50Millis, double p99Millis) {
+    }
+
+    private record Result(List<OperationResult> operations, double iterationsPerSecond) {
+
+        static Result of(Samples[][] samples, long elapsedNanos) {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            List<OperationResult> operations = new ArrayList<>();
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                long errors = 0;
+                long shed = 0;
+                int total = 0;
+                for (Samples[] client : samples) {
+                    total += client[op].size;
+                    errors += client[op].errors;
+                    shed += client[op].shed;
+                }
+                long[] merged = new long[total];
+                int offset = 0;
+                for (Samples[] client : samples) {
+                    System.arraycopy(client[op].nanos, 0, merged, offset, client[op].size);
+                    offset += client[op].size;
+                }
+                Arrays.sort(merged);
+                operations.add(new OperationResult(OPERATIONS[op], total, errors, shed, total / seconds,
+                        percentileMillis(merged, 0.50), percentileMillis(merged, 0.99)));
+            }
+            //every completed round ends with a list call
+            return new Result(operations, operations.getLast().count() / seconds);
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.clamp(index, 0, sorted.length - 1)] / 1_000_000.0;
+        }
+
+        void print(String label, int clients) {
+            System.out.printf(Locale.ROOT, "== %s (%d clients): %.1f iterations/sec%n", label, clients, iterationsPerSecond);
+            System.out.printf(Locale.ROOT, "%-8s %10s %8s %8s %10s %10s %10s%n", "op", "ok", "errors", "shed", "req/s", "p50 ms", "p99 ms");
+            for (OperationResult op : operations) {
+                System.out.printf(Locale.ROOT, "%-8s %10d %8d %8d %10.1f %10.2f %10.2f%n",
+                        op.name(), op.count(), op.errors(), op.shed(), op.perSecond(), op.p50Millis(), op.p99Millis());
+            }
+        }
+
+        String toJson(String label, int clients) {
+            StringBuilder json = new StringBuilder()
+                    .append("{\"label\":\"").append(label).append("\",\"clients\":").append(clients)
+                    .append(",\"iterationsPerSecond\":").append(String.format(Locale.ROOT, "%.1f", iterationsPerSecond))
+                    .append(",\"operations\":[");
+            for (int i = 0; i < operations.size(); i++) {
+                OperationResult op = operations.get(i);
+                json.append(i == 0 ? "" : ",")
+                        .append("{\"name\":\"").append(op.name())
+                        .append("\",\"count\":").append(op.count())
+                        .append(",\"errors\":").append(op.errors())
+                        .append(",\"shed\":").append(op.shed())
+                        .append(",\"perSecond\":").append(String.format(Locale.ROOT, "%.1f", op.perSecond()))
+                        .append(",\"p50Millis\":").append(String.format(Locale.ROOT, "%.2f", op.p50Millis()))
+                        .append(",\"p99Millis\":").append(String.format(Locale.ROOT, "%.2f", op.p99Millis()))
+                        .append('}');
+            }
+            return json.append("]}").toString();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.mapper.ActivityMapper;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Per-object mapping cost; add "-prof gc" to the JMH arguments for bytes allocated per operation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private ActivityMapper activityMapper;
+    private ActivityRequest request;
+    private Activity activity;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        activityMapper = new ActivityMapper();
+
+        Map<String, Object> metrics = Map.of("distance", 7.5, "avgPace", "6:00", "elevation", 120, "heartRate", 145);
+        request = new ActivityRequest(ActivityType.RUNNING, metrics, 45, 420, LocalDateTime.now());
+
+        User user = new User();
+        user.setId("0b6f9c1e-6c53-4a0e-9d55-8b3b8d0f3f21");
+        activity = activityMapper.toEntity(request);
+        activity.setId("5a0d2e7c-1f44-4b8e-a1f3-2c9d7e6b5a40");
+        activity.setUser(user);
+        activity.setCreatedAt(LocalDateTime.now());
+        activity.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public Activity modelMapperRequestToEntity() {
+        return modelMapper.map(request, Activity.class);
+    }
+
+    @Benchmark
+    public Activity handWrittenRequestToEntity() {
+        return activityMapper.toEntity(request);
+    }
+
+    @Benchmark
+    public ActivityResponse modelMapperEntityToResponse() {
+        return modelMapper.map(activity, ActivityResponse.class);
+    }
+
+    @Benchmark
+    public ActivityResponse handWrittenEntityToResponse() {
+        return activityMapper.toResponse(activity);
+    }
+}
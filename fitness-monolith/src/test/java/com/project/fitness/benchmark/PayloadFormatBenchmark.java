@@ -0,0 +1,99 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.model.ActivityType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+//Serialization time and payload size of an activity list in each negotiable format, as sent plain and as
+//gzipped by server.compression. The bytes counter is the size of one payload.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    public enum Format {
+        JSON, CBOR, SMILE
+    }
+
+    @Param({"100", "1000", "10000"})
+    private int activities;
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    private Format format;
+
+    private ObjectMapper objectMapper;
+    private List<ActivityResponse> activityList;
+
+    @Setup
+    public void setup() {
+        objectMapper = switch (format) {
+            case JSON -> JsonMapper.builder().build();
+            case CBOR -> CBORMapper.builder().build();
+            case SMILE -> SmileMapper.builder().build();
+        };
+        LocalDateTime start = LocalDateTime.of(2026, 1, 7, 6, 30);
+        activityList = new ArrayList<>(activities);
+        for (int i = 0; i < activities; i++) {
+            activityList.add(new ActivityResponse(
+                    UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(),
+                    ActivityType.values()[i % ActivityType.values().length],
+                    JacksonBenchmark.realisticMetrics(),
+                    30 + i % 60,
+                    200 + i % 500,
+                    start.minusHours(i),
+                    start.minusHours(i).plusMinutes(45),
+                    start.minusHours(i).plusMinutes(45)));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize(Payload payload) {
+        byte[] bytes = objectMapper.writeValueAsBytes(activityList);
+        payload.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] serializeGzipped(Payload payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            objectMapper.writeValue(gzip, activityList);
+        }
+        payload.bytes = out.size();
+        return out.toByteArray();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long bytes;
+    }
+}
@@ -0,0 +1,100 @@
+package com.project.fitness.benchmark;
+
+import com.project.fitness.security.RateLimitFilter;
+import com.project.fitness.security.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Per-request overhead of RateLimitFilter at 64 threads: every thread hitting one bucket (worst-case CAS
+//contention), every thread with its own user bucket, and an unmatched route as the floor.
+//Limits are set high enough that nothing is rejected, so only the bookkeeping is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        RateLimitFilter filter;
+
+        @Setup
+        public void setup() {
+            RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+            rule.setName("activity-writes");
+            rule.setPattern("/api/activities/**");
+            rule.setMethods(List.of("POST"));
+            rule.setCapacity(Integer.MAX_VALUE / 2);
+            rule.setRefillPerSecond(1_000_000_000);
+
+            RateLimitProperties properties = new RateLimitProperties();
+            properties.setRules(List.of(rule));
+            filter = new RateLimitFilter(properties, new SimpleMeterRegistry());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+        MockHttpServletRequest sharedKeyRequest;
+        MockHttpServletRequest ownKeyRequest;
+        MockHttpServletRequest unmatchedRequest;
+        UsernamePasswordAuthenticationToken ownUser;
+
+        @Setup
+        public void setup() {
+            //anonymous, same IP for all threads -> one bucket
+            sharedKeyRequest = new MockHttpServletRequest("POST", "/api/activities/create");
+            ownKeyRequest = new MockHttpServletRequest("POST", "/api/activities/create");
+            unmatchedRequest = new MockHttpServletRequest("GET", "/api/activities/all");
+            ownUser = new UsernamePasswordAuthenticationToken(UUID.randomUUID().toString(), null,
+                    AuthorityUtils.createAuthorityList("ROLE_USER"));
+        }
+    }
+
+    @Benchmark
+    public int sharedBucket(Shared shared, PerThread thread) throws Exception {
+        SecurityContextHolder.clearContext();
+        return filter(shared.filter, thread.sharedKeyRequest);
+    }
+
+    @Benchmark
+    public int bucketPerUser(Shared shared, PerThread thread) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(thread.ownUser);
+        return filter(shared.filter, thread.ownKeyRequest);
+    }
+
+    @Benchmark
+    public int unmatchedRoute(Shared shared, PerThread thread) throws Exception {
+        return filter(shared.filter, thread.unmatchedRequest);
+    }
+
+    private static int filter(RateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        //OncePerRequestFilter marks the request; clear it so the reused request is filtered every time
+        request.clearAttributes();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,175 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityBatchItemResult;
+import com.project.fitness.dto.ActivityBatchResponse;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.mapper.ActivityMapper;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//a batch is partial for invalid items and all-or-nothing for the write: items that fail validation are
+//rejected on their own, but once writing starts any failure rolls back every chunk. Chunks of two and at
+//most five items; the mapper fails on a marked item to break a write half way
+@SpringBootTest(properties = {
+        "app.activities.batch.max-items=5",
+        "app.activities.batch.chunk-size=2"
+})
+@AutoConfigureMockMvc
+class ActivityBatchTest {
+
+    private static final int FAILING_CALORIES = 666;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityService activityService;
+
+    @Test
+    void invalidItemsAreRejectedByIndexAndTheValidOnesCreated() throws Exception {
+        String userId = createUser();
+        List<ActivityRequest> items = Arrays.asList(
+                run(1, 300),
+                new ActivityRequest(null, null, 30, 300, LocalDateTime.of(2026, 4, 2, 7, 0)),
+                run(3, 320),
+                new ActivityRequest(ActivityType.RUNNING, null, -5, 300, LocalDateTime.of(2026, 4, 4, 7, 0)),
+                new ActivityRequest(ActivityType.RUNNING, null, 30, 300, null));
+
+        byte[] body = mockMvc.perform(batch(userId, items))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        ActivityBatchResponse response = objectMapper.readValue(body, ActivityBatchResponse.class);
+
+        assertEquals(2, response.getCreated());
+        assertEquals(3, response.getRejected());
+        List<ActivityBatchItemResult> results = response.getResults();
+        assertEquals(List.of(0, 1, 2, 3, 4), results.stream().map(ActivityBatchItemResult::getIndex).toList());
+        assertEquals(List.of(ActivityBatchItemResult.Status.CREATED, ActivityBatchItemResult.Status.REJECTED,
+                        ActivityBatchItemResult.Status.CREATED, ActivityBatchItemResult.Status.REJECTED,
+                        ActivityBatchItemResult.Status.REJECTED),
+                results.stream().map(ActivityBatchItemResult::getStatus).toList());
+        assertEquals(Arrays.asList(null, "Activity type is required", null, "Duration must not be negative",
+                "Start time is required"), results.stream().map(ActivityBatchItemResult::getError).toList());
+        assertNull(results.get(1).getActivity());
+
+        List<String> created = new ArrayList<>();
+        for (int index : List.of(0, 2)) {
+            ActivityResponse activity = results.get(index).getActivity();
+            assertNotNull(activity.getId());
+            assertEquals(userId, activity.getUserId());
+            assertEquals(items.get(index).getCaloriesBurned(), activity.getCaloriesBurned());
+            created.add(activity.getId());
+        }
+        assertEquals(created.reversed(), storedIds(userId));
+    }
+
+    @Test
+    void anEmptyOrOversizedBatchIs400AndWritesNothing() throws Exception {
+        String userId = createUser();
+        List<ActivityRequest> six = new ArrayList<>();
+        for (int day = 1; day <= 6; day++) {
+            six.add(run(day, 300));
+        }
+
+        mockMvc.perform(batch(userId, six)).andExpect(status().isBadRequest());
+        mockMvc.perform(batch(userId, List.of())).andExpect(status().isBadRequest());
+        mockMvc.perform(batch(userId, six.subList(0, 5))).andExpect(status().isOk());
+
+        assertEquals(5, storedIds(userId).size());
+    }
+
+    @Test
+    void aFailureWhileWritingRollsBackChunksAlreadyFlushed() throws Exception {
+        String userId = createUser();
+        //two chunks are flushed before the fifth item fails
+        List<ActivityRequest> items = List.of(run(1, 300), run(2, 300), run(3, 300), run(4, 300),
+                run(5, FAILING_CALORIES));
+
+        ServletException failure = assertThrows(ServletException.class, () -> mockMvc.perform(batch(userId, items)));
+
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(storedIds(userId).isEmpty());
+    }
+
+    private List<String> storedIds(String userId) {
+        return activityService.getAllActivities(userId, false).stream().map(ActivityResponse::getId).toList();
+    }
+
+    private MockHttpServletRequestBuilder batch(String userId, List<ActivityRequest> items) {
+        return post("/api/activities/batch")
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(items));
+    }
+
+    private static ActivityRequest run(int day, int calories) {
+        return new ActivityRequest(ActivityType.RUNNING, null, 30, calories, LocalDateTime.of(2026, 4, day, 7, 0));
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("batch-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    //fails on the marked item, after the items before it have been persisted
+    static class FailingActivityMapper extends ActivityMapper {
+
+        @Override
+        public Activity toEntity(ActivityRequest activityRequest) {
+            if (activityRequest.getCaloriesBurned() != null && activityRequest.getCaloriesBurned() == FAILING_CALORIES) {
+                throw new IllegalStateException("mapping failed");
+            }
+            return super.toEntity(activityRequest);
+        }
+    }
+
+    @TestConfiguration
+    static class Mappers {
+
+        @Bean
+        @Primary
+        FailingActivityMapper failingActivityMapper() {
+            return new FailingActivityMapper();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityPage;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActivityPageTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 4, 1, 7, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityService activityService;
+
+    @Test
+    void walkingTheCursorVisitsEveryActivityOnceNewestFirstWithTiesOrderedById() throws Exception {
+        String userId = createUser();
+        List<ActivityResponse> created = new ArrayList<>();
+        //five share a start time, so only the id orders them and page boundaries fall inside the tie
+        for (int i = 0; i < 5; i++) {
+            created.add(activityService.createActivity(activity(ActivityType.RUNNING, START), userId));
+        }
+        created.add(activityService.createActivity(activity(ActivityType.RUNNING, START.plusHours(1)), userId));
+        created.add(activityService.createActivity(activity(ActivityType.RUNNING, START.minusHours(1)), userId));
+        List<String> expected = created.stream()
+                .sorted(Comparator.comparing(ActivityResponse::getStartTime).thenComparing(ActivityResponse::getId).reversed())
+                .map(ActivityResponse::getId)
+                .toList();
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = page(userId).param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            ActivityPage page = read(request);
+            page.getItems().forEach(item -> walked.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, walked);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void rangeAndTypeFiltersApplyOnEveryPage() throws Exception {
+        String userId = createUser();
+        List<ActivityResponse> created = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            ActivityType type = day % 2 == 0 ? ActivityType.RUNNING : ActivityType.CYCLING;
+            created.add(activityService.createActivity(activity(type, START.plusDays(day)), userId));
+        }
+
+        //from is inclusive, to exclusive: days 2 to 7
+        ActivityPage range = read(page(userId)
+                .param("from", START.plusDays(2).toString())
+                .param("to", START.plusDays(8).toString())
+                .param("size", "10"));
+        assertEquals(ids(created.subList(2, 8)).reversed(), ids(range.getItems()));
+        assertNull(range.getNextCursor());
+
+        //days 2, 4 and 6 are the runs in the range, one per page
+        List<String> runs = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = page(userId)
+                    .param("from", START.plusDays(2).toString())
+                    .param("to", START.plusDays(8).toString())
+                    .param("type", "RUNNING")
+                    .param("size", "1");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            ActivityPage page = read(request);
+            runs.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of(created.get(6).getId(), created.get(4).getId(), created.get(2).getId()), runs);
+    }
+
+    @Test
+    void cursorThatDoesNotDecodeIsABadRequest() throws Exception {
+        String userId = createUser();
+        activityService.createActivity(activity(ActivityType.RUNNING, START), userId);
+
+        for (String cursor : List.of("not base64!", encode("no separator"), encode("yesterday|some-id"))) {
+            mockMvc.perform(page(userId).param("cursor", cursor))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private MockHttpServletRequestBuilder page(String userId) {
+        return get("/api/activities/page")
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("USER_ID", userId);
+    }
+
+    private ActivityPage read(MockHttpServletRequestBuilder request) throws Exception {
+        byte[] body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readValue(body, ActivityPage.class);
+    }
+
+    private static List<String> ids(List<ActivityResponse> activities) {
+        return activities.stream().map(ActivityResponse::getId).toList();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ActivityRequest activity(ActivityType type, LocalDateTime startTime) {
+        return new ActivityRequest(type, null, 30, 300, startTime);
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("page-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
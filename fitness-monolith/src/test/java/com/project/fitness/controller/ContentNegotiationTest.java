@@ -0,0 +1,102 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ContentNegotiationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityService activityService;
+
+    @Test
+    void binaryFormatsCarryTheSameActivitiesInFewerBytes() throws Exception {
+        String userId = createUserWithActivities(20);
+
+        MvcResult json = list(userId, null);
+        MvcResult cbor = list(userId, MediaType.APPLICATION_CBOR);
+        MvcResult smile = list(userId, SMILE);
+
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(json.getResponse().getContentType())));
+        assertTrue(MediaType.APPLICATION_CBOR.isCompatibleWith(MediaType.parseMediaType(cbor.getResponse().getContentType())));
+        assertTrue(SMILE.isCompatibleWith(MediaType.parseMediaType(smile.getResponse().getContentType())));
+
+        JsonNode expected = read(JsonMapper.builder().build(), json);
+        assertEquals(20, expected.size());
+        assertEquals(expected, read(CBORMapper.builder().build(), cbor));
+        assertEquals(expected, read(SmileMapper.builder().build(), smile));
+        assertTrue(cbor.getResponse().getContentAsByteArray().length < json.getResponse().getContentAsByteArray().length);
+        assertTrue(smile.getResponse().getContentAsByteArray().length < json.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    void wildcardAcceptKeepsGettingJson() throws Exception {
+        String userId = createUserWithActivities(1);
+
+        MvcResult result = list(userId, MediaType.ALL);
+
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+    }
+
+    private MvcResult list(String userId, MediaType accept) throws Exception {
+        var request = get("/api/activities/all")
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("USER_ID", userId);
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept.toString());
+        }
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+    }
+
+    private static JsonNode read(ObjectMapper mapper, MvcResult result) throws Exception {
+        return mapper.readTree(result.getResponse().getContentAsByteArray());
+    }
+
+    private String createUserWithActivities(int count) {
+        User user = new User();
+        user.setEmail("negotiation-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        String userId = userRepository.save(user).getId();
+        LocalDateTime start = LocalDateTime.now().minusDays(count);
+        for (int i = 0; i < count; i++) {
+            activityService.createActivity(new ActivityRequest(ActivityType.RUNNING,
+                    Map.of("distance", 5.0, "heartRate", 150), 30, 300, start.plusDays(i)), userId);
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,435 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import com.project.fitness.service.RecommendationJob;
+import com.project.fitness.service.RecommendationJobService;
+import com.project.fitness.service.RecommendationService;
+import com.project.fitness.support.SqlBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//exact SQL statement budgets for every endpoint in ActivityController, LeaderboardController,
+//RecommendationController, SyncController and AuthController. A budget that has to go up means a new
+//query (or an N+1) was introduced - change it deliberately, never just to make the test pass.
+@SpringBootTest
+@AutoConfigureMockMvc
+class EndpointSqlBudgetTest {
+
+    private static final String PASSWORD = "budget-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private RecommendationJobService recommendationJobService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    //AuthController
+
+    @Test
+    void registerIsOneInsert() throws Exception {
+        perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", uniqueEmail(), "password", PASSWORD,
+                        "firstName", "Budget", "lastName", "User"))));
+        SqlBudget.assertStatements(1, "POST /api/users/register");
+    }
+
+    @Test
+    void signinIsOneSelect() throws Exception {
+        User user = createUser();
+        perform(post("/api/users/signin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("email", user.getEmail(), "password", PASSWORD))));
+        SqlBudget.assertStatements(1, "POST /api/users/signin");
+    }
+
+    //ActivityController
+
+    @Test
+    void createIntoNewBucketsSelectsUserInsertsActivityAndCreatesThreeRollups() throws Exception {
+        String userId = createUser().getId();
+        perform(authorized(post("/api/activities/create"), userId)
+                .header("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(activity(LocalDateTime.now().minusDays(1)))));
+        //user select + activity insert + (increment, insert bucket, increment) per DAY/WEEK/MONTH
+        //+ change sequence bump and stamp
+        SqlBudget.assertStatements(13, "POST /api/activities/create (new buckets)");
+    }
+
+    @Test
+    void createIntoExistingBucketsIsSevenStatements() throws Exception {
+        String userId = createUser().getId();
+        LocalDateTime startTime = LocalDateTime.now().minusDays(1).withHour(6);
+        activityService.createActivity(activity(startTime), userId);
+
+        perform(authorized(post("/api/activities/create"), userId)
+                .header("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(activity(startTime.plusMinutes(30)))));
+        //user select + activity insert + one increment per period + change sequence bump and stamp
+        SqlBudget.assertStatements(7, "POST /api/activities/create (existing buckets)");
+    }
+
+    @Test
+    void batchCostDoesNotGrowWithItemCount() throws Exception {
+        String userId = createUser().getId();
+        LocalDateTime startTime = LocalDateTime.now().minusDays(2).withHour(6);
+        List<ActivityRequest> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(activity(startTime.plusMinutes(i)));
+        }
+
+        perform(authorized(post("/api/activities/batch"), userId)
+                .header("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(items)));
+        //user select + one JDBC insert batch + three new rollup buckets + change sequence bump and stamp
+        SqlBudget.assertStatements(13, "POST /api/activities/batch (20 items)");
+    }
+
+    @Test
+    void listIsOneSelectRegardlessOfHistoryAndRecommendations() throws Exception {
+        String userId = createUser().getId();
+        List<String> activityIds = createActivities(userId, 30);
+        recommendationService.generate(advice(), userId, activityIds.getFirst());
+
+        perform(authorized(get("/api/activities/all"), userId).header("USER_ID", userId));
+        SqlBudget.assertStatements(1, "GET /api/activities/all");
+    }
+
+    @Test
+    void listWithCurrentETagIsServedFromMemoryUntilTheNextWrite() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+        String etag = mockMvc.perform(authorized(get("/api/activities/all"), userId).header("USER_ID", userId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        perform(authorized(get("/api/activities/all"), userId)
+                .header("USER_ID", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        SqlBudget.assertStatements(0, "GET /api/activities/all (current If-None-Match)");
+
+        activityService.createActivity(activity(LocalDateTime.now()), userId);
+        perform(authorized(get("/api/activities/all"), userId)
+                .header("USER_ID", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        SqlBudget.assertStatements(1, "GET /api/activities/all (stale If-None-Match)");
+    }
+
+    @Test
+    void listWithoutMetricsIsOneSelect() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+
+        perform(authorized(get("/api/activities/all"), userId)
+                .header("USER_ID", userId)
+                .param("includeMetrics", "false"));
+        SqlBudget.assertStatements(1, "GET /api/activities/all?includeMetrics=false");
+    }
+
+    @Test
+    void metricSearchIsOneSelect() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+
+        perform(authorized(get("/api/activities/metrics/search"), userId)
+                .header("USER_ID", userId)
+                .param("metric", "DISTANCE")
+                .param("min", "4")
+                .param("size", "10"));
+        SqlBudget.assertStatements(1, "GET /api/activities/metrics/search");
+    }
+
+    @Test
+    void metricSummaryIsOneSelect() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+
+        perform(authorized(get("/api/activities/metrics/summary"), userId)
+                .header("USER_ID", userId)
+                .param("metric", "HEART_RATE"));
+        SqlBudget.assertStatements(1, "GET /api/activities/metrics/summary");
+    }
+
+    @Test
+    void pageIsOneSelect() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+
+        perform(authorized(get("/api/activities/page"), userId)
+                .header("USER_ID", userId)
+                .param("size", "10"));
+        SqlBudget.assertStatements(1, "GET /api/activities/page");
+    }
+
+    @Test
+    void statsIsOneSelect() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+
+        perform(authorized(get("/api/activities/stats"), userId)
+                .header("USER_ID", userId)
+                .param("period", "WEEK"));
+        SqlBudget.assertStatements(1, "GET /api/activities/stats");
+    }
+
+    //the export body streams on an async thread, so its budget is asserted on the service it runs
+    @Test
+    void exportIsOneStreamingSelect() throws Throwable {
+        String userId = createUser().getId();
+        createActivities(userId, 30);
+
+        long exported = SqlBudget.expectStatements(1, "GET /api/activities/export",
+                () -> activityService.exportActivities(userId, OutputStream.nullOutputStream()));
+        assertEquals(30, exported);
+    }
+
+    @Test
+    void deleteIsTenStatementsAndLeavesTombstones() throws Exception {
+        String userId = createUser().getId();
+        String activityId = createActivities(userId, 3).getFirst();
+        recommendationService.generate(advice(), userId, activityId);
+
+        perform(authorized(delete("/api/activities/{activityId}", activityId), userId)
+                .header("userId", userId), 204);
+        //activity select + recommendation id select + one tombstone insert batch + two bulk deletes
+        //+ one decrement per period + change sequence bump and stamp
+        SqlBudget.assertStatements(10, "DELETE /api/activities/{activityId}");
+    }
+
+    //LeaderboardController
+
+    @Test
+    void leaderboardIsServedFromMemory() throws Exception {
+        String userId = createUser().getId();
+        activityService.createActivity(activity(LocalDateTime.now()), userId);
+
+        perform(authorized(get("/api/leaderboards/RUNNING"), userId)
+                .header("USER_ID", userId)
+                .param("period", "MONTH")
+                .param("metric", "DURATION"));
+        SqlBudget.assertStatements(0, "GET /api/leaderboards/{type}");
+    }
+
+    //SyncController
+
+    @Test
+    void changesFeedIsOneSelectPerSource() throws Exception {
+        String userId = createUser().getId();
+        List<String> activityIds = createActivities(userId, 30);
+        recommendationService.generate(advice(), userId, activityIds.getFirst());
+        activityService.deleteActivity(activityIds.getLast(), userId);
+
+        perform(authorized(get("/api/sync/changes"), userId)
+                .header("USER_ID", userId)
+                .param("limit", "10"));
+        SqlBudget.assertStatements(3, "GET /api/sync/changes");
+    }
+
+    //RecommendationController
+
+    @Test
+    void generateSelectsUserAndActivityAndInserts() throws Exception {
+        String userId = createUser().getId();
+        String activityId = createActivities(userId, 1).getFirst();
+
+        perform(authorized(post("/api/recommendation/generate"), userId)
+                .header("userId", userId)
+                .header("activityId", activityId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(advice())));
+        //user select + activity select + recommendation insert + change sequence bump and stamp
+        SqlBudget.assertStatements(5, "POST /api/recommendation/generate");
+    }
+
+    @Test
+    void asyncGenerateDoesNoDatabaseWorkOnTheRequestThread() throws Exception {
+        String userId = createUser().getId();
+        String activityId = createActivities(userId, 1).getFirst();
+
+        perform(authorized(post("/api/recommendation/generate"), userId)
+                .param("async", "true")
+                .header("userId", userId)
+                .header("activityId", activityId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(advice())), 202);
+        SqlBudget.assertStatements(0, "POST /api/recommendation/generate?async=true");
+    }
+
+    @Test
+    void jobStatusIsServedFromMemory() throws Exception {
+        String userId = createUser().getId();
+        String activityId = createActivities(userId, 1).getFirst();
+        RecommendationJob job = recommendationJobService.submit(advice(), userId, activityId).orElseThrow();
+
+        perform(authorized(get("/api/recommendation/jobs/" + job.getId()), userId).header("userId", userId));
+        SqlBudget.assertStatements(0, "GET /api/recommendation/jobs/{jobId}");
+    }
+
+    @Test
+    void autoSelectsUserAndHistoryAndInserts() throws Exception {
+        String userId = createUser().getId();
+        createActivities(userId, 10);
+
+        perform(authorized(post("/api/recommendation/auto"), userId).header("userId", userId));
+        //user select + history select + recommendation insert + change sequence bump and stamp
+        SqlBudget.assertStatements(5, "POST /api/recommendation/auto");
+    }
+
+    @Test
+    void userRecommendationsAreOneSelectThenCached() throws Exception {
+        String userId = createUser().getId();
+        for (String activityId : createActivities(userId, 5)) {
+            recommendationService.generate(advice(), userId, activityId);
+        }
+
+        perform(authorized(get("/api/recommendation/user"), userId).header("userId", userId));
+        SqlBudget.assertStatements(1, "GET /api/recommendation/user (miss)");
+        perform(authorized(get("/api/recommendation/user"), userId).header("userId", userId));
+        SqlBudget.assertStatements(0, "GET /api/recommendation/user (hit)");
+    }
+
+    @Test
+    void activityRecommendationsAreOneSelectThenCached() throws Exception {
+        String userId = createUser().getId();
+        String activityId = createActivities(userId, 1).getFirst();
+        recommendationService.generate(advice(), userId, activityId);
+        recommendationService.generate(advice(), userId, activityId);
+
+        perform(authorized(get("/api/recommendation/activity"), userId).header("activityId", activityId));
+        SqlBudget.assertStatements(1, "GET /api/recommendation/activity (miss)");
+        perform(authorized(get("/api/recommendation/activity"), userId).header("activityId", activityId));
+        SqlBudget.assertStatements(0, "GET /api/recommendation/activity (hit)");
+    }
+
+    @Test
+    void activityRecommendationsWithCurrentETagAreServedFromMemory() throws Exception {
+        String userId = createUser().getId();
+        String activityId = createActivities(userId, 1).getFirst();
+        recommendationService.generate(advice(), userId, activityId);
+        String etag = mockMvc.perform(authorized(get("/api/recommendation/activity"), userId)
+                        .header("activityId", activityId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        perform(authorized(get("/api/recommendation/activity"), userId)
+                .header("activityId", activityId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        SqlBudget.assertStatements(0, "GET /api/recommendation/activity (current If-None-Match)");
+
+        recommendationService.generate(advice(), userId, activityId);
+        perform(authorized(get("/api/recommendation/activity"), userId)
+                .header("activityId", activityId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        SqlBudget.assertStatements(1, "GET /api/recommendation/activity (stale If-None-Match)");
+    }
+
+    //entities
+
+    @Test
+    void entityToStringNeverLoadsRelationships() throws Throwable {
+        String userId = createUser().getId();
+        createActivities(userId, 3);
+        User detached = userRepository.findById(userId).orElseThrow();
+
+        //outside any session: touching the lazy collections would throw rather than query
+        SqlBudget.expectStatements(0, "User.toString/hashCode", () -> detached.toString() + detached.hashCode());
+    }
+
+    //helpers
+
+    private void perform(MockHttpServletRequestBuilder request) throws Exception {
+        perform(request, 200);
+    }
+
+    private void perform(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        SqlBudget.reset();
+        mockMvc.perform(request).andExpect(status().is(expectedStatus));
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, String userId) {
+        return request.header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"));
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setEmail(uniqueEmail());
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setFirstName("Budget");
+        user.setLastName("User");
+        return userRepository.save(user);
+    }
+
+    private List<String> createActivities(String userId, int count) {
+        LocalDateTime start = LocalDateTime.now().minusDays(count);
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(activityService.createActivity(activity(start.plusDays(i)), userId).getId());
+        }
+        return ids;
+    }
+
+    private static ActivityRequest activity(LocalDateTime startTime) {
+        return new ActivityRequest(ActivityType.RUNNING, Map.of("distance", 5.0, "heartRate", 150), 30, 300, startTime);
+    }
+
+    private static RecommendationRequest advice() {
+        return new RecommendationRequest(List.of("Run a little longer"), List.of("Add a rest day"), List.of("Hydrate"));
+    }
+
+    private static String uniqueEmail() {
+        return "budget-" + UUID.randomUUID() + "@example.com";
+    }
+
+    private String json(Object value) {
+        return objectMapper.writeValueAsString(value);
+    }
+}
@@ -0,0 +1,122 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RecommendationResponse;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import com.project.fitness.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//the recommendation lookups are cached per user and per activity; a generate must never leave a stale list behind
+@SpringBootTest
+@AutoConfigureMockMvc
+class RecommendationCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Test
+    void aGetAfterGenerateReturnsTheNewRecommendation() throws Exception {
+        String userId = createUser();
+        String activityId = createActivity(userId);
+        String first = recommendationService.generate(advice("Run longer"), userId, activityId).getId();
+
+        //both lists cached with the first recommendation only
+        assertEquals(List.of(first), ids(read(byUser(userId))));
+        assertEquals(List.of(first), ids(read(byActivity(userId, activityId))));
+
+        String second = recommendationService.generate(advice("Run faster"), userId, activityId).getId();
+
+        for (MockHttpServletRequestBuilder request : List.of(byUser(userId), byActivity(userId, activityId))) {
+            List<RecommendationResponse> recommendations = read(request);
+            assertEquals(Set.of(first, second), Set.copyOf(ids(recommendations)));
+            RecommendationResponse latest = recommendations.stream()
+                    .filter(recommendation -> recommendation.getId().equals(second))
+                    .findFirst().orElseThrow();
+            assertEquals(userId, latest.getUserId());
+            assertEquals(activityId, latest.getActivityId());
+            assertEquals(List.of("Run faster"), latest.getImprovements());
+        }
+    }
+
+    @Test
+    void theCachedListCannotBeChangedByACaller() {
+        String userId = createUser();
+        String activityId = createActivity(userId);
+        recommendationService.generate(advice("Run longer"), userId, activityId);
+
+        List<RecommendationResponse> cached = recommendationService.getUserRecommendation(userId);
+        assertThrows(UnsupportedOperationException.class, () -> cached.add(new RecommendationResponse()));
+        assertThrows(UnsupportedOperationException.class, cached::clear);
+        assertEquals(1, recommendationService.getUserRecommendation(userId).size());
+    }
+
+    private List<RecommendationResponse> read(MockHttpServletRequestBuilder request) throws Exception {
+        byte[] body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return List.of(objectMapper.readValue(body, RecommendationResponse[].class));
+    }
+
+    private static List<String> ids(List<RecommendationResponse> recommendations) {
+        return recommendations.stream().map(RecommendationResponse::getId).toList();
+    }
+
+    private MockHttpServletRequestBuilder byUser(String userId) {
+        return get("/api/recommendation/user")
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("userId", userId);
+    }
+
+    private MockHttpServletRequestBuilder byActivity(String userId, String activityId) {
+        return get("/api/recommendation/activity")
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("activityId", activityId);
+    }
+
+    private static RecommendationRequest advice(String improvement) {
+        return new RecommendationRequest(List.of(improvement), List.of("Rest"), List.of("Hydrate"));
+    }
+
+    private String createActivity(String userId) {
+        return activityService.createActivity(new ActivityRequest(ActivityType.RUNNING, null, 30, 300,
+                LocalDateTime.of(2026, 4, 1, 7, 0)), userId).getId();
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("cache-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,249 @@
+package com.project.fitness.controller;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.RecommendationJobResponse;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.mapper.RecommendationMapper;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.Recommendation;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.RecommendationRepository;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import com.project.fitness.service.RecommendationJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//one worker and a one-slot queue; the mapper can be held to keep the worker busy on a job
+@SpringBootTest(properties = {
+        "app.recommendation.jobs.workers=1",
+        "app.recommendation.jobs.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+class RecommendationJobTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RecommendationRepository recommendationRepository;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private HoldableRecommendationMapper recommendationMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void release() {
+        recommendationMapper.release();
+    }
+
+    @Test
+    void aSubmittedJobIs202WithALocationThatIsPolledFromQueuedToCompleted() throws Exception {
+        String userId = createUser();
+        String activityId = createActivity(userId);
+
+        recommendationMapper.hold();
+        RecommendationJobResponse running = submit(userId, activityId);
+        recommendationMapper.awaitHeld();
+        RecommendationJobResponse queued = submit(userId, activityId);
+
+        assertEquals(RecommendationJob.Status.QUEUED, poll(userId, queued.getJobId()).getStatus());
+        assertEquals(RecommendationJob.Status.RUNNING, poll(userId, running.getJobId()).getStatus());
+
+        recommendationMapper.release();
+        for (RecommendationJobResponse job : List.of(running, queued)) {
+            RecommendationJobResponse done = awaitFinished(userId, job.getJobId());
+            assertEquals(RecommendationJob.Status.COMPLETED, done.getStatus());
+            assertNull(done.getError());
+            assertNotNull(done.getStartedAt());
+            assertNotNull(done.getFinishedAt());
+            Recommendation recommendation = recommendationRepository.findById(done.getRecommendationId()).orElseThrow();
+            assertEquals(List.of("Run longer"), recommendation.getImprovements());
+        }
+    }
+
+    @Test
+    void aJobWhoseGenerationThrowsEndsFailedWithTheError() throws Exception {
+        String userId = createUser();
+
+        RecommendationJobResponse job = submit(userId, "no-such-activity");
+
+        RecommendationJobResponse done = awaitFinished(userId, job.getJobId());
+        assertEquals(RecommendationJob.Status.FAILED, done.getStatus());
+        assertEquals("Activity Not found", done.getError());
+        assertNull(done.getRecommendationId());
+    }
+
+    @Test
+    void submittingWhileTheQueueIsFullIs429() throws Exception {
+        String userId = createUser();
+        String activityId = createActivity(userId);
+        double rejected = meterRegistry.get("recommendation.jobs.rejected").counter().count();
+
+        recommendationMapper.hold();
+        RecommendationJobResponse running = submit(userId, activityId);
+        recommendationMapper.awaitHeld();
+        RecommendationJobResponse queued = submit(userId, activityId);
+
+        mockMvc.perform(generateAsync(userId, activityId))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        assertEquals(rejected + 1, meterRegistry.get("recommendation.jobs.rejected").counter().count());
+
+        recommendationMapper.release();
+        assertEquals(RecommendationJob.Status.COMPLETED, awaitFinished(userId, running.getJobId()).getStatus());
+        assertEquals(RecommendationJob.Status.COMPLETED, awaitFinished(userId, queued.getJobId()).getStatus());
+    }
+
+    @Test
+    void anUnknownJobAndAnotherUsersJobAreNotFound() throws Exception {
+        String owner = createUser();
+        String other = createUser();
+        RecommendationJobResponse job = submit(owner, createActivity(owner));
+
+        mockMvc.perform(jobStatus(owner, UUID.randomUUID().toString()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(jobStatus(other, job.getJobId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(jobStatus(owner, job.getJobId()))
+                .andExpect(status().isOk());
+    }
+
+    private RecommendationJobResponse submit(String userId, String activityId) throws Exception {
+        MvcResult result = mockMvc.perform(generateAsync(userId, activityId))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        RecommendationJobResponse job = objectMapper.readValue(result.getResponse().getContentAsByteArray(),
+                RecommendationJobResponse.class);
+        assertEquals("/api/recommendation/jobs/" + job.getJobId(), result.getResponse().getHeader(HttpHeaders.LOCATION));
+        return job;
+    }
+
+    private RecommendationJobResponse poll(String userId, String jobId) throws Exception {
+        byte[] body = mockMvc.perform(jobStatus(userId, jobId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readValue(body, RecommendationJobResponse.class);
+    }
+
+    private RecommendationJobResponse awaitFinished(String userId, String jobId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            RecommendationJobResponse job = poll(userId, jobId);
+            if (job.getStatus() == RecommendationJob.Status.COMPLETED || job.getStatus() == RecommendationJob.Status.FAILED) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "job " + jobId + " still " + job.getStatus());
+            Thread.sleep(10);
+        }
+    }
+
+    private MockHttpServletRequestBuilder generateAsync(String userId, String activityId) {
+        return authorized(post("/api/recommendation/generate"), userId)
+                .param("async", "true")
+                .header("activityId", activityId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"improvements": ["Run longer"], "suggestions": ["Rest"], "safety": ["Hydrate"]}
+                        """);
+    }
+
+    private MockHttpServletRequestBuilder jobStatus(String userId, String jobId) {
+        return authorized(get("/api/recommendation/jobs/" + jobId), userId);
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, String userId) {
+        return request
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("userId", userId);
+    }
+
+    private String createActivity(String userId) {
+        return activityService.createActivity(new ActivityRequest(ActivityType.RUNNING, null, 30, 300,
+                LocalDateTime.of(2026, 4, 1, 7, 0)), userId).getId();
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("jobs-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    //once hold() is called, keeps the next mapping - and with it the worker - waiting until release()
+    static class HoldableRecommendationMapper extends RecommendationMapper {
+
+        private volatile CountDownLatch held = new CountDownLatch(0);
+        private volatile CountDownLatch released = new CountDownLatch(0);
+
+        @Override
+        public Recommendation toEntity(RecommendationRequest request) {
+            held.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.toEntity(request);
+        }
+
+        void hold() {
+            held = new CountDownLatch(1);
+            released = new CountDownLatch(1);
+        }
+
+        void awaitHeld() throws InterruptedException {
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+
+    @TestConfiguration
+    static class Mappers {
+
+        @Bean
+        @Primary
+        HoldableRecommendationMapper holdableRecommendationMapper() {
+            return new HoldableRecommendationMapper();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.project.fitness.datasource;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.service.ActivityService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//two in-memory H2 databases stand in for primary and replica. Nothing replicates on its own: replicate()
+//copies the primary into the replica, so a read that sees rows written after the last copy came from the primary
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.read-your-writes=1h",
+        "app.datasource.replica.hikari.connection-timeout=250"
+})
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private ActivityRepository activityRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @BeforeEach
+    void replicate() {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT", String.class).stream()
+                .filter(statement -> !statement.startsWith("--"))
+                .forEach(replica::execute);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByTheReplica() {
+        String userId = createUser();
+        //repository writes do not open a read-your-writes window
+        activityRepository.save(activity(userId));
+
+        assertEquals(0, activityService.getAllActivities(userId, true).size(), "read before replication");
+        replicate();
+        assertEquals(1, activityService.getAllActivities(userId, true).size(), "read after replication");
+    }
+
+    @Test
+    void recentWriterReadsTheirOwnWritesFromThePrimary() {
+        String userId = createUser();
+        activityService.createActivity(request(), userId);
+
+        authenticateAs(userId);
+        assertEquals(1, activityService.getAllActivities(userId, true).size());
+        assertEquals(1, activityService.getStats(userId, RollupPeriod.DAY, null, null, null).size());
+    }
+
+    @Test
+    void otherUsersStillReadFromTheReplica() {
+        String writerId = createUser();
+        activityService.createActivity(request(), writerId);
+
+        authenticateAs(createUser());
+        assertEquals(0, activityService.getAllActivities(writerId, true).size());
+    }
+
+    @Test
+    @DirtiesContext
+    void readsFallBackToThePrimaryWhenTheReplicaIsUnavailable() {
+        String userId = createUser();
+        activityRepository.save(activity(userId));
+
+        replicaDataSource.close();
+        assertEquals(1, activityService.getAllActivities(userId, true).size());
+    }
+
+    private void authenticateAs(String userId) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                userId, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("routing-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    private Activity activity(String userId) {
+        Activity activity = new Activity();
+        activity.setUser(userRepository.getReferenceById(userId));
+        activity.setType(ActivityType.RUNNING);
+        activity.setDuration(30);
+        activity.setCaloriesBurned(300);
+        activity.setStartTime(LocalDateTime.now().minusHours(1));
+        return activity;
+    }
+
+    private static ActivityRequest request() {
+        return new ActivityRequest(ActivityType.RUNNING, Map.of("distance", 5.0), 30, 300, LocalDateTime.now().minusHours(1));
+    }
+}
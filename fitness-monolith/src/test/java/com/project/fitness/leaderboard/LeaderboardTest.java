@@ -0,0 +1,115 @@
+package com.project.fitness.leaderboard;
+
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void topIsHighestFirstWithTiesSharingARank() {
+        Leaderboard board = new Leaderboard();
+        board.add("carol", 10, 300);
+        board.add("alice", 20, 500);
+        board.add("bob", 30, 300);
+        board.refresh(10);
+
+        assertEquals(List.of(
+                new Leaderboard.Ranked("alice", 500, 1),
+                new Leaderboard.Ranked("bob", 300, 2),
+                new Leaderboard.Ranked("carol", 300, 2)), board.top(LeaderboardMetric.CALORIES, 10));
+        assertEquals(new Leaderboard.Ranked("bob", 30, 1), board.top(LeaderboardMetric.DURATION, 1).getFirst());
+    }
+
+    @Test
+    void ownRankIsAvailableOutsideTheTopK() {
+        Leaderboard board = new Leaderboard();
+        //from 1: a zero score is not on the board
+        for (int user = 1; user <= 1_000; user++) {
+            board.add("user-" + user, user, user);
+        }
+        board.refresh(5);
+
+        assertEquals(5, board.top(LeaderboardMetric.CALORIES, 100).size());
+        assertEquals(new Leaderboard.Ranked("user-1", 1, 1_000), board.rank(LeaderboardMetric.CALORIES, "user-1"));
+        assertEquals(new Leaderboard.Ranked("user-500", 500, 501), board.rank(LeaderboardMetric.CALORIES, "user-500"));
+        assertNull(board.rank(LeaderboardMetric.CALORIES, "nobody"));
+    }
+
+    @Test
+    void rankingsOnlyMoveOnRefresh() {
+        Leaderboard board = new Leaderboard();
+        board.add("alice", 0, 100);
+        board.refresh(10);
+        board.add("bob", 0, 200);
+
+        assertEquals(1, board.top(LeaderboardMetric.CALORIES, 10).size());
+        board.refresh(10);
+        assertEquals("bob", board.top(LeaderboardMetric.CALORIES, 10).getFirst().userId());
+    }
+
+    @Test
+    void aScoreBackAtZeroLeavesTheBoard() {
+        Leaderboard board = new Leaderboard();
+        board.add("alice", 30, 300);
+        board.add("bob", 20, 200);
+        board.add("alice", -30, -300);
+        board.refresh(10);
+
+        assertEquals(1, board.size());
+        assertNull(board.rank(LeaderboardMetric.CALORIES, "alice"));
+        assertEquals(List.of(new Leaderboard.Ranked("bob", 200, 1)), board.top(LeaderboardMetric.CALORIES, 10));
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        Leaderboard board = new Leaderboard();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        board.add("user-" + (i % 10), 1, 2);
+                    }
+                });
+            }
+        }
+        board.refresh(10);
+
+        assertTrue(board.top(LeaderboardMetric.CALORIES, 10).stream().allMatch(entry -> entry.score() == 16_000));
+        assertEquals(8_000, board.rank(LeaderboardMetric.DURATION, "user-3").score());
+    }
+
+    @Test
+    void snapshotRoundTripsScores() throws Exception {
+        LeaderboardKey key = new LeaderboardKey(RollupPeriod.WEEK, LocalDate.of(2026, 10, 12), ActivityType.CYCLING);
+        Leaderboard board = new Leaderboard();
+        board.add("alice", 90, 800);
+        board.add("bob", 45, 400);
+        Path file = directory.resolve("leaderboards.snapshot");
+
+        LeaderboardSnapshot.write(file, Map.of(key, board));
+        Map<LeaderboardKey, Leaderboard> read = LeaderboardSnapshot.read(file);
+
+        Leaderboard restored = read.get(key);
+        restored.refresh(10);
+        assertEquals(List.of(
+                new Leaderboard.Ranked("alice", 90, 1),
+                new Leaderboard.Ranked("bob", 45, 2)), restored.top(LeaderboardMetric.DURATION, 10));
+        assertTrue(LeaderboardSnapshot.read(directory.resolve("missing")).isEmpty());
+    }
+}
@@ -0,0 +1,120 @@
+package com.project.fitness.leaderboard;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.LeaderboardEntry;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.service.ActivityService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+//the transaction template can run a write between a rebuild's rollup read and its swap
+@SpringBootTest
+class LeaderboardsTest {
+
+    @Autowired
+    private Leaderboards leaderboards;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HookedTransactionTemplate transactionTemplate;
+
+    @Test
+    void aWriteCommittedWhileARebuildRunsIsOnTheRebuiltBoards() {
+        String userId = createUser();
+        createRow(userId, 100);
+
+        //commits after the rebuild has read the rollups and before it swaps in its boards
+        transactionTemplate.afterNextOnThisThread(() -> createRow(userId, 50));
+        leaderboards.rebuild();
+
+        for (RollupPeriod period : List.of(RollupPeriod.WEEK, RollupPeriod.MONTH)) {
+            assertEquals(150, you(userId, period).getScore(), period + " calories");
+        }
+        leaderboards.rebuild();
+        assertEquals(150, you(userId, RollupPeriod.WEEK).getScore());
+    }
+
+    @Test
+    void aUserWhoseActivitiesAreAllDeletedLeavesTheBoard() {
+        String userId = createUser();
+        String activityId = createRow(userId, 150);
+        assertEquals(150, you(userId, RollupPeriod.WEEK).getScore());
+
+        activityService.deleteActivity(activityId, userId);
+
+        assertNull(you(userId, RollupPeriod.WEEK));
+        leaderboards.rebuild();
+        assertNull(you(userId, RollupPeriod.WEEK));
+    }
+
+    private LeaderboardEntry you(String userId, RollupPeriod period) {
+        return leaderboards.getLeaderboard(ActivityType.ROWING, period, LeaderboardMetric.CALORIES, 10, userId).getYou();
+    }
+
+    private String createRow(String userId, int calories) {
+        return activityService.createActivity(new ActivityRequest(ActivityType.ROWING, null, 20, calories,
+                LocalDateTime.now()), userId).getId();
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("leaderboards-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    //runs a hook once the next transaction started on the armed thread has completed
+    static class HookedTransactionTemplate extends TransactionTemplate {
+
+        private volatile Thread armed;
+        private volatile Runnable hook;
+
+        HookedTransactionTemplate(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            T result = super.execute(action);
+            if (armed == Thread.currentThread()) {
+                armed = null;
+                hook.run();
+            }
+            return result;
+        }
+
+        void afterNextOnThisThread(Runnable hook) {
+            this.hook = hook;
+            armed = Thread.currentThread();
+        }
+    }
+
+    @TestConfiguration
+    static class Transactions {
+
+        @Bean
+        @Primary
+        HookedTransactionTemplate hookedTransactionTemplate(PlatformTransactionManager transactionManager) {
+            return new HookedTransactionTemplate(transactionManager);
+        }
+    }
+}
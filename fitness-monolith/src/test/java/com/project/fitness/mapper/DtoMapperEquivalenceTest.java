@@ -0,0 +1,85 @@
+package com.project.fitness.mapper;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RegisteredRequest;
+import com.project.fitness.dto.UserResponse;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.Recommendation;
+import com.project.fitness.model.User;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//the hand-written mappers must produce exactly what the reflective ModelMapper produced
+class DtoMapperEquivalenceTest {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ActivityMapper activityMapper = new ActivityMapper();
+    private final UserMapper userMapper = new UserMapper();
+    private final RecommendationMapper recommendationMapper = new RecommendationMapper();
+
+    @Test
+    void activityRequestToActivity() {
+        ActivityRequest full = new ActivityRequest(ActivityType.RUNNING,
+                Map.of("distance", 7.5, "avgPace", "6:00", "heartRate", 145),
+                45, 420, LocalDateTime.of(2026, 1, 7, 6, 30));
+        ActivityRequest empty = new ActivityRequest();
+
+        assertEquals(modelMapper.map(full, Activity.class), activityMapper.toEntity(full));
+        assertEquals(modelMapper.map(empty, Activity.class), activityMapper.toEntity(empty));
+    }
+
+    @Test
+    void activityToActivityResponse() {
+        User user = new User();
+        user.setId("user-1");
+
+        Activity full = new Activity();
+        full.setId("activity-1");
+        full.setUser(user);
+        full.setType(ActivityType.SWIMMING);
+        full.setAdditionalMetrics(Map.of("laps", 40, "stroke", "freestyle"));
+        full.setDuration(50);
+        full.setCaloriesBurned(510);
+        full.setStartTime(LocalDateTime.of(2026, 1, 7, 6, 30));
+        full.setCreatedAt(LocalDateTime.of(2026, 1, 7, 7, 30));
+        full.setUpdatedAt(LocalDateTime.of(2026, 1, 7, 7, 45));
+        Activity empty = new Activity();
+
+        assertEquals(modelMapper.map(full, ActivityResponse.class), activityMapper.toResponse(full));
+        assertEquals(modelMapper.map(empty, ActivityResponse.class), activityMapper.toResponse(empty));
+    }
+
+    @Test
+    void registeredRequestToUserAndResponse() {
+        RegisteredRequest request = new RegisteredRequest("user@example.com", "secret", "John", "Doe");
+
+        User expected = modelMapper.map(request, User.class);
+        User actual = userMapper.toEntity(request);
+        assertEquals(expected, actual);
+
+        actual.setId("user-1");
+        assertEquals(modelMapper.map(actual, UserResponse.class), userMapper.toResponse(actual));
+        assertEquals(modelMapper.map(new User(), UserResponse.class), userMapper.toResponse(new User()));
+    }
+
+    @Test
+    void recommendationRequestToRecommendation() {
+        RecommendationRequest full = new RecommendationRequest(
+                List.of("Increase distance by 10%"),
+                List.of("Try intervals"),
+                List.of("Stay hydrated"));
+        RecommendationRequest empty = new RecommendationRequest();
+
+        assertEquals(modelMapper.map(full, Recommendation.class), recommendationMapper.toEntity(full));
+        assertEquals(modelMapper.map(empty, Recommendation.class), recommendationMapper.toEntity(empty));
+    }
+}
@@ -0,0 +1,114 @@
+package com.project.fitness.metrics;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import com.project.fitness.service.ActivityService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//the per-request database meters RequestMetricsFilter records, and who may read them; the test properties
+//expose no actuator endpoints, so this context exposes the ones production has
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=health,metrics,caches,prometheus")
+@AutoConfigureMockMvc
+class RequestMetricsTest {
+
+    private static final String URI = "/api/activities/all";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityService activityService;
+
+    @Test
+    void eachRequestRecordsItsStatementsJdbcTimeAndConnectionWaitUnderItsRouteTemplate() throws Exception {
+        String userId = createUser();
+        activityService.createActivity(new ActivityRequest(ActivityType.RUNNING, null, 30, 300,
+                LocalDateTime.of(2026, 4, 1, 7, 0)), userId);
+        //registers the meters, so the deltas below are exactly one request's
+        mockMvc.perform(activities(userId)).andExpect(status().isOk());
+        long requests = statements().count();
+        double statementTotal = statements().totalAmount();
+        double jdbcNanos = jdbc().totalTime(TimeUnit.NANOSECONDS);
+
+        mockMvc.perform(activities(userId)).andExpect(status().isOk());
+
+        assertEquals(requests + 1, statements().count());
+        //one select for the list; another test's request on the same route can't run meanwhile
+        assertEquals(statementTotal + 1, statements().totalAmount());
+        assertEquals(requests + 1, jdbc().count());
+        assertTrue(jdbc().totalTime(TimeUnit.NANOSECONDS) > jdbcNanos);
+        assertEquals(requests + 1, meterRegistry.get("http.server.requests.connection.wait")
+                .tags("method", "GET", "uri", URI).timer().count());
+    }
+
+    @Test
+    void actuatorEndpointsOtherThanHealthNeedAnAdmin() throws Exception {
+        String userId = createUser();
+        mockMvc.perform(activities(userId)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        for (String endpoint : new String[]{"/actuator/prometheus", "/actuator/metrics", "/actuator/caches"}) {
+            mockMvc.perform(get(endpoint)).andExpect(status().isForbidden());
+            mockMvc.perform(get(endpoint).header("Authorization", bearer(userId, "USER")))
+                    .andExpect(status().isForbidden());
+        }
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").header("Authorization", bearer(userId, "ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        for (String meter : new String[]{"http_server_requests_sql_statements", "http_server_requests_jdbc_seconds",
+                "http_server_requests_connection_wait_seconds"}) {
+            assertTrue(scrape.contains(meter + "_count{method=\"GET\",uri=\"" + URI + "\"}"), meter);
+        }
+    }
+
+    private DistributionSummary statements() {
+        return meterRegistry.get("http.server.requests.sql.statements").tags("method", "GET", "uri", URI).summary();
+    }
+
+    private Timer jdbc() {
+        return meterRegistry.get("http.server.requests.jdbc").tags("method", "GET", "uri", URI).timer();
+    }
+
+    private MockHttpServletRequestBuilder activities(String userId) {
+        return get(URI)
+                .header("Authorization", bearer(userId, "USER"))
+                .header("USER_ID", userId);
+    }
+
+    private String bearer(String userId, String role) {
+        return "Bearer " + jwtUtils.generateToken(userId, role);
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("metrics-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
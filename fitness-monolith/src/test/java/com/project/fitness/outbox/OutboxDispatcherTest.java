@@ -0,0 +1,226 @@
+package com.project.fitness.outbox;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.OutboxEvent;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.OutboxEventRepository;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.service.ActivityService;
+import com.project.fitness.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//the outbox is on here, with a poll interval long enough that the dispatcher thread never runs; each test
+//drains the outbox itself
+@SpringBootTest(properties = {
+        "app.outbox.enabled=true",
+        "app.outbox.poll-millis=3600000"
+})
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private RecordingListener listener;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void eventsCommitWithTheWriteAndReachListenersInWriteOrder() {
+        String userId = createUser();
+        List<String> activityIds = activityService.createActivities(List.of(run(1), run(2), run(3)), userId)
+                .getResults().stream()
+                .map(result -> result.getActivity().getId())
+                .toList();
+        String recommendationId = recommendationService.generate(new RecommendationRequest(List.of("Run longer"),
+                List.of("Rest"), List.of("Hydrate")), userId, activityIds.getFirst()).getId();
+        activityService.deleteActivity(activityIds.getLast(), userId);
+
+        //committed with the writes, nobody told yet
+        assertEquals(5, pending(userId).size());
+        assertEquals(List.of(), listener.received(userId));
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of(
+                "ACTIVITY_CREATED " + activityIds.get(0),
+                "ACTIVITY_CREATED " + activityIds.get(1),
+                "ACTIVITY_CREATED " + activityIds.get(2),
+                "RECOMMENDATION_CREATED " + recommendationId,
+                "ACTIVITY_DELETED " + activityIds.get(2)), listener.received(userId));
+        assertEquals(List.of(), pending(userId));
+    }
+
+    @Test
+    void failedDeliveryIsRetriedAndHoldsBackOnlyThatUsersLaterEvents() {
+        String userId = createUser();
+        String otherUserId = createUser();
+        String first = activityService.createActivity(run(1), userId).getId();
+        String second = activityService.createActivity(run(2), userId).getId();
+        String third = activityService.createActivity(run(3), userId).getId();
+        String other = activityService.createActivity(run(4), otherUserId).getId();
+        listener.failTimes(second, 1);
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of("ACTIVITY_CREATED " + first), listener.received(userId));
+        assertEquals(List.of("ACTIVITY_CREATED " + other), listener.received(otherUserId));
+        OutboxEvent failed = pending(userId).stream()
+                .filter(event -> event.getEntityId().equals(second))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, failed.getAttempts());
+        assertTrue(failed.getLastError().contains("listener down"));
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of(
+                "ACTIVITY_CREATED " + first,
+                "ACTIVITY_CREATED " + second,
+                "ACTIVITY_CREATED " + third), listener.received(userId));
+        assertEquals(List.of(), pending(userId));
+    }
+
+    @Test
+    void eventThatKeepsFailingGoesDeadAndStopsBlocking() {
+        String userId = createUser();
+        String first = activityService.createActivity(run(1), userId).getId();
+        String poison = activityService.createActivity(run(2), userId).getId();
+        String third = activityService.createActivity(run(3), userId).getId();
+        listener.failTimes(poison, Integer.MAX_VALUE);
+
+        //max-attempts is 3 in tests; the third failure releases the rest of the batch for the next pass
+        for (int pass = 0; pass < 4; pass++) {
+            dispatcher.dispatch();
+        }
+
+        assertEquals(List.of("ACTIVITY_CREATED " + first, "ACTIVITY_CREATED " + third), listener.received(userId));
+        List<OutboxEvent> left = pending(userId);
+        assertEquals(1, left.size());
+        assertEquals(poison, left.getFirst().getEntityId());
+        assertEquals(3, left.getFirst().getAttempts());
+        assertNotNull(left.getFirst().getDeadAt());
+    }
+
+    @Test
+    void aUsersWritesDoNotWaitForEachOther() throws Exception {
+        String userId = createUser();
+        String anchor = activityService.createActivity(run(1), userId).getId();
+        dispatcher.dispatch();
+        RecommendationRequest advice = new RecommendationRequest(List.of("Run longer"), List.of("Rest"),
+                List.of("Hydrate"));
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            //a slow write (an import chunk, say) still open while the same user generates a recommendation;
+            //the two touch no common rows, so the second commits first
+            String activity = transactionTemplate.execute(status -> {
+                String id = activityService.createActivity(new ActivityRequest(ActivityType.CYCLING, null, 60, 500,
+                        LocalDateTime.of(2026, 3, 2, 7, 0)), userId).getId();
+                Future<String> recommendation = writer.submit(
+                        () -> recommendationService.generate(advice, userId, anchor).getId());
+                try {
+                    String recommendationId = recommendation.get(10, TimeUnit.SECONDS);
+                    //on another thread, outside this transaction
+                    CompletableFuture.runAsync(dispatcher::dispatch).join();
+                    assertEquals(List.of("ACTIVITY_CREATED " + anchor, "RECOMMENDATION_CREATED " + recommendationId),
+                            listener.received(userId));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return id;
+            });
+
+            dispatcher.dispatch();
+
+            assertEquals("ACTIVITY_CREATED " + activity, listener.received(userId).getLast());
+            assertEquals(List.of(), pending(userId));
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    private List<OutboxEvent> pending(String userId) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getUserId().equals(userId))
+                .toList();
+    }
+
+    private static ActivityRequest run(int day) {
+        return new ActivityRequest(ActivityType.RUNNING, Map.of("distance", 5.0), 30, 300,
+                LocalDateTime.of(2026, 5, day, 7, 0));
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("outbox-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    //records what it is given as "TYPE entityId"; events that other tests' writes leave behind are drained
+    //too, so everything is looked up by user
+    static class RecordingListener implements OutboxListener {
+
+        private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+        private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+        @Override
+        public void onEvent(OutboxEvent event) {
+            Integer left = failures.get(event.getEntityId());
+            if (left != null && left > 0) {
+                failures.put(event.getEntityId(), left - 1);
+                throw new IllegalStateException("listener down");
+            }
+            received.computeIfAbsent(event.getUserId(), userId -> new ArrayList<>())
+                    .add(event.getType() + " " + event.getEntityId());
+        }
+
+        void failTimes(String entityId, int times) {
+            failures.put(entityId, times);
+        }
+
+        List<String> received(String userId) {
+            return received.getOrDefault(userId, List.of());
+        }
+    }
+
+    @TestConfiguration
+    static class Listeners {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.project.fitness.security;
+
+import com.project.fitness.exception.PasswordHashingRejectedException;
+import com.project.fitness.exception.PasswordHashingTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//one hashing thread and a one-slot queue, with an encoder that holds the thread until released
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HeldEncoder encoder = new HeldEncoder();
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        encoder.release();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void needsRehashReadsTheCostFromTheHash() {
+        executor = executor(10, Duration.ofSeconds(1));
+        PasswordHashingExecutor cost12 = executor(12, Duration.ofSeconds(1));
+        try {
+            assertFalse(executor.needsRehash("$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"));
+            assertTrue(executor.needsRehash("$2b$12$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"));
+            assertFalse(cost12.needsRehash("$2b$12$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"));
+            assertTrue(cost12.needsRehash("$2y$04$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"));
+
+            //anything that is not a bcrypt hash is rehashed on the next login
+            assertTrue(executor.needsRehash(null));
+            assertTrue(executor.needsRehash(""));
+            assertTrue(executor.needsRehash("$2a$"));
+            assertTrue(executor.needsRehash("plain-text-password"));
+            assertTrue(executor.needsRehash("$2a$1x$N9qo8uLOickgx2ZMRZoMye"));
+        } finally {
+            cost12.shutdown();
+        }
+    }
+
+    @Test
+    void aFullQueueIsRejectedAtOnce() throws Exception {
+        executor = executor(10, Duration.ofSeconds(5));
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.matches("a", "hash"));
+        encoder.awaitHeld();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.matches("b", "hash"));
+        awaitQueueDepth(1);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> executor.encode("c"));
+        assertEquals(1, meterRegistry.get("security.password.hashing.rejected").counter().count());
+
+        encoder.release();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void aTaskThatWaitedPastMaxQueueWaitIsDroppedWithoutHashing() throws Exception {
+        executor = executor(10, Duration.ofMillis(100));
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.matches("a", "hash"));
+        encoder.awaitHeld();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.encode("b"));
+        awaitQueueDepth(1);
+
+        Thread.sleep(250);
+        encoder.release();
+
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        ExecutionException dropped = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PasswordHashingTimeoutException.class, dropped.getCause());
+        assertEquals(1, meterRegistry.get("security.password.hashing.timeouts").counter().count());
+        assertEquals(1, encoder.calls);
+    }
+
+    private PasswordHashingExecutor executor(int strength, Duration maxQueueWait) {
+        return new PasswordHashingExecutor(encoder, meterRegistry, strength, 1, 1, maxQueueWait);
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("security.password.hashing.queue.depth").gauge().value() < depth) {
+            assertTrue(System.nanoTime() < deadline, "queue never reached " + depth);
+            Thread.sleep(5);
+        }
+    }
+
+    //holds the hashing thread until released; every password matches
+    private static final class HeldEncoder implements PasswordEncoder {
+
+        private final CountDownLatch held = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile int calls;
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hold();
+            return "encoded:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            hold();
+            return true;
+        }
+
+        private void hold() {
+            calls++;
+            held.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void awaitHeld() throws InterruptedException {
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.project.fitness.security;
+
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//sign-in through one hashing thread with a one-slot queue; the encoder can be held to fill them
+@SpringBootTest(properties = {
+        "app.security.hashing.threads=1",
+        "app.security.hashing.queue-capacity=1",
+        "app.security.hashing.max-queue-wait=200ms"
+})
+@AutoConfigureMockMvc
+class PasswordHashingSigninTest {
+
+    private static final String PASSWORD = "signin-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HoldablePasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void release() {
+        passwordEncoder.release();
+    }
+
+    @Test
+    void signinWhileTheHashingQueueIsFullIs429() throws Exception {
+        String email = createUser(passwordEncoder.encode(PASSWORD));
+
+        passwordEncoder.hold();
+        CompletableFuture<Integer> running = signinAsync(email);
+        passwordEncoder.awaitHeld();
+        CompletableFuture<Integer> queued = signinAsync(email);
+        awaitQueueDepth(1);
+
+        mockMvc.perform(signin(email))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        passwordEncoder.release();
+        assertEquals(200, running.get(10, TimeUnit.SECONDS));
+        //depending on how long it sat in the queue it was checked or dropped, never rejected
+        assertTrue(List.of(200, 503).contains(queued.get(10, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void signinThatWaitedPastMaxQueueWaitIs503() throws Exception {
+        String email = createUser(passwordEncoder.encode(PASSWORD));
+
+        passwordEncoder.hold();
+        CompletableFuture<Integer> running = signinAsync(email);
+        passwordEncoder.awaitHeld();
+        CompletableFuture<Integer> queued = signinAsync(email);
+        awaitQueueDepth(1);
+        Thread.sleep(400);
+        passwordEncoder.release();
+
+        assertEquals(200, running.get(10, TimeUnit.SECONDS));
+        assertEquals(503, queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void signinUpgradesAHashWithAnotherCost() throws Exception {
+        String email = createUser(new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        mockMvc.perform(signin(email)).andExpect(status().isOk());
+
+        String stored = userRepository.findByEmail(email).getPassword();
+        assertTrue(stored.startsWith("$2a$10$"), stored);
+        assertTrue(passwordEncoder.matches(PASSWORD, stored));
+        //already at the configured cost: left alone
+        mockMvc.perform(signin(email)).andExpect(status().isOk());
+        assertEquals(stored, userRepository.findByEmail(email).getPassword());
+    }
+
+    private CompletableFuture<Integer> signinAsync(String email) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(signin(email)).andReturn().getResponse().getStatus();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static MockHttpServletRequestBuilder signin(String email) {
+        return post("/api/users/signin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"" + email + "\", \"password\": \"" + PASSWORD + "\"}");
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("security.password.hashing.queue.depth").gauge().value() < depth) {
+            assertTrue(System.nanoTime() < deadline, "queue never reached " + depth);
+            Thread.sleep(5);
+        }
+    }
+
+    private String createUser(String passwordHash) {
+        User user = new User();
+        user.setEmail("hashing-" + UUID.randomUUID() + "@example.com");
+        user.setPassword(passwordHash);
+        return userRepository.save(user).getEmail();
+    }
+
+    //BCrypt at the configured cost that, once hold() is called, keeps the next hashing call waiting until release()
+    static class HoldablePasswordEncoder implements PasswordEncoder {
+
+        private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+        private volatile CountDownLatch held = new CountDownLatch(0);
+        private volatile CountDownLatch released = new CountDownLatch(0);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            waitIfHeld();
+            return bcrypt.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            waitIfHeld();
+            return bcrypt.matches(rawPassword, encodedPassword);
+        }
+
+        void hold() {
+            held = new CountDownLatch(1);
+            released = new CountDownLatch(1);
+        }
+
+        void awaitHeld() throws InterruptedException {
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        private void waitIfHeld() {
+            held.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Encoders {
+
+        @Bean
+        @Primary
+        HoldablePasswordEncoder holdablePasswordEncoder() {
+            return new HoldablePasswordEncoder();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.project.fitness.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//time is passed in, so every case runs on an exact clock
+class RateLimitBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long T0 = 5 * SECOND;
+
+    @Test
+    void aFreshBucketAllowsExactlyCapacityAtOnce() {
+        RateLimitBucket bucket = new RateLimitBucket(10, 0.2, T0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.tryAcquire(T0), "request " + (i + 1));
+        }
+        assertTrue(bucket.tryAcquire(T0) > 0);
+    }
+
+    @Test
+    void aRejectionSaysHowLongUntilTheNextToken() {
+        //one token every 5 seconds
+        RateLimitBucket bucket = new RateLimitBucket(2, 0.2, T0);
+        bucket.tryAcquire(T0);
+        bucket.tryAcquire(T0);
+
+        assertEquals(5 * SECOND, bucket.tryAcquire(T0));
+        assertEquals(2 * SECOND, bucket.tryAcquire(T0 + 3 * SECOND));
+        //rejections do not use up anything
+        assertEquals(2 * SECOND, bucket.tryAcquire(T0 + 3 * SECOND));
+    }
+
+    @Test
+    void oneTokenComesBackPerIntervalUpToCapacity() {
+        RateLimitBucket bucket = new RateLimitBucket(3, 2, T0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(T0);
+        }
+
+        long interval = SECOND / 2;
+        assertEquals(1, bucket.tryAcquire(T0 + interval - 1));
+        assertEquals(0, bucket.tryAcquire(T0 + interval));
+        assertTrue(bucket.tryAcquire(T0 + interval) > 0);
+
+        //idle far longer than a burst refills to capacity, no more
+        long later = T0 + 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(later), "request " + (i + 1) + " after idling");
+        }
+        assertTrue(bucket.tryAcquire(later) > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanCapacity() throws Exception {
+        int capacity = 100;
+        RateLimitBucket bucket = new RateLimitBucket(capacity, 1, T0);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> callers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                callers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        if (bucket.tryAcquire(T0) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> caller : callers) {
+                caller.get();
+            }
+        }
+
+        assertEquals(capacity, allowed.get());
+    }
+}
@@ -0,0 +1,122 @@
+package com.project.fitness.security;
+
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//the limiter is off in the other tests; here it is on with small buckets that refill once every 100 seconds
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.rules[0].name=signin",
+        "app.rate-limit.rules[0].pattern=/api/users/signin",
+        "app.rate-limit.rules[0].methods=POST",
+        "app.rate-limit.rules[0].capacity=1",
+        "app.rate-limit.rules[0].refill-per-second=0.01",
+        "app.rate-limit.rules[1].name=activity-writes",
+        "app.rate-limit.rules[1].pattern=/api/activities/**",
+        "app.rate-limit.rules[1].methods=POST",
+        "app.rate-limit.rules[1].capacity=2",
+        "app.rate-limit.rules[1].refill-per-second=0.01"
+})
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+    private static final String ACTIVITY = """
+            {"type": "RUNNING", "duration": 30, "caloriesBurned": 300, "startTime": "2026-05-01T07:00:00"}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void authenticatedRequestsAreLimitedPerUserWhateverTheAddress() throws Exception {
+        String alice = createUser();
+        String bob = createUser();
+
+        mockMvc.perform(createActivity(alice, "10.0.0.1")).andExpect(status().isOk());
+        mockMvc.perform(createActivity(alice, "10.0.0.2")).andExpect(status().isOk());
+        mockMvc.perform(createActivity(alice, "10.0.0.3"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"))
+                .andExpect(content().json("{\"error\":\"Too many requests\"}"));
+
+        //same address as alice's first request, but bob's own bucket
+        mockMvc.perform(createActivity(bob, "10.0.0.1")).andExpect(status().isOk());
+    }
+
+    @Test
+    void anonymousRequestsAreLimitedPerAddress() throws Exception {
+        User user = new User();
+        user.setEmail("signin-" + UUID.randomUUID() + "@example.com");
+        user.setPassword(passwordEncoder.encode("signin-password"));
+        userRepository.save(user);
+
+        mockMvc.perform(signin(user.getEmail(), "10.0.1.1")).andExpect(status().isOk());
+        mockMvc.perform(signin(user.getEmail(), "10.0.1.1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"));
+
+        mockMvc.perform(signin(user.getEmail(), "10.0.1.2")).andExpect(status().isOk());
+    }
+
+    @Test
+    void requestsNoRuleMatchesAreNotLimited() throws Exception {
+        String userId = createUser();
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(withAddress(post("/api/users/register"), "10.0.2.1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}"))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(createActivity(userId, "10.0.2.1")).andExpect(status().isOk());
+    }
+
+    private MockHttpServletRequestBuilder createActivity(String userId, String address) {
+        return withAddress(post("/api/activities/create"), address)
+                .header("Authorization", "Bearer " + jwtUtils.generateToken(userId, "USER"))
+                .header("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ACTIVITY);
+    }
+
+    private MockHttpServletRequestBuilder signin(String email, String address) {
+        return withAddress(post("/api/users/signin"), address)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"" + email + "\", \"password\": \"signin-password\"}");
+    }
+
+    private static MockHttpServletRequestBuilder withAddress(MockHttpServletRequestBuilder request, String address) {
+        return request.with(servletRequest -> {
+            servletRequest.setRemoteAddr(address);
+            return servletRequest;
+        });
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("limited-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.fitness.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//time is passed in, except through the filter where real tokens are verified
+class VerifiedTokenCacheTest {
+
+    private static final Instant T0 = Instant.parse("2026-05-01T07:00:00Z");
+    private static final Duration MAX_TTL = Duration.ofMinutes(5);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anEntryIsNotReturnedOnceItsTokenHasExpired() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, MAX_TTL);
+        cache.put("a", token("alice", T0.plusSeconds(60)), T0);
+
+        assertNotNull(cache.get("a", T0.plusSeconds(59)));
+        assertNull(cache.get("a", T0.plusSeconds(60)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void anEntryIsDroppedAfterMaxTtlEvenIfItsTokenLivesLongerOrNeverExpires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, MAX_TTL);
+        cache.put("long", token("alice", T0.plus(Duration.ofDays(2))), T0);
+        cache.put("no-exp", token("bob", null), T0);
+
+        Instant justBefore = T0.plus(MAX_TTL).minusMillis(1);
+        assertNotNull(cache.get("long", justBefore));
+        assertNotNull(cache.get("no-exp", justBefore));
+        assertNull(cache.get("long", T0.plus(MAX_TTL)));
+        assertNull(cache.get("no-exp", T0.plus(MAX_TTL)));
+    }
+
+    @Test
+    void theSizeCapIsEnforcedAndExpiredEntriesGoFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, MAX_TTL);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token-" + i, token("user-" + i, T0.plusSeconds(3600)), T0);
+            assertTrue(cache.size() <= 10, "size " + cache.size() + " after " + (i + 1) + " puts");
+        }
+
+        VerifiedTokenCache mixed = new VerifiedTokenCache(10, MAX_TTL);
+        for (int i = 0; i < 5; i++) {
+            mixed.put("short-" + i, token("user-" + i, T0.plusSeconds(1)), T0);
+            mixed.put("long-" + i, token("user-" + i, T0.plusSeconds(3600)), T0);
+        }
+        //full; the five expired entries make room without touching the live ones
+        Instant later = T0.plusSeconds(2);
+        mixed.put("new", token("new-user", T0.plusSeconds(3600)), later);
+        assertEquals(6, mixed.size());
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(mixed.get("long-" + i, later));
+        }
+        assertNotNull(mixed.get("new", later));
+    }
+
+    @Test
+    void aZeroSizeCacheHoldsNothing() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, MAX_TTL);
+        cache.put("a", token("alice", T0.plusSeconds(60)), T0);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a", T0));
+    }
+
+    @Test
+    void aTamperedTokenIsNeverServedFromTheCache() throws Exception {
+        JwtUtils jwtUtils = new JwtUtils();
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, MAX_TTL);
+        JwtAuthFilter filter = new JwtAuthFilter(jwtUtils, cache, new SimpleMeterRegistry());
+        String alice = jwtUtils.generateToken("alice", "USER");
+        String mallory = jwtUtils.generateToken("mallory", "USER");
+
+        assertEquals("alice", authenticate(filter, alice).getName());
+        assertEquals(1, cache.size());
+
+        //alice's header and signature around someone else's claims
+        String[] aliceParts = alice.split("\\.");
+        String tampered = aliceParts[0] + "." + mallory.split("\\.")[1] + "." + aliceParts[2];
+        assertNull(cache.get(VerifiedTokenCache.hash(tampered)));
+        assertNull(authenticate(filter, tampered));
+        assertEquals(1, cache.size());
+
+        assertEquals("alice", authenticate(filter, alice).getName());
+    }
+
+    private static Authentication authenticate(JwtAuthFilter filter, String jwt) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/activities/all");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static VerifiedToken token(String userId, Instant expiresAt) {
+        return new VerifiedToken(userId, List.of(), expiresAt);
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RecommendationResponse;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.ActivityRepository;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//its own archive directory, so archived rows never show up in other tests' activity lists
+@SpringBootTest(properties = {
+        "app.archive.enabled=true",
+        "app.archive.directory=target/test-archive-job"
+})
+class ActivityArchiveJobTest {
+
+    @Autowired
+    private ActivityArchiveJob archiveJob;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private ActivityRepository activityRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void recommendationsOfAnArchivedActivityStayReadableUnderItsId() {
+        String userId = createUser();
+        String activityId = activityService.createActivity(new ActivityRequest(ActivityType.HIKING, null, 120, 700,
+                LocalDateTime.of(2021, 6, 5, 9, 0)), userId).getId();
+        String recommendationId = recommendationService.generate(new RecommendationRequest(List.of("Pace the climbs"),
+                List.of("Stretch"), List.of("Carry water")), userId, activityId).getId();
+
+        assertTrue(archiveJob.run() >= 1);
+
+        assertTrue(activityRepository.findById(activityId).isEmpty());
+        List<ActivityResponse> activities = activityService.getAllActivities(userId, false);
+        assertEquals(List.of(activityId), activities.stream().map(ActivityResponse::getId).toList());
+        for (List<RecommendationResponse> recommendations : List.of(
+                recommendationService.getUserRecommendation(userId),
+                recommendationService.getActivityRecommendation(activityId))) {
+            assertEquals(1, recommendations.size());
+            RecommendationResponse recommendation = recommendations.getFirst();
+            assertEquals(recommendationId, recommendation.getId());
+            assertEquals(activityId, recommendation.getActivityId());
+            assertEquals(List.of("Pace the climbs"), recommendation.getImprovements());
+        }
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("archive-job-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
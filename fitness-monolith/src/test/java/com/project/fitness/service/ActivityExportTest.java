@@ -0,0 +1,93 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ActivityExportTest {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void exportKeepsPersistenceContextBoundedRegardlessOfRowCount() throws Exception {
+        String userId = createUserWithActivities(ROWS);
+        ProbingOutputStream out = new ProbingOutputStream();
+
+        long exported = activityService.exportActivities(userId, out);
+
+        assertEquals(ROWS, exported);
+        assertEquals(ROWS, out.lines);
+        //every row is detached after it is written, so the session never accumulates the history
+        assertTrue(out.maxManagedEntities <= 1,
+                "persistence context grew to " + out.maxManagedEntities + " entities");
+    }
+
+    private String createUserWithActivities(int rows) {
+        User user = new User();
+        user.setEmail("export-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        String userId = userRepository.save(user).getId();
+
+        LocalDateTime start = LocalDateTime.now().minusDays(rows);
+        List<ActivityRequest> chunk = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            chunk.add(new ActivityRequest(ActivityType.CYCLING, Map.of("distance", 20.0), 60, 500, start.plusHours(i)));
+            if (chunk.size() == 1_000) {
+                activityService.createActivities(chunk, userId);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            activityService.createActivities(chunk, userId);
+        }
+        return userId;
+    }
+
+    //runs inside the export transaction, so the shared EntityManager resolves to the exporting session
+    private class ProbingOutputStream extends OutputStream {
+        private long lines;
+        private int maxManagedEntities;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+                int managed = entityManager.unwrap(SessionImplementor.class)
+                        .getPersistenceContextInternal()
+                        .getNumberOfManagedEntities();
+                maxManagedEntities = Math.max(maxManagedEntities, managed);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
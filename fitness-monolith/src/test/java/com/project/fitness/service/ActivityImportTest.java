@@ -0,0 +1,232 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.imports.ImportFormat;
+import com.project.fitness.model.ActivityImport;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.ActivityImportRepository;
+import com.project.fitness.repository.UserRepository;
+import com.project.fitness.security.JwtUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActivityImportTest {
+
+    @Autowired
+    private ActivityImportService importService;
+    @Autowired
+    private ActivityImportRepository importRepository;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Value("${app.imports.directory}")
+    private Path directory;
+
+    @Test
+    void csvRowsAreMappedAndRejectedRowsReported() throws Exception {
+        String userId = createUser();
+        String csv = """
+                Activity Type,Start Time,Duration,Calories,Distance,Notes
+                Run,2026-01-05 07:00:00,45:00,420,10.5,"Easy, with ""strides\"\"\"
+                Ride,2026-01-06T08:00:00Z,90,800,42,
+                Treadmill Running,2026-01-07,30,250,,
+                Parkour,2026-01-08T09:00:00,20,150,,
+                Run,not a date,30,200,,
+                Swim,,30,200,,
+                Walk,2026-01-09T10:00:00,-5,100,,
+                Hike,2026-01-10T10:00:00,120,600,8,"summit
+                and back"
+                Row,2026-01-11T06:00:00,30,300,,,extra
+                """;
+
+        ActivityImport result = await(submit(userId, ImportFormat.CSV, csv));
+
+        assertEquals(ActivityImport.Status.COMPLETED, result.getStatus());
+        assertEquals(9, result.getRowsRead());
+        assertEquals(5, result.getRowsImported());
+        assertEquals(4, result.getRowsFailed());
+        assertEquals(List.of(5L, 6L, 7L, 9L), result.getErrors().stream()
+                .map(error -> Long.parseLong(error.substring(4, error.indexOf(':'))))
+                .toList());
+        assertTrue(result.getErrors().get(0).contains("unreadable start time"));
+        assertTrue(result.getErrors().get(1).contains("Start time is required"));
+        assertFalse(Files.exists(directory.resolve(result.getFileName())));
+
+        Map<ActivityType, ActivityResponse> byType = activityService.getAllActivities(userId, true).stream()
+                .collect(Collectors.toMap(ActivityResponse::getType, activity -> activity));
+        assertEquals(Set.of(ActivityType.RUNNING, ActivityType.CYCLING, ActivityType.TREADMILL_RUNNING,
+                ActivityType.OTHER, ActivityType.HIKING), byType.keySet());
+        ActivityResponse run = byType.get(ActivityType.RUNNING);
+        assertEquals(45, run.getDuration());
+        assertEquals(LocalDateTime.of(2026, 1, 5, 7, 0), run.getStartTime());
+        assertEquals(10.5, ((Number) run.getAdditionalMetrics().get("distance")).doubleValue());
+        assertEquals("Easy, with \"strides\"", run.getAdditionalMetrics().get("Notes"));
+        assertEquals("summit\nand back", byType.get(ActivityType.HIKING).getAdditionalMetrics().get("Notes"));
+        assertEquals("Parkour", byType.get(ActivityType.OTHER).getAdditionalMetrics().get("sourceType"));
+        assertEquals(2, activityService.searchByMetric(userId, PromotedMetric.DISTANCE, 10.0, null, null, null, 50)
+                .getItems().size());
+    }
+
+    @Test
+    void exportedHistoryImportsBackAsJsonLines() throws Exception {
+        String sourceUser = createUser();
+        LocalDateTime start = LocalDateTime.of(2026, 2, 1, 6, 30);
+        for (int i = 0; i < 10; i++) {
+            activityService.createActivity(new ActivityRequest(ActivityType.values()[i], Map.of("distance", 3.0 + i),
+                    20 + i, 150 + i, start.plusDays(i)), sourceUser);
+        }
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        activityService.exportActivities(sourceUser, export);
+        String lines = export.toString(StandardCharsets.UTF_8) + "{not json\n";
+
+        String targetUser = createUser();
+        ActivityImport result = await(submit(targetUser, ImportFormat.JSONL, lines));
+
+        assertEquals(11, result.getRowsRead());
+        assertEquals(10, result.getRowsImported());
+        assertTrue(result.getErrors().getFirst().startsWith("row 11: not a JSON object"));
+        assertEquals(comparable(activityService.getAllActivities(sourceUser, true)),
+                comparable(activityService.getAllActivities(targetUser, true)));
+    }
+
+    @Test
+    void resumedImportSkipsRowsOfCommittedChunks() throws Exception {
+        String userId = createUser();
+        StringBuilder csv = new StringBuilder("type,startTime,duration\n");
+        for (int i = 1; i <= 10; i++) {
+            csv.append("RUNNING,2026-03-").append(String.format("%02d", i)).append("T07:00:00,").append(i).append('\n');
+        }
+        Files.createDirectories(directory);
+        String fileName = UUID.randomUUID() + ".csv";
+        Files.writeString(directory.resolve(fileName), csv);
+
+        //as left by a run that committed one chunk of four and then lost its database connection
+        ActivityImport failed = new ActivityImport();
+        failed.setUserId(userId);
+        failed.setFormat(ImportFormat.CSV);
+        failed.setFileName(fileName);
+        failed.setStatus(ActivityImport.Status.FAILED);
+        failed.setRowsRead(4);
+        failed.setRowsImported(4);
+        failed.setError("connection reset");
+        failed = importRepository.save(failed);
+
+        ActivityImport result = await(importService.resume(failed).orElseThrow().getId());
+
+        assertEquals(ActivityImport.Status.COMPLETED, result.getStatus());
+        assertEquals(10, result.getRowsRead());
+        assertEquals(10, result.getRowsImported());
+        assertEquals(List.of(5, 6, 7, 8, 9, 10), activityService.getAllActivities(userId, true).stream()
+                .map(ActivityResponse::getDuration)
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    void uploadIsAcceptedAndPolledOverHttp() throws Exception {
+        String userId = createUser();
+        String token = "Bearer " + jwtUtils.generateToken(userId, "USER");
+
+        MvcResult accepted = mockMvc.perform(post("/api/activities/imports")
+                        .header("Authorization", token)
+                        .header("userId", userId)
+                        .contentType("text/csv")
+                        .content("type,startTime,duration\nYoga,2026-04-01T07:00:00,60\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andReturn();
+        JsonNode body = JsonMapper.builder().build().readTree(accepted.getResponse().getContentAsString());
+        String importId = body.get("importId").asString();
+        await(importId);
+
+        MvcResult progress = mockMvc.perform(get("/api/activities/imports/" + importId)
+                        .header("Authorization", token)
+                        .header("userId", userId))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode report = JsonMapper.builder().build().readTree(progress.getResponse().getContentAsString());
+        assertEquals("COMPLETED", report.get("status").asString());
+        assertEquals(1, report.get("rowsImported").asLong());
+        assertTrue(report.get("rowsPerSecond").asDouble() >= 0);
+
+        mockMvc.perform(post("/api/activities/imports/" + importId + "/resume")
+                        .header("Authorization", token)
+                        .header("userId", userId))
+                .andExpect(status().isConflict());
+    }
+
+    private String submit(String userId, ImportFormat format, String content) throws Exception {
+        return importService.submit(userId, format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))
+                .orElseThrow()
+                .getId();
+    }
+
+    private ActivityImport await(String importId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            ActivityImport activityImport = importRepository.findById(importId).orElseThrow();
+            if (activityImport.getStatus() != ActivityImport.Status.QUEUED
+                    && activityImport.getStatus() != ActivityImport.Status.RUNNING) {
+                return activityImport;
+            }
+            assertTrue(System.nanoTime() < deadline, "import " + importId + " did not finish");
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> comparable(List<ActivityResponse> activities) {
+        return activities.stream()
+                .sorted(Comparator.comparing(ActivityResponse::getStartTime))
+                .map(activity -> activity.getType() + "|" + activity.getStartTime() + "|" + activity.getDuration()
+                        + "|" + activity.getCaloriesBurned() + "|" + activity.getAdditionalMetrics())
+                .toList();
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("import-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
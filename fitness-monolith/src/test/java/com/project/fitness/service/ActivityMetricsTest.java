@@ -0,0 +1,96 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityPage;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.MetricSummaryResponse;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.PromotedMetric;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ActivityMetricsTest {
+
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void searchFiltersOnThePromotedColumnAndIgnoresNonNumericValues() {
+        String userId = createUser();
+        LocalDateTime start = LocalDateTime.now().minusDays(10);
+        create(userId, ActivityType.RUNNING, Map.of("distance", 5.0), start);
+        String longRun = create(userId, ActivityType.RUNNING, Map.of("distance", 12.5), start.plusDays(1));
+        String longerRide = create(userId, ActivityType.CYCLING, Map.of("distance", 40), start.plusDays(2));
+        create(userId, ActivityType.RUNNING, Map.of("distance", "far"), start.plusDays(3));
+        create(userId, ActivityType.RUNNING, Map.of("heartRate", 150), start.plusDays(4));
+
+        ActivityPage runs = activityService.searchByMetric(userId, PromotedMetric.DISTANCE, 10.0, null, ActivityType.RUNNING, null, 50);
+        assertEquals(List.of(longRun), runs.getItems().stream().map(ActivityResponse::getId).toList());
+
+        ActivityPage anyType = activityService.searchByMetric(userId, PromotedMetric.DISTANCE, 10.0, null, null, null, 1);
+        assertEquals(longerRide, anyType.getItems().getFirst().getId());
+        assertNotNull(anyType.getNextCursor());
+        ActivityPage next = activityService.searchByMetric(userId, PromotedMetric.DISTANCE, 10.0, null, null, anyType.getNextCursor(), 1);
+        assertEquals(longRun, next.getItems().getFirst().getId());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> activityService.searchByMetric(userId, PromotedMetric.DISTANCE, 10.0, 5.0, null, null, 50));
+    }
+
+    @Test
+    void summaryAggregatesPerTypeOverActivitiesThatRecordedTheMetric() {
+        String userId = createUser();
+        LocalDateTime start = LocalDateTime.now().minusDays(10);
+        create(userId, ActivityType.RUNNING, Map.of("heartRate", 140), start);
+        create(userId, ActivityType.RUNNING, Map.of("heartRate", 160), start.plusDays(1));
+        create(userId, ActivityType.CYCLING, Map.of("heartRate", 120), start.plusDays(2));
+        create(userId, ActivityType.CYCLING, Map.of("distance", 30), start.plusDays(3));
+
+        List<MetricSummaryResponse> summary = activityService.getMetricSummary(userId, PromotedMetric.HEART_RATE, null, null);
+
+        assertEquals(List.of(
+                new MetricSummaryResponse(PromotedMetric.HEART_RATE, ActivityType.CYCLING, 1, 120, 120, 120),
+                new MetricSummaryResponse(PromotedMetric.HEART_RATE, ActivityType.RUNNING, 2, 150, 140, 160)), summary);
+    }
+
+    @Test
+    void listsCanLeaveMetricsOut() {
+        String userId = createUser();
+        create(userId, ActivityType.RUNNING, Map.of("distance", 5.0, "heartRate", 150), LocalDateTime.now().minusDays(1));
+
+        assertNotNull(activityService.getAllActivities(userId, true).getFirst().getAdditionalMetrics());
+        ActivityResponse withoutMetrics = activityService.getAllActivities(userId, false).getFirst();
+        assertNull(withoutMetrics.getAdditionalMetrics());
+        assertEquals(userId, withoutMetrics.getUserId());
+        assertTrue(activityService.getActivityPage(userId, null, 10, null, null, null, false).getItems().stream()
+                .allMatch(activity -> activity.getAdditionalMetrics() == null));
+    }
+
+    private String create(String userId, ActivityType type, Map<String, Object> metrics, LocalDateTime startTime) {
+        return activityService.createActivity(new ActivityRequest(type, metrics, 30, 300, startTime), userId).getId();
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("metrics-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,148 @@
+package com.project.fitness.service;
+
+import com.project.fitness.archive.ActivityArchive;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityStatsResponse;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.ActivityRollupRepository;
+import com.project.fitness.repository.DailyActivityTotals;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//one user per chunk, and the archive can be made to fail a chosen user's chunk
+@SpringBootTest(properties = {
+        "app.rollups.rebuild.chunk-size=1",
+        "app.rollups.rebuild.parallelism=1"
+})
+class ActivityRollupRebuildTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 2, 10);
+
+    @Autowired
+    private ActivityRollupRebuilder rollupRebuilder;
+    @Autowired
+    private ActivityRollupService rollupService;
+    @Autowired
+    private ActivityRollupRepository rollupRepository;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private FailingActivityArchive activityArchive;
+
+    @AfterEach
+    void heal() {
+        activityArchive.failFor(null);
+    }
+
+    @Test
+    void aFailedChunkKeepsItsUsersRollupsWhileTheOtherChunksAreRebuilt() {
+        String rebuilt = createUserWithRun();
+        String failing = createUserWithRun();
+        //both users' day buckets drift to 99 runs
+        inflate(rebuilt);
+        inflate(failing);
+
+        activityArchive.failFor(failing);
+        assertThrows(IllegalStateException.class, () -> rollupRebuilder.rebuild());
+
+        assertEquals(1, runsOn(rebuilt));
+        //rolled back with its chunk, not left empty
+        assertEquals(99, runsOn(failing));
+
+        activityArchive.failFor(null);
+        rollupRebuilder.rebuild();
+        assertEquals(1, runsOn(failing));
+    }
+
+    @Test
+    void rollupsOfUsersThatNoLongerExistAreRemoved() {
+        String orphan = UUID.randomUUID().toString();
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.insertEmpty(UUID.randomUUID().toString(),
+                orphan, RollupPeriod.DAY.name(), DAY, ActivityType.RUNNING.name()));
+        assertEquals(1, rollupService.getStats(orphan, RollupPeriod.DAY, DAY, DAY, null).size());
+
+        rollupRebuilder.rebuild();
+
+        assertTrue(rollupService.getStats(orphan, RollupPeriod.DAY, DAY, DAY, null).isEmpty());
+    }
+
+    private long runsOn(String userId) {
+        List<ActivityStatsResponse> stats = rollupService.getStats(userId, RollupPeriod.DAY, DAY, DAY, null);
+        assertEquals(1, stats.size());
+        return stats.getFirst().getCount();
+    }
+
+    private void inflate(String userId) {
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.increment(userId, RollupPeriod.DAY, DAY,
+                ActivityType.RUNNING, 98, 0, 0, 0, 0));
+        assertEquals(99, runsOn(userId));
+    }
+
+    private String createUserWithRun() {
+        User user = new User();
+        user.setEmail("rebuild-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        String userId = userRepository.save(user).getId();
+        activityService.createActivity(new ActivityRequest(ActivityType.RUNNING, null, 30, 300, DAY.atTime(7, 0)), userId);
+        return userId;
+    }
+
+    //throws from the chunk that contains the chosen user, after that chunk has deleted its rollups
+    static class FailingActivityArchive extends ActivityArchive {
+
+        private volatile String failFor;
+
+        FailingActivityArchive(Path directory, ObjectMapper objectMapper) throws IOException {
+            super(directory, objectMapper);
+        }
+
+        @Override
+        public List<DailyActivityTotals> dailyTotals(Collection<String> userIds) {
+            if (failFor != null && userIds.contains(failFor)) {
+                throw new IllegalStateException("archive unreadable");
+            }
+            return super.dailyTotals(userIds);
+        }
+
+        void failFor(String userId) {
+            failFor = userId;
+        }
+    }
+
+    @TestConfiguration
+    static class Archives {
+
+        @Bean
+        @Primary
+        FailingActivityArchive failingActivityArchive(@Value("${app.archive.directory}") Path directory,
+                                                      ObjectMapper objectMapper) throws IOException {
+            return new FailingActivityArchive(directory, objectMapper);
+        }
+    }
+}
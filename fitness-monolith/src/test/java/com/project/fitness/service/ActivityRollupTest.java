@@ -0,0 +1,184 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityStatsResponse;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.RollupPeriod;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.ActivityRollupRepository;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//the rollups written incrementally on every create and delete must match what a rebuild from the raw rows gives
+@SpringBootTest
+class ActivityRollupTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 31);
+
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private ActivityRollupService rollupService;
+    @Autowired
+    private ActivityRollupRebuilder rollupRebuilder;
+    @Autowired
+    private ActivityRollupRepository rollupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void incrementalRollupsMatchARebuildAcrossDaysWeeksMonthsAndDeletes() {
+        String userId = createUser();
+        //Wed 28 Jan to Tue 3 Mar: crosses week and month boundaries, with two runs sharing a day
+        List<ActivityRequest> written = new ArrayList<>(List.of(
+                activity(ActivityType.RUNNING, LocalDateTime.of(2026, 1, 28, 7, 0), 30, 300),
+                activity(ActivityType.RUNNING, LocalDateTime.of(2026, 1, 28, 18, 0), 45, 420),
+                activity(ActivityType.CYCLING, LocalDateTime.of(2026, 1, 31, 9, 0), 90, 700),
+                activity(ActivityType.RUNNING, LocalDateTime.of(2026, 2, 1, 8, 0), 60, 550),
+                activity(ActivityType.YOGA, LocalDateTime.of(2026, 2, 2, 20, 0), 40, 120),
+                activity(ActivityType.CYCLING, LocalDateTime.of(2026, 2, 27, 9, 0), 120, 900),
+                activity(ActivityType.RUNNING, LocalDateTime.of(2026, 3, 3, 7, 0), 25, 250)));
+        List<String> ids = new ArrayList<>();
+        for (ActivityRequest activity : written) {
+            ids.add(activityService.createActivity(activity, userId).getId());
+        }
+
+        for (RollupPeriod period : RollupPeriod.values()) {
+            assertEquals(expected(period, written), stats(userId, period), "incremental " + period);
+        }
+        rollupRebuilder.rebuild();
+        for (RollupPeriod period : RollupPeriod.values()) {
+            assertEquals(expected(period, written), stats(userId, period), "rebuilt " + period);
+        }
+
+        //the 45-minute run is the day's longest; a delete takes it out of the counts and totals, but the
+        //maxima stay as an upper bound until the next rebuild
+        activityService.deleteActivity(ids.get(1), userId);
+        ActivityRequest deleted = written.remove(1);
+        for (RollupPeriod period : RollupPeriod.values()) {
+            List<ActivityStatsResponse> retracted = stats(userId, period);
+            List<ActivityStatsResponse> exact = expected(period, written);
+            assertEquals(withoutMaxima(exact), withoutMaxima(retracted), "retracted " + period);
+            for (int i = 0; i < exact.size(); i++) {
+                assertTrue(retracted.get(i).getMaxDuration() >= exact.get(i).getMaxDuration(), "max is an upper bound");
+            }
+        }
+        ActivityStatsResponse day = rollupService.getStats(userId, RollupPeriod.DAY, deleted.getStartTime().toLocalDate(),
+                deleted.getStartTime().toLocalDate(), ActivityType.RUNNING).getFirst();
+        assertEquals(1, day.getCount());
+        assertEquals(45, day.getMaxDuration());
+        rollupRebuilder.rebuild();
+        for (RollupPeriod period : RollupPeriod.values()) {
+            assertEquals(expected(period, written), stats(userId, period), "rebuilt after delete " + period);
+        }
+    }
+
+    @Test
+    void creatingABucketThatAlreadyExistsIsANoOp() {
+        String userId = createUser();
+        LocalDate day = LocalDate.of(2026, 2, 10);
+        activityService.createActivity(activity(ActivityType.ROWING, day.atTime(7, 0), 30, 250), userId);
+
+        //what the loser of two concurrent first writes to a bucket runs after the winner committed
+        int inserted = transactionTemplate.execute(status -> rollupRepository.insertEmpty(UUID.randomUUID().toString(),
+                userId, RollupPeriod.DAY.name(), day, ActivityType.ROWING.name()));
+
+        assertEquals(0, inserted);
+        assertEquals(List.of(new ActivityStatsResponse(RollupPeriod.DAY, day, ActivityType.ROWING, 1, 30, 250, 30, 250)),
+                rollupService.getStats(userId, RollupPeriod.DAY, day, day, null));
+    }
+
+    @Test
+    void concurrentFirstWritesToOneBucketAreAllCounted() throws Exception {
+        String userId = createUser();
+        LocalDate day = LocalDate.of(2026, 2, 11);
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            for (int i = 0; i < writers; i++) {
+                int minutes = 10 * (i + 1);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return activityService.createActivity(activity(ActivityType.ROWING, day.atTime(6, minutes), minutes,
+                            minutes * 10), userId);
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        assertEquals(List.of(new ActivityStatsResponse(RollupPeriod.DAY, day, ActivityType.ROWING, 4, 100, 1000, 40, 400)),
+                rollupService.getStats(userId, RollupPeriod.DAY, day, day, null));
+    }
+
+    private List<ActivityStatsResponse> stats(String userId, RollupPeriod period) {
+        return sorted(rollupService.getStats(userId, period, FROM, TO, null));
+    }
+
+    //the buckets computed from scratch, in the test
+    private static List<ActivityStatsResponse> expected(RollupPeriod period, List<ActivityRequest> activities) {
+        Map<String, ActivityStatsResponse> buckets = new LinkedHashMap<>();
+        for (ActivityRequest activity : activities) {
+            LocalDate bucketStart = period.bucketStart(activity.getStartTime().toLocalDate());
+            ActivityStatsResponse bucket = buckets.computeIfAbsent(bucketStart + " " + activity.getType(),
+                    key -> new ActivityStatsResponse(period, bucketStart, activity.getType(), 0, 0, 0, 0, 0));
+            bucket.setCount(bucket.getCount() + 1);
+            bucket.setTotalDuration(bucket.getTotalDuration() + activity.getDuration());
+            bucket.setTotalCalories(bucket.getTotalCalories() + activity.getCaloriesBurned());
+            bucket.setMaxDuration(Math.max(bucket.getMaxDuration(), activity.getDuration()));
+            bucket.setMaxCalories(Math.max(bucket.getMaxCalories(), activity.getCaloriesBurned()));
+        }
+        return sorted(new ArrayList<>(buckets.values()));
+    }
+
+    private static List<ActivityStatsResponse> sorted(List<ActivityStatsResponse> stats) {
+        return stats.stream()
+                .sorted(Comparator.comparing(ActivityStatsResponse::getBucketStart)
+                        .thenComparing(response -> response.getType().name()))
+                .toList();
+    }
+
+    private static List<ActivityStatsResponse> withoutMaxima(List<ActivityStatsResponse> stats) {
+        return stats.stream()
+                .map(response -> new ActivityStatsResponse(response.getPeriod(), response.getBucketStart(),
+                        response.getType(), response.getCount(), response.getTotalDuration(),
+                        response.getTotalCalories(), 0, 0))
+                .toList();
+    }
+
+    private static ActivityRequest activity(ActivityType type, LocalDateTime startTime, int minutes, int calories) {
+        return new ActivityRequest(type, null, minutes, calories, startTime);
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("rollup-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+}
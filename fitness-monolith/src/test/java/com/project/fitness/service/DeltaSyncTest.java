@@ -0,0 +1,187 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.ActivityResponse;
+import com.project.fitness.dto.ChangesResponse;
+import com.project.fitness.dto.DeletedEntity;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.dto.RecommendationResponse;
+import com.project.fitness.exception.SyncCursorExpiredException;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.SyncEntity;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class DeltaSyncTest {
+
+    private static final int HISTORY = 500;
+
+    @Autowired
+    private SyncService syncService;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void fullSyncPagesThroughHistoryWithoutRepeats() {
+        String userId = createUser();
+        List<String> activityIds = createActivities(userId, HISTORY);
+        recommendationService.generate(advice(), userId, activityIds.getFirst());
+
+        Set<String> seen = new HashSet<>();
+        int recommendations = 0;
+        String cursor = null;
+        ChangesResponse page;
+        do {
+            page = syncService.getChanges(userId, cursor, 100);
+            page.getActivities().forEach(activity -> assertTrue(seen.add(activity.getId()), "repeated " + activity.getId()));
+            recommendations += page.getRecommendations().size();
+            cursor = page.getCursor();
+        } while (page.isHasMore());
+
+        assertEquals(HISTORY, seen.size());
+        assertEquals(1, recommendations);
+        //drained: the next call is empty and hands back a cursor that does not move backwards
+        ChangesResponse drained = syncService.getChanges(userId, cursor, 100);
+        assertTrue(drained.getActivities().isEmpty());
+        assertFalse(drained.isHasMore());
+    }
+
+    //a typical sync interval: a couple of new activities and one deletion since the last sync
+    @Test
+    void incrementalSyncReturnsOnlyTheDelta() {
+        String userId = createUser();
+        List<String> activityIds = createActivities(userId, HISTORY);
+        recommendationService.generate(advice(), userId, activityIds.getLast());
+        String cursor = drain(userId, null);
+
+        activityService.createActivity(activity(LocalDateTime.now()), userId);
+        activityService.createActivity(activity(LocalDateTime.now()), userId);
+        assertTrue(activityService.deleteActivity(activityIds.getLast(), userId));
+
+        ChangesResponse delta = syncService.getChanges(userId, cursor, 100);
+        assertEquals(2, delta.getActivities().size());
+        assertTrue(delta.getRecommendations().isEmpty());
+        assertEquals(List.of(SyncEntity.ACTIVITY, SyncEntity.RECOMMENDATION),
+                delta.getDeleted().stream().map(DeletedEntity::getType).sorted().toList());
+        assertTrue(delta.getDeleted().stream().anyMatch(deleted -> deleted.getId().equals(activityIds.getLast())));
+
+        //without a cursor the same device re-downloads its whole activity list
+        List<ActivityResponse> everything = activityService.getAllActivities(userId, true);
+        int deltaBytes = objectMapper.writeValueAsBytes(delta).length;
+        int fullBytes = objectMapper.writeValueAsBytes(everything).length;
+        assertTrue(deltaBytes * 50 < fullBytes, "delta " + deltaBytes + " bytes vs full " + fullBytes + " bytes");
+    }
+
+    //a write that started first but commits last is still delivered: positions follow commit order
+    @Test
+    void aWriteCommittingAfterANewerOneIsNotSkipped() throws Exception {
+        String userId = createUser();
+        String anchor = createActivities(userId, 1).getFirst();
+        String cursor = drain(userId, null);
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            List<String> slowAndCursor = transactionTemplate.execute(status -> {
+                String id = activityService.createActivity(activity(LocalDateTime.now()), userId).getId();
+                try {
+                    String recommendationId = writer.submit(() -> recommendationService.generate(advice(), userId, anchor).getId())
+                            .get(10, TimeUnit.SECONDS);
+                    //on another thread, outside this transaction
+                    ChangesResponse first = CompletableFuture.supplyAsync(() -> syncService.getChanges(userId, cursor, 100)).join();
+                    assertTrue(first.getActivities().isEmpty());
+                    assertEquals(List.of(recommendationId), first.getRecommendations().stream().map(RecommendationResponse::getId).toList());
+                    return List.of(id, first.getCursor());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            ChangesResponse second = syncService.getChanges(userId, slowAndCursor.get(1), 100);
+            assertEquals(List.of(slowAndCursor.get(0)), second.getActivities().stream().map(ActivityResponse::getId).toList());
+            assertTrue(second.getRecommendations().isEmpty());
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    void deletingSomeoneElsesActivityIsRefused() {
+        String owner = createUser();
+        String activityId = createActivities(owner, 1).getFirst();
+
+        assertFalse(activityService.deleteActivity(activityId, createUser()));
+        assertEquals(1, syncService.getChanges(owner, null, 10).getActivities().size());
+    }
+
+    @Test
+    void cursorOlderThanTombstoneRetentionIsRejected() {
+        String cursor = new ChangeCursor(1, UUID.randomUUID().toString(), LocalDateTime.now().minusDays(365)).encode();
+
+        assertThrows(SyncCursorExpiredException.class, () -> syncService.getChanges(createUser(), cursor, 10));
+    }
+
+    private String drain(String userId, String cursor) {
+        ChangesResponse page;
+        do {
+            page = syncService.getChanges(userId, cursor, 500);
+            cursor = page.getCursor();
+        } while (page.isHasMore());
+        return cursor;
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("sync-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    private List<String> createActivities(String userId, int count) {
+        LocalDateTime start = LocalDateTime.now().minusDays(count);
+        List<ActivityRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(activity(start.plusDays(i)));
+        }
+        return activityService.createActivities(requests, userId).getResults().stream()
+                .map(result -> result.getActivity().getId())
+                .toList();
+    }
+
+    private static ActivityRequest activity(LocalDateTime startTime) {
+        return new ActivityRequest(ActivityType.RUNNING, Map.of("distance", 5.0, "heartRate", 150), 30, 300, startTime);
+    }
+
+    private static RecommendationRequest advice() {
+        return new RecommendationRequest(List.of("Run a little longer"), List.of("Add a rest day"), List.of("Hydrate"));
+    }
+}
@@ -0,0 +1,197 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.model.Activity;
+import com.project.fitness.model.ActivityType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//each rule right at its threshold and one step past it
+class RecommendationEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 15, 12, 0);
+
+    private final RecommendationEngine engine = new RecommendationEngine();
+
+    @Test
+    void noHistoryAsksForSessionsRatherThanCallingTheTrainingBalanced() {
+        RecommendationRequest advice = engine.analyze(List.of(), NOW);
+
+        assertTrue(mentions(advice.getSuggestions(), "at least 3 sessions a week - you logged 0"));
+        assertFalse(mentions(advice.getSuggestions(), "well balanced"));
+    }
+
+    @Test
+    void fewerThanThreeSessionsThisWeekAsksForMore() {
+        List<Activity> two = List.of(session(ActivityType.YOGA, 1, 30, 120), session(ActivityType.YOGA, 2, 30, 120));
+        List<Activity> three = List.of(session(ActivityType.YOGA, 1, 30, 120), session(ActivityType.YOGA, 2, 30, 120),
+                session(ActivityType.YOGA, 3, 30, 120));
+        //an eighth day back is last week and does not count
+        List<Activity> twoAndOneOld = List.of(session(ActivityType.YOGA, 1, 30, 120),
+                session(ActivityType.YOGA, 2, 30, 120), session(ActivityType.YOGA, 8, 30, 120));
+
+        assertTrue(mentions(engine.analyze(two, NOW).getSuggestions(), "you logged 2 in the last 7 days"));
+        assertFalse(mentions(engine.analyze(three, NOW).getSuggestions(), "sessions a week"));
+        assertTrue(mentions(engine.analyze(twoAndOneOld, NOW).getSuggestions(), "you logged 2 in the last 7 days"));
+    }
+
+    @Test
+    void enduranceWithoutStrengthAndTrainingWithoutMobilityGetSuggestions() {
+        List<Activity> enduranceOnly = List.of(session(ActivityType.RUNNING, 1, 30, 300));
+        List<Activity> rounded = List.of(session(ActivityType.RUNNING, 1, 30, 300),
+                session(ActivityType.WEIGHT_TRAINING, 2, 45, 200), session(ActivityType.STRETCHING, 3, 15, 40));
+
+        assertTrue(mentions(engine.analyze(enduranceOnly, NOW).getSuggestions(), "two short strength sessions"));
+        assertTrue(mentions(engine.analyze(enduranceOnly, NOW).getSuggestions(), "stretching, yoga or mobility"));
+        assertFalse(mentions(engine.analyze(rounded, NOW).getSuggestions(), "strength sessions"));
+        assertFalse(mentions(engine.analyze(rounded, NOW).getSuggestions(), "mobility"));
+    }
+
+    @Test
+    void moreThanThreeHighIntensitySessionsAWeekIsASafetyNote() {
+        List<Activity> three = new ArrayList<>();
+        for (int day = 1; day <= 3; day++) {
+            three.add(session(ActivityType.HIIT, day, 30, 400));
+        }
+        List<Activity> four = new ArrayList<>(three);
+        four.add(session(ActivityType.HIIT, 4, 30, 400));
+
+        assertFalse(mentions(engine.analyze(three, NOW).getSafety(), "high-intensity"));
+        assertTrue(mentions(engine.analyze(four, NOW).getSafety(), "You did 4 high-intensity sessions this week"));
+    }
+
+    @Test
+    void trainingEveryDayOfTheWeekAsksForARestDay() {
+        List<Activity> sixDays = new ArrayList<>();
+        for (int day = 0; day < 6; day++) {
+            sixDays.add(session(ActivityType.YOGA, day, 30, 120));
+        }
+        List<Activity> sevenDays = new ArrayList<>(sixDays);
+        sevenDays.add(session(ActivityType.YOGA, 6, 30, 120));
+
+        assertFalse(mentions(engine.analyze(sixDays, NOW).getSafety(), "rest day"));
+        assertTrue(mentions(engine.analyze(sevenDays, NOW).getSafety(), "rest day"));
+    }
+
+    @Test
+    void weeklyLoadMayGrowByTenPercent() {
+        Activity lastWeek = session(ActivityType.CYCLING, 8, 100, 800);
+
+        RecommendationRequest tenPercent = engine.analyze(List.of(lastWeek, session(ActivityType.CYCLING, 1, 110, 880)), NOW);
+        RecommendationRequest more = engine.analyze(List.of(lastWeek, session(ActivityType.CYCLING, 1, 111, 888)), NOW);
+        //nothing last week, nothing to compare with
+        RecommendationRequest fresh = engine.analyze(List.of(session(ActivityType.CYCLING, 1, 170, 1360)), NOW);
+
+        assertFalse(mentions(tenPercent.getSafety(), "week over week"));
+        assertTrue(mentions(more.getSafety(),
+                "Training time went from 100 to 111 minutes week over week - increase weekly load by no more than 10%"));
+        assertFalse(mentions(fresh.getSafety(), "week over week"));
+    }
+
+    @Test
+    void shortEnduranceSessionsShouldBuildTowardsThirtyMinutes() {
+        RecommendationRequest shortRuns = engine.analyze(List.of(session(ActivityType.RUNNING, 1, 18, 180),
+                session(ActivityType.RUNNING, 2, 21, 210)), NOW);
+        RecommendationRequest twentyMinutes = engine.analyze(List.of(session(ActivityType.RUNNING, 1, 20, 200)), NOW);
+
+        assertTrue(mentions(shortRuns.getImprovements(), "Your running sessions average 20 minutes"));
+        assertFalse(mentions(twentyMinutes.getImprovements(), "sessions average"));
+    }
+
+    @Test
+    void enduranceUnderFourCaloriesAMinuteIsLowIntensity() {
+        RecommendationRequest easy = engine.analyze(List.of(session(ActivityType.WALKING, 1, 60, 230)), NOW);
+        RecommendationRequest fourPerMinute = engine.analyze(List.of(session(ActivityType.WALKING, 1, 60, 240)), NOW);
+        //not an endurance type, so not judged on calories
+        RecommendationRequest yoga = engine.analyze(List.of(session(ActivityType.YOGA, 1, 60, 120)), NOW);
+
+        assertTrue(mentions(easy.getImprovements(), "Your walking intensity is low (3.8 kcal/min)"));
+        assertFalse(mentions(fourPerMinute.getImprovements(), "intensity is low"));
+        assertFalse(mentions(yoga.getImprovements(), "intensity is low"));
+    }
+
+    @Test
+    void aSingleStrengthSessionInTwoWeeksIsNotEnough() {
+        RecommendationRequest once = engine.analyze(List.of(session(ActivityType.WEIGHT_TRAINING, 3, 45, 200)), NOW);
+        RecommendationRequest twice = engine.analyze(List.of(session(ActivityType.WEIGHT_TRAINING, 3, 45, 200),
+                session(ActivityType.WEIGHT_TRAINING, 10, 45, 200)), NOW);
+
+        assertTrue(mentions(once.getImprovements(), "One weight training session in two weeks"));
+        assertFalse(mentions(twice.getImprovements(), "in two weeks"));
+    }
+
+    @Test
+    void sessionsOverThreeHoursNeedWaterAndFuel() {
+        RecommendationRequest threeHours = engine.analyze(List.of(session(ActivityType.HIKING, 1, 180, 1500)), NOW);
+        RecommendationRequest longer = engine.analyze(List.of(session(ActivityType.HIKING, 1, 181, 1500)), NOW);
+
+        assertFalse(mentions(threeHours.getSafety(), "carry water"));
+        assertTrue(mentions(longer.getSafety(), "For hiking sessions over 3 hours, carry water"));
+    }
+
+    @Test
+    void heartRatesAboveTheLimitsAreSafetyNotes() {
+        RecommendationRequest atLimits = engine.analyze(List.of(session(ActivityType.RUNNING, 1, 30, 300,
+                Map.of("heartRate", 170, "maxHeartRate", 190))), NOW);
+        //metrics may arrive as strings
+        RecommendationRequest over = engine.analyze(List.of(session(ActivityType.RUNNING, 1, 30, 300,
+                Map.of("heartRate", "171", "maxHeartRate", 191.0))), NOW);
+
+        assertFalse(mentions(atLimits.getSafety(), "heart rate"));
+        assertTrue(mentions(over.getSafety(), "An average heart rate of 171 bpm"));
+        assertTrue(mentions(over.getSafety(), "A max heart rate of 191 bpm"));
+    }
+
+    @Test
+    void longestRunIsExtendedByTenPercent() {
+        RecommendationRequest advice = engine.analyze(List.of(
+                session(ActivityType.RUNNING, 1, 30, 300, Map.of("distance", 5.0)),
+                session(ActivityType.TREADMILL_RUNNING, 3, 60, 600, Map.of("distance", 10.0)),
+                //a longer ride is not a run
+                session(ActivityType.CYCLING, 2, 90, 700, Map.of("distance", 40.0))), NOW);
+
+        assertTrue(mentions(advice.getImprovements(), "Your longest run was 10.0 km - extend next week's long run to about 11.0 km"));
+    }
+
+    @Test
+    void aBalancedWeekGetsOnlyTheKeepGoingSuggestion() {
+        List<Activity> week = List.of(
+                session(ActivityType.CYCLING, 1, 45, 400),
+                session(ActivityType.WEIGHT_TRAINING, 2, 45, 200),
+                session(ActivityType.YOGA, 3, 30, 120),
+                session(ActivityType.WEIGHT_TRAINING, 4, 45, 200));
+
+        RecommendationRequest advice = engine.analyze(week, NOW);
+
+        assertEquals(List.of(), advice.getImprovements());
+        assertEquals(List.of(), advice.getSafety());
+        assertEquals(1, advice.getSuggestions().size());
+        assertTrue(mentions(advice.getSuggestions(), "well balanced"));
+    }
+
+    private static boolean mentions(List<String> notes, String fragment) {
+        return notes.stream().anyMatch(note -> note.contains(fragment));
+    }
+
+    private static Activity session(ActivityType type, int daysAgo, int minutes, int calories) {
+        return session(type, daysAgo, minutes, calories, null);
+    }
+
+    private static Activity session(ActivityType type, int daysAgo, int minutes, int calories, Map<String, Object> metrics) {
+        Activity activity = new Activity();
+        activity.setType(type);
+        activity.setDuration(minutes);
+        activity.setCaloriesBurned(calories);
+        activity.setAdditionalMetrics(metrics);
+        activity.setStartTime(NOW.minusDays(daysAgo).minusHours(1));
+        return activity;
+    }
+}
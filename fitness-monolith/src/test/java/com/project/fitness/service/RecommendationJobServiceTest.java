@@ -0,0 +1,172 @@
+package com.project.fitness.service;
+
+import com.project.fitness.datasource.ReadYourWrites;
+import com.project.fitness.dto.ActivityRequest;
+import com.project.fitness.dto.RecommendationRequest;
+import com.project.fitness.mapper.RecommendationMapper;
+import com.project.fitness.model.ActivityType;
+import com.project.fitness.model.Recommendation;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//services built per test so one can be shut down; the mapper keeps a worker on a job until released
+@SpringBootTest
+class RecommendationJobServiceTest {
+
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private ReadYourWrites readYourWrites;
+    @Autowired
+    private ActivityService activityService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HoldingRecommendationMapper recommendationMapper;
+
+    private RecommendationJobService jobService;
+
+    @AfterEach
+    void stop() {
+        recommendationMapper.release();
+        if (jobService != null) {
+            jobService.stopWorkers();
+        }
+    }
+
+    @Test
+    void aRunningJobOutlivesAFullHistoryOfFinishedOnes() throws Exception {
+        //a one-slot queue keeps ten finished jobs; the second worker runs them while the first is held
+        jobService = start(1, 2);
+        String userId = createUser();
+
+        recommendationMapper.hold();
+        RecommendationJob running = jobService.submit(request(), userId, createActivity(userId)).orElseThrow();
+        recommendationMapper.awaitHeld();
+        for (int i = 0; i < 50; i++) {
+            RecommendationJob failing = jobService.submit(request(), userId, "no-such-activity").orElseThrow();
+            awaitFinished(userId, failing.getId());
+        }
+
+        assertEquals(RecommendationJob.Status.RUNNING, jobService.find(running.getId(), userId).orElseThrow().getStatus());
+        recommendationMapper.release();
+        assertEquals(RecommendationJob.Status.COMPLETED, awaitFinished(userId, running.getId()).getStatus());
+    }
+
+    @Test
+    void shuttingDownFailsTheQueuedJobsAndRejectsNewOnes() throws Exception {
+        jobService = start(1, 1);
+        String userId = createUser();
+        String activityId = createActivity(userId);
+
+        recommendationMapper.hold();
+        RecommendationJob running = jobService.submit(request(), userId, activityId).orElseThrow();
+        recommendationMapper.awaitHeld();
+        RecommendationJob queued = jobService.submit(request(), userId, activityId).orElseThrow();
+
+        jobService.stopWorkers();
+
+        RecommendationJob abandoned = jobService.find(queued.getId(), userId).orElseThrow();
+        assertEquals(RecommendationJob.Status.FAILED, abandoned.getStatus());
+        assertEquals("Shut down before the job started", abandoned.getError());
+        assertTrue(jobService.submit(request(), userId, activityId).isEmpty());
+        recommendationMapper.release();
+        awaitFinished(userId, running.getId());
+    }
+
+    private RecommendationJobService start(int queueCapacity, int workers) {
+        RecommendationJobService service = new RecommendationJobService(recommendationService, readYourWrites,
+                new SimpleMeterRegistry(), queueCapacity, workers, Duration.ofHours(1), false);
+        service.startWorkers();
+        return service;
+    }
+
+    private RecommendationJob awaitFinished(String userId, String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            RecommendationJob job = jobService.find(jobId, userId).orElseThrow();
+            if (job.getStatus() == RecommendationJob.Status.COMPLETED || job.getStatus() == RecommendationJob.Status.FAILED) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "job " + jobId + " still " + job.getStatus());
+            Thread.sleep(10);
+        }
+    }
+
+    private static RecommendationRequest request() {
+        RecommendationRequest request = new RecommendationRequest();
+        request.setImprovements(List.of("Run longer"));
+        return request;
+    }
+
+    private String createActivity(String userId) {
+        return activityService.createActivity(new ActivityRequest(ActivityType.RUNNING, null, 30, 300,
+                LocalDateTime.of(2026, 4, 1, 7, 0)), userId).getId();
+    }
+
+    private String createUser() {
+        User user = new User();
+        user.setEmail("job-service-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user).getId();
+    }
+
+    //once hold() is called, keeps the next mapping - and with it the worker - waiting until release()
+    static class HoldingRecommendationMapper extends RecommendationMapper {
+
+        private volatile CountDownLatch held = new CountDownLatch(0);
+        private volatile CountDownLatch released = new CountDownLatch(0);
+
+        @Override
+        public Recommendation toEntity(RecommendationRequest request) {
+            held.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.toEntity(request);
+        }
+
+        void hold() {
+            held = new CountDownLatch(1);
+            released = new CountDownLatch(1);
+        }
+
+        void awaitHeld() throws InterruptedException {
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+
+    @TestConfiguration
+    static class Mappers {
+
+        @Bean
+        @Primary
+        HoldingRecommendationMapper holdingRecommendationMapper() {
+            return new HoldingRecommendationMapper();
+        }
+    }
+}
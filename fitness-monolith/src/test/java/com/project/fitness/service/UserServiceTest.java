@@ -0,0 +1,43 @@
+package com.project.fitness.service;
+
+import com.project.fitness.dto.LoginRequest;
+import com.project.fitness.model.User;
+import com.project.fitness.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void aLoginThatRehashesThePasswordMovesUpdatedAt() {
+        User user = new User();
+        user.setEmail("rehash-" + UUID.randomUUID() + "@example.com");
+        //below the configured cost of 10
+        user.setPassword(new BCryptPasswordEncoder(4).encode("secret"));
+        LocalDateTime createdUpdatedAt = userRepository.save(user).getUpdatedAt();
+
+        LoginRequest login = new LoginRequest();
+        login.setEmail(user.getEmail());
+        login.setPassword("secret");
+        User authenticated = userService.authenticate(login);
+
+        User stored = userRepository.findById(user.getId()).orElseThrow();
+        assertTrue(stored.getPassword().contains("$10$"));
+        assertTrue(stored.getUpdatedAt().isAfter(createdUpdatedAt));
+        assertEquals(stored.getPassword(), authenticated.getPassword());
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.fitness.support;
+
+import com.project.fitness.metrics.JdbcStats;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// SQL statement budgets for tests, read from the same thread-local counters the request metrics use
+// (InstrumentedDataSource wraps the test DataSource too). MockMvc requests run on the test thread and
+// RequestMetricsFilter resets the counters at the start of each request, so after perform() the count
+// is exactly that request's statements. A JDBC batch counts as one statement (one round trip).
+public final class SqlBudget {
+
+    private SqlBudget() {
+    }
+
+    public static void reset() {
+        JdbcStats.reset();
+    }
+
+    public static long statements() {
+        return JdbcStats.current().getStatements();
+    }
+
+    public static void assertStatements(long expected, String operation) {
+        assertEquals(expected, statements(), operation + " executed an unexpected number of SQL statements");
+    }
+
+    public static void assertAtMostStatements(long max, String operation) {
+        long actual = statements();
+        assertTrue(actual <= max, operation + " executed " + actual + " SQL statements, budget is " + max);
+    }
+
+    public static <T> T expectStatements(long expected, String operation, ThrowingSupplier<T> work) throws Throwable {
+        reset();
+        T result = work.get();
+        assertStatements(expected, operation);
+        return result;
+    }
+}